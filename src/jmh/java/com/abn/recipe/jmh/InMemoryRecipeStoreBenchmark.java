@@ -0,0 +1,79 @@
+package com.abn.recipe.jmh;
+
+import com.abn.recipe.benchmark.RecipeDataset;
+import com.abn.recipe.model.RecipeFacets;
+import com.abn.recipe.model.RecipeFilter;
+import com.abn.recipe.model.RecipeProjection;
+import com.abn.recipe.model.mongo.Recipe;
+import com.abn.recipe.service.store.InMemoryRecipeStore;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reads of the in-memory store without a server in front of it, the floor under the latency of an edge deployment.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class InMemoryRecipeStoreBenchmark {
+
+    private static final int PAGE_SIZE = 50;
+
+    @Param({"10000", "100000"})
+    private int recipes;
+
+    private InMemoryRecipeStore store;
+
+    private List<String> ids;
+
+    private final RecipeFilter vegetarianForFour = RecipeFilter.builder().isVegetarian(true).servings(4).build();
+
+    private final RecipeFilter salmonWithoutGarlic = RecipeFilter.builder().includeIngredient("salmon").excludeIngredient("garlic").build();
+
+    @Setup
+    public void setup() {
+        store = new InMemoryRecipeStore("", Duration.ZERO);
+        ids = new RecipeDataset(42).recipes(recipes).stream()
+                .map(store::insert)
+                .map(Recipe::id)
+                .toList();
+    }
+
+    @Benchmark
+    public Optional<Recipe> findById() {
+        return store.findById(ids.get(ThreadLocalRandom.current().nextInt(ids.size())));
+    }
+
+    @Benchmark
+    public List<Recipe> vegetarianServingsPage() {
+        return store.find(vegetarianForFour, RecipeProjection.ALL, null, null, PAGE_SIZE);
+    }
+
+    @Benchmark
+    public List<Recipe> ingredientPage() {
+        return store.find(salmonWithoutGarlic, RecipeProjection.ALL, null, null, PAGE_SIZE);
+    }
+
+    @Benchmark
+    public RecipeFacets vegetarianFacets() {
+        return store.facets(RecipeFilter.builder().isVegetarian(true).build(), 10);
+    }
+}
@@ -0,0 +1,79 @@
+package com.abn.recipe.jmh;
+
+import com.abn.recipe.benchmark.RecipeDataset;
+import com.abn.recipe.model.mongo.Recipe;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.NoOpDbRefResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Spring Data mapping between Mongo documents and Recipe records, the per document cost of every read and write.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RecipeMappingBenchmark {
+
+    @Param({"100", "1000"})
+    private int pageSize;
+
+    private MappingMongoConverter converter;
+
+    private List<Recipe> recipes;
+
+    private List<Document> documents;
+
+    @Setup
+    public void setup() {
+        MongoMappingContext mappingContext = new MongoMappingContext();
+        mappingContext.afterPropertiesSet();
+        converter = new MappingMongoConverter(NoOpDbRefResolver.INSTANCE, mappingContext);
+        converter.afterPropertiesSet();
+
+        recipes = new RecipeDataset(pageSize).recipes(pageSize).stream()
+                .map(recipe -> recipe.toBuilder().id(new ObjectId().toHexString()).version(0L).build())
+                .toList();
+        documents = recipes.stream()
+                .map(this::write)
+                .toList();
+    }
+
+    @Benchmark
+    public List<Recipe> readPage() {
+        return documents.stream()
+                .map(document -> converter.read(Recipe.class, document))
+                .toList();
+    }
+
+    @Benchmark
+    public List<Document> writePage() {
+        return recipes.stream()
+                .map(this::write)
+                .toList();
+    }
+
+    private Document write(Recipe recipe) {
+        Document document = new Document();
+        converter.write(recipe, document);
+        return document;
+    }
+}
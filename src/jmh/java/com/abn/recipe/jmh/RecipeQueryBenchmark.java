@@ -0,0 +1,65 @@
+package com.abn.recipe.jmh;
+
+import com.abn.recipe.model.RecipeFilter;
+import com.abn.recipe.model.RecipeProjection;
+import com.abn.recipe.service.InstructionSearchMode;
+import com.abn.recipe.service.PageToken;
+import com.abn.recipe.service.RecipeQueries;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Building the Mongo query of a filtered page, the work RecipeService.find does before it reaches the driver.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RecipeQueryBenchmark {
+
+    private final RecipeQueries recipeQueries = new RecipeQueries(100, 1000, InstructionSearchMode.TEXT, Duration.ofSeconds(2));
+
+    private RecipeFilter allFilters;
+
+    private String next;
+
+    @Setup
+    public void setup() {
+        allFilters = RecipeFilter.builder()
+                .isVegetarian(true)
+                .servings(4)
+                .includeIngredient("potatoes")
+                .excludeIngredient("salmon")
+                .instruction("oven")
+                .build();
+        next = PageToken.encode(new ObjectId().toHexString());
+    }
+
+    @Benchmark
+    public Document firstPageWithoutFilters() {
+        Query query = recipeQueries.pageQuery(RecipeFilter.builder().build(), RecipeProjection.ALL, null, recipeQueries.pageSize(null));
+        return query.getQueryObject();
+    }
+
+    @Benchmark
+    public Document nextPageWithAllFilters() {
+        Query query = recipeQueries.pageQuery(allFilters, RecipeProjection.ALL, RecipeQueries.afterId(PageToken.decode(next)), recipeQueries.pageSize(50));
+        return query.getQueryObject();
+    }
+}
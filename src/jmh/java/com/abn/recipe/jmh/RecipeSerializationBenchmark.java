@@ -0,0 +1,56 @@
+package com.abn.recipe.jmh;
+
+import com.abn.recipe.benchmark.RecipeDataset;
+import com.abn.recipe.controller.builder.RecipeVOBuilder;
+import com.abn.recipe.controller.vo.RecipeVO;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Jackson serialization of a response page, with an object mapper configured like the one Spring Boot builds.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RecipeSerializationBenchmark {
+
+    @Param({"100", "1000"})
+    private int pageSize;
+
+    private List<RecipeVO> page;
+
+    private ObjectWriter writer;
+
+    @Setup
+    public void setup() {
+        page = new RecipeDataset(pageSize).recipes(pageSize).stream()
+                .map(RecipeVOBuilder::build)
+                .toList();
+        writer = Jackson2ObjectMapperBuilder.json().build().writerFor(new TypeReference<List<RecipeVO>>() {
+        });
+    }
+
+    @Benchmark
+    public byte[] serializePage() throws JsonProcessingException {
+        return writer.writeValueAsBytes(page);
+    }
+}
@@ -0,0 +1,49 @@
+package com.abn.recipe.jmh;
+
+import com.abn.recipe.benchmark.RecipeDataset;
+import com.abn.recipe.controller.builder.RecipeVOBuilder;
+import com.abn.recipe.controller.vo.RecipeVO;
+import com.abn.recipe.model.mongo.Recipe;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of turning a page of recipe documents into response objects.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RecipeVOBuilderBenchmark {
+
+    @Param({"100", "1000"})
+    private int pageSize;
+
+    private List<Recipe> recipes;
+
+    @Setup
+    public void setup() {
+        recipes = new RecipeDataset(pageSize).recipes(pageSize);
+    }
+
+    @Benchmark
+    public List<RecipeVO> buildPage() {
+        return recipes.stream()
+                .map(RecipeVOBuilder::build)
+                .toList();
+    }
+}
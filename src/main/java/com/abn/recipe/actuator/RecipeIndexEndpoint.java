@@ -0,0 +1,28 @@
+package com.abn.recipe.actuator;
+
+import com.abn.recipe.repository.mongo.RecipeIndexProvisioner;
+import com.abn.recipe.repository.mongo.RecipeIndexProvisioner.IndexStatus;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * Build status of every index of the recipes collection, exposed on /management/recipeindexes.
+ */
+@Component
+@Endpoint(id = "recipeindexes")
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "recipe.storage.type", havingValue = "mongo", matchIfMissing = true)
+public class RecipeIndexEndpoint {
+
+    private final RecipeIndexProvisioner recipeIndexProvisioner;
+
+    @ReadOperation
+    public Map<String, IndexStatus> indexes() {
+        return recipeIndexProvisioner.statuses();
+    }
+}
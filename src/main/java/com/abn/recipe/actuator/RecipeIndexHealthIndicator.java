@@ -0,0 +1,26 @@
+package com.abn.recipe.actuator;
+
+import com.abn.recipe.repository.mongo.RecipeIndexProvisioner;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Down until every index of the recipes collection is built, it is part of the readiness group so a node
+ * never receives traffic against an unindexed collection.
+ */
+@Component("recipeIndexes")
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "recipe.storage.type", havingValue = "mongo", matchIfMissing = true)
+public class RecipeIndexHealthIndicator implements HealthIndicator {
+
+    private final RecipeIndexProvisioner recipeIndexProvisioner;
+
+    @Override
+    public Health health() {
+        Health.Builder health = recipeIndexProvisioner.isReady() ? Health.up() : Health.down();
+        return health.withDetails(recipeIndexProvisioner.statuses()).build();
+    }
+}
@@ -0,0 +1,43 @@
+package com.abn.recipe.config;
+
+import com.abn.recipe.controller.admission.RecipeAdmissionFilter;
+import com.abn.recipe.service.RecipeMetrics;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.servlet.DelegatingFilterProxyRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.Ordered;
+
+/**
+ * Puts the admission filter in front of the recipe endpoints of the blocking stack, set recipe.admission.enabled
+ * to false to admit every request.
+ */
+@Configuration
+@Profile("!reactive")
+@ConditionalOnProperty(name = "recipe.admission.enabled", havingValue = "true", matchIfMissing = true)
+@EnableConfigurationProperties(AdmissionProperties.class)
+public class AdmissionConfig {
+
+    @Bean
+    public RecipeAdmissionFilter recipeAdmissionFilter(AdmissionProperties properties,
+                                                       RecipeMetrics recipeMetrics,
+                                                       ObjectMapper objectMapper) {
+        return new RecipeAdmissionFilter(properties, recipeMetrics, objectMapper);
+    }
+
+    /**
+     * Registered through a proxy, so the filter and the meter registry it publishes to are created with the other
+     * beans rather than while the servlet context starts. Runs right after the request metrics filter, so rejected
+     * requests still show up in http.server.requests.
+     */
+    @Bean
+    public DelegatingFilterProxyRegistrationBean recipeAdmissionFilterRegistration() {
+        DelegatingFilterProxyRegistrationBean registration = new DelegatingFilterProxyRegistrationBean("recipeAdmissionFilter");
+        registration.addUrlPatterns("/v1/recipe/*");
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 2);
+        return registration;
+    }
+}
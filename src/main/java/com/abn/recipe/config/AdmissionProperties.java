@@ -0,0 +1,35 @@
+package com.abn.recipe.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.ConstructorBinding;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Settings of the admission control of the recipe endpoints under recipe.admission, reads and writes have a limit
+ * each so a burst of one cannot starve the other.
+ *
+ * @param retryAfter   sent to rejected callers in the Retry-After header, rounded up to whole seconds
+ * @param backoffRatio the limit is multiplied by this after a window whose latency percentile is above the threshold
+ * @param windowSize   completed requests per budget the limit is adapted on
+ * @param percentile   latency percentile of the window compared with the threshold, failed requests count as slowest
+ */
+@ConstructorBinding
+@ConfigurationProperties("recipe.admission")
+public record AdmissionProperties(@DefaultValue("1s") Duration retryAfter,
+                                  @DefaultValue("0.9") double backoffRatio,
+                                  @DefaultValue("50") int windowSize,
+                                  @DefaultValue("0.9") double percentile,
+                                  @DefaultValue Budget read,
+                                  @DefaultValue Budget write) {
+
+    /**
+     * @param latencyThreshold a window whose latency percentile is above this lowers the limit, a faster one may raise it
+     */
+    public record Budget(@DefaultValue("20") int initialLimit,
+                         @DefaultValue("5") int minLimit,
+                         @DefaultValue("100") int maxLimit,
+                         @DefaultValue("250ms") Duration latencyThreshold) {
+    }
+}
@@ -0,0 +1,53 @@
+package com.abn.recipe.config;
+
+import com.abn.recipe.service.cache.RecipeCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.cache.CacheManagerCustomizer;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * Enables the cache manager configured under spring.cache, set spring.cache.type to none to switch the caches off.
+ */
+@Configuration
+@EnableCaching
+public class CacheConfig {
+
+    /**
+     * Filter results get their own size bound, entries of older collection versions are never read again and are
+     * the first to go.
+     */
+    @Bean
+    public CacheManagerCustomizer<CaffeineCacheManager> recipesByFilterCacheCustomizer(
+            @Value("${recipe.find.cache-ttl:10m}") Duration cacheTtl,
+            @Value("${recipe.find.cache-size:1000}") long cacheSize) {
+        return cacheManager -> cacheManager.registerCustomCache(RecipeCache.RECIPES_BY_FILTER, Caffeine.newBuilder()
+                .maximumSize(cacheSize)
+                .expireAfterWrite(cacheTtl)
+                .recordStats()
+                .build());
+    }
+
+    /**
+     * Facet counts get their own short expiry instead of the spring.cache.caffeine spec, a zero ttl leaves them uncached.
+     */
+    @Bean
+    public CacheManagerCustomizer<CaffeineCacheManager> recipeFacetsCacheCustomizer(
+            @Value("${recipe.facets.cache-ttl:30s}") Duration cacheTtl,
+            @Value("${recipe.facets.cache-size:1000}") long cacheSize) {
+        return cacheManager -> {
+            if (!cacheTtl.isZero()) {
+                cacheManager.registerCustomCache(RecipeCache.RECIPE_FACETS, Caffeine.newBuilder()
+                        .maximumSize(cacheSize)
+                        .expireAfterWrite(cacheTtl)
+                        .recordStats()
+                        .build());
+            }
+        };
+    }
+}
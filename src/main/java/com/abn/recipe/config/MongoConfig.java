@@ -2,34 +2,123 @@ package com.abn.recipe.config;
 
 import com.mongodb.ConnectionString;
 import com.mongodb.MongoClientSettings;
+import com.mongodb.MongoCompressor;
+import com.mongodb.ReadConcern;
+import com.mongodb.WriteConcern;
 import com.mongodb.client.MongoClient;
 import com.mongodb.client.MongoClients;
-import org.springframework.beans.factory.annotation.Value;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.mongodb.MongoMetricsCommandListener;
+import io.micrometer.core.instrument.binder.mongodb.MongoMetricsConnectionPoolListener;
+import lombok.RequiredArgsConstructor;
+import org.apache.commons.collections4.CollectionUtils;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
 import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 
 @Configuration
+@EnableConfigurationProperties(MongoDatabaseProperties.class)
+@RequiredArgsConstructor
 public class MongoConfig {
 
-    @Value("${database.mongodb.url}")
-    private String url;
+    private final MongoDatabaseProperties properties;
 
-    @Value("${database.mongodb.name}")
-    private String databaseName;
+    private final MeterRegistry meterRegistry;
 
     @Bean
     public MongoClient mongo() {
-        ConnectionString connectionString = new ConnectionString(url + databaseName);
-        MongoClientSettings mongoClientSettings = MongoClientSettings.builder()
-                .applyConnectionString(connectionString)
-                .build();
-
-        return MongoClients.create(mongoClientSettings);
+        return MongoClients.create(mongoClientSettings());
     }
 
     @Bean
     public MongoTemplate mongoTemplate() {
-        return new MongoTemplate(mongo(), databaseName);
+        return new MongoTemplate(mongo(), properties.name());
+    }
+
+    @Bean
+    @Profile("reactive")
+    public com.mongodb.reactivestreams.client.MongoClient reactiveMongo() {
+        return com.mongodb.reactivestreams.client.MongoClients.create(mongoClientSettings());
+    }
+
+    @Bean
+    @Profile("reactive")
+    public ReactiveMongoTemplate reactiveMongoTemplate() {
+        return new ReactiveMongoTemplate(reactiveMongo(), properties.name());
+    }
+
+    /**
+     * Client settings from the connection string overridden by the typed properties that are set.
+     */
+    public static MongoClientSettings.Builder clientSettings(MongoDatabaseProperties properties) {
+        MongoClientSettings.Builder builder = MongoClientSettings.builder()
+                .applyConnectionString(new ConnectionString(properties.url() + properties.name()));
+
+        MongoDatabaseProperties.Pool pool = properties.pool();
+        builder.applyToConnectionPoolSettings(settings -> {
+            apply(pool.maxSize(), settings::maxSize);
+            apply(pool.minSize(), settings::minSize);
+            apply(pool.maxConnecting(), settings::maxConnecting);
+            apply(pool.maxWaitTime(), duration -> settings.maxWaitTime(duration.toMillis(), TimeUnit.MILLISECONDS));
+            apply(pool.maxConnectionIdleTime(), duration -> settings.maxConnectionIdleTime(duration.toMillis(), TimeUnit.MILLISECONDS));
+            apply(pool.maxConnectionLifeTime(), duration -> settings.maxConnectionLifeTime(duration.toMillis(), TimeUnit.MILLISECONDS));
+        });
+
+        MongoDatabaseProperties.Timeouts timeouts = properties.timeouts();
+        builder.applyToSocketSettings(settings -> {
+            apply(timeouts.connect(), duration -> settings.connectTimeout((int) duration.toMillis(), TimeUnit.MILLISECONDS));
+            apply(timeouts.socket(), duration -> settings.readTimeout((int) duration.toMillis(), TimeUnit.MILLISECONDS));
+        });
+        builder.applyToClusterSettings(settings ->
+                apply(timeouts.serverSelection(), duration -> settings.serverSelectionTimeout(duration.toMillis(), TimeUnit.MILLISECONDS)));
+
+        if (CollectionUtils.isNotEmpty(properties.compressors())) {
+            builder.compressorList(properties.compressors().stream()
+                    .map(MongoConfig::compressor)
+                    .toList());
+        }
+        apply(properties.readConcern(), level -> builder.readConcern(new ReadConcern(level)));
+        apply(properties.writeConcern(), name -> builder.writeConcern(writeConcern(name)));
+        return builder;
+    }
+
+    /**
+     * Command latency is timed as mongodb.driver.commands by command and collection, the pool is published
+     * as the mongodb.driver.pool gauges.
+     */
+    private MongoClientSettings mongoClientSettings() {
+        return clientSettings(properties)
+                .addCommandListener(new MongoMetricsCommandListener(meterRegistry))
+                .applyToConnectionPoolSettings(pool -> pool.addConnectionPoolListener(new MongoMetricsConnectionPoolListener(meterRegistry)))
+                .build();
+    }
+
+    private static MongoCompressor compressor(MongoDatabaseProperties.Compressor compressor) {
+        return switch (compressor) {
+            case ZSTD -> MongoCompressor.createZstdCompressor();
+            case SNAPPY -> MongoCompressor.createSnappyCompressor();
+            case ZLIB -> MongoCompressor.createZlibCompressor();
+        };
+    }
+
+    private static WriteConcern writeConcern(String name) {
+        WriteConcern writeConcern = WriteConcern.valueOf(name);
+        if (Objects.isNull(writeConcern)) {
+            throw new IllegalArgumentException("Unknown write concern " + name);
+        }
+        return writeConcern;
+    }
+
+    private static <T> void apply(T value, Consumer<T> setter) {
+        if (Objects.nonNull(value)) {
+            setter.accept(value);
+        }
     }
 }
@@ -0,0 +1,48 @@
+package com.abn.recipe.config;
+
+import com.mongodb.ReadConcernLevel;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.ConstructorBinding;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Settings of the Mongo client under database.mongodb. Anything left unset keeps the value of the connection
+ * string, or the driver default when the connection string does not set it either.
+ *
+ * @param compressors  wire compressors offered to the server in order of preference, the server picks the first one it supports
+ * @param readConcern  read concern level, for example local or majority
+ * @param writeConcern write concern name as understood by WriteConcern.valueOf, for example majority, w1 or acknowledged
+ */
+@ConstructorBinding
+@ConfigurationProperties("database.mongodb")
+public record MongoDatabaseProperties(String url,
+                                      String name,
+                                      @DefaultValue Pool pool,
+                                      @DefaultValue Timeouts timeouts,
+                                      List<Compressor> compressors,
+                                      ReadConcernLevel readConcern,
+                                      String writeConcern) {
+
+    /**
+     * @param maxWaitTime how long a request waits for a free connection before failing
+     */
+    public record Pool(Integer maxSize,
+                       Integer minSize,
+                       Integer maxConnecting,
+                       Duration maxWaitTime,
+                       Duration maxConnectionIdleTime,
+                       Duration maxConnectionLifeTime) {
+    }
+
+    public record Timeouts(Duration connect,
+                           Duration socket,
+                           Duration serverSelection) {
+    }
+
+    public enum Compressor {
+        ZSTD, SNAPPY, ZLIB
+    }
+}
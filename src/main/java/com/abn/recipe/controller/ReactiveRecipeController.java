@@ -0,0 +1,159 @@
+package com.abn.recipe.controller;
+
+import com.abn.recipe.controller.builder.RecipeFacetsVOBuilder;
+import com.abn.recipe.controller.builder.RecipeVOBuilder;
+import com.abn.recipe.controller.vo.RecipeBulkRequestVO;
+import com.abn.recipe.controller.vo.RecipeBulkResponseVO;
+import com.abn.recipe.controller.vo.RecipeFacetsVO;
+import com.abn.recipe.controller.vo.RecipeMultiGetRequestVO;
+import com.abn.recipe.controller.vo.RecipeMultiGetResponseVO;
+import com.abn.recipe.controller.vo.RecipeVO;
+import com.abn.recipe.model.RecipeFilter;
+import com.abn.recipe.model.RecipePage;
+import com.abn.recipe.model.RecipeProjection;
+import com.abn.recipe.service.ReactiveRecipeService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import javax.validation.Valid;
+import java.util.List;
+import java.util.Objects;
+
+import static com.abn.recipe.controller.RecipeController.NEXT_TOKEN_HEADER;
+
+/**
+ * Reactive profile variant of {@link RecipeController}, same paths, parameters, headers and status codes.
+ */
+@Tag(name = "Recipes", description = "Management of recipes")
+@RestController
+@RequestMapping("/v1/recipe")
+@Profile("reactive")
+@RequiredArgsConstructor
+public class ReactiveRecipeController {
+
+    private final ReactiveRecipeService recipeService;
+
+    @Operation(method = "Get all recipes", summary = "Get all recipes, one page at a time")
+    @GetMapping("/all")
+    public Mono<ResponseEntity<Flux<RecipeVO>>> getAllRecipes(@RequestParam(required = false) List<String> fields,
+                                                              @RequestParam(required = false) String next,
+                                                              @RequestParam(required = false) Integer limit,
+                                                              ServerWebExchange exchange) {
+        return getRecipes(RecipeFilter.builder().build(), fields, next, limit, exchange);
+    }
+
+    @Operation(method = "Stream all recipes", summary = "Stream all recipes as newline delimited json")
+    @GetMapping(value = "/all", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<RecipeVO> streamAllRecipes(@RequestParam(required = false) List<String> fields) {
+        return Mono.fromSupplier(() -> RecipeProjection.of(fields))
+                .flatMapMany(projection -> recipeService.streamAll(projection).map(recipe -> RecipeVOBuilder.build(recipe, projection)));
+    }
+
+    @Operation(method = "Get recipes by filters", summary = "Get recipes by filters, one page at a time")
+    @GetMapping
+    public Mono<ResponseEntity<Flux<RecipeVO>>> getRecipes(@RequestParam(required = false) Boolean isVegetarian,
+                                                           @RequestParam(required = false) Integer servings,
+                                                           @RequestParam(required = false) String includeIngredient,
+                                                           @RequestParam(required = false) String excludeIngredient,
+                                                           @RequestParam(required = false) String instruction,
+                                                           @RequestParam(required = false) List<String> fields,
+                                                           @RequestParam(required = false) String next,
+                                                           @RequestParam(required = false) Integer limit,
+                                                           ServerWebExchange exchange) {
+        RecipeFilter filter = RecipeFilter.builder()
+                .isVegetarian(isVegetarian)
+                .servings(servings)
+                .includeIngredient(includeIngredient)
+                .excludeIngredient(excludeIngredient)
+                .instruction(instruction)
+                .build();
+
+        return getRecipes(filter, fields, next, limit, exchange);
+    }
+
+    @Operation(method = "Get recipe facets", summary = "Count recipes by filters per vegetarian flag, servings and top ingredients")
+    @GetMapping("/facets")
+    public Mono<RecipeFacetsVO> getFacets(@RequestParam(required = false) Boolean isVegetarian,
+                                          @RequestParam(required = false) Integer servings,
+                                          @RequestParam(required = false) String includeIngredient,
+                                          @RequestParam(required = false) String excludeIngredient,
+                                          @RequestParam(required = false) String instruction) {
+        RecipeFilter filter = RecipeFilter.builder()
+                .isVegetarian(isVegetarian)
+                .servings(servings)
+                .includeIngredient(includeIngredient)
+                .excludeIngredient(excludeIngredient)
+                .instruction(instruction)
+                .build();
+
+        return recipeService.facets(filter).map(RecipeFacetsVOBuilder::build);
+    }
+
+    @Operation(method = "Get a recipe", summary = "Get a recipe by id")
+    @GetMapping("/{id}")
+    public Mono<RecipeVO> getRecipe(@PathVariable String id) {
+        return recipeService.findById(id).map(RecipeVOBuilder::build);
+    }
+
+    @Operation(method = "Get many recipes", summary = "Get many recipes by id in a single request, in the order of the ids")
+    @PostMapping("/_mget")
+    public Mono<RecipeMultiGetResponseVO> getRecipes(@RequestBody @Valid RecipeMultiGetRequestVO request) {
+        return recipeService.findByIds(request.ids()).map(RecipeVOBuilder::build);
+    }
+
+    @Operation(method = "Create a recipe", summary = "Create a recipe")
+    @PostMapping
+    @ResponseStatus(HttpStatus.CREATED)
+    public Mono<String> createRecipe(@RequestBody @Valid RecipeVO recipeVO) {
+        return recipeService.create(recipeVO).map(recipe -> "Recipe created id " + recipe.id());
+    }
+
+    @Operation(method = "Bulk recipe operations", summary = "Create, update and delete many recipes in a single request")
+    @PostMapping("/bulk")
+    public Mono<RecipeBulkResponseVO> bulk(@RequestBody @Valid RecipeBulkRequestVO request) {
+        return recipeService.bulk(request);
+    }
+
+    @Operation(method = "Update a recipe", summary = "Update a recipe")
+    @PutMapping("/{id}")
+    public Mono<String> updateRecipe(@PathVariable String id, @RequestBody @Valid RecipeVO recipeVO) {
+        return recipeService.update(id, recipeVO).thenReturn("Recipe updated");
+    }
+
+    @Operation(method = "Delete a recipe", summary = "Delete a recipe")
+    @DeleteMapping("/{id}")
+    public Mono<String> removeRecipe(@PathVariable String id) {
+        return recipeService.remove(id).thenReturn("Recipe deleted");
+    }
+
+    /**
+     * Answers 304 without reading any recipe when the If-None-Match of the request still matches the ETag.
+     */
+    private Mono<ResponseEntity<Flux<RecipeVO>>> getRecipes(RecipeFilter filter, List<String> fields, String next, Integer limit,
+                                                           ServerWebExchange exchange) {
+        return Mono.fromSupplier(() -> RecipeProjection.of(fields))
+                .flatMap(projection -> recipeService.eTag(filter, projection, next, limit)
+                        .flatMap(eTag -> exchange.checkNotModified(eTag)
+                                ? Mono.just(ResponseEntity.status(HttpStatus.NOT_MODIFIED).<Flux<RecipeVO>>build())
+                                : recipeService.find(filter, projection, next, limit).map(page -> toResponse(page, projection))));
+    }
+
+    private ResponseEntity<Flux<RecipeVO>> toResponse(RecipePage page, RecipeProjection projection) {
+        Flux<RecipeVO> recipes = Flux.fromIterable(page.recipes()).map(recipe -> RecipeVOBuilder.build(recipe, projection));
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (Objects.nonNull(page.next())) {
+            response.header(NEXT_TOKEN_HEADER, page.next());
+        }
+        return response.body(recipes);
+    }
+}
@@ -1,46 +1,125 @@
 package com.abn.recipe.controller;
 
+import com.abn.recipe.controller.builder.RecipeFacetsVOBuilder;
 import com.abn.recipe.controller.builder.RecipeVOBuilder;
+import com.abn.recipe.controller.stream.RecipeStreamWriter;
+import com.abn.recipe.controller.vo.RecipeBulkRequestVO;
+import com.abn.recipe.controller.vo.RecipeBulkResponseVO;
+import com.abn.recipe.controller.vo.RecipeFacetsVO;
+import com.abn.recipe.controller.vo.RecipeMultiGetRequestVO;
+import com.abn.recipe.controller.vo.RecipeMultiGetResponseVO;
 import com.abn.recipe.controller.vo.RecipeVO;
+import com.abn.recipe.model.RecipeFilter;
+import com.abn.recipe.model.RecipePage;
+import com.abn.recipe.model.RecipeProjection;
 import com.abn.recipe.model.mongo.Recipe;
 import com.abn.recipe.service.RecipeService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Profile;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import javax.validation.Valid;
 import java.util.List;
+import java.util.Objects;
 
 @Tag(name = "Recipes", description = "Management of recipes")
 @RestController
 @RequestMapping("/v1/recipe")
+@Profile("!reactive")
 @RequiredArgsConstructor
 public class RecipeController {
 
+    public static final String NEXT_TOKEN_HEADER = "X-Next-Token";
+
     private final RecipeService recipeService;
 
-    @Operation(method = "Get all recipes", summary = "Get all recipes")
+    private final RecipeStreamWriter recipeStreamWriter;
+
+    @Operation(method = "Get all recipes", summary = "Get all recipes, one page at a time")
     @GetMapping("/all")
-    public List<RecipeVO> getAllRecipes() {
-        return recipeService.findAll()
-                .stream()
-                .map(RecipeVOBuilder::build)
-                .toList();
+    public ResponseEntity<List<RecipeVO>> getAllRecipes(@RequestParam(required = false) List<String> fields,
+                                                        @RequestParam(required = false) String next,
+                                                        @RequestParam(required = false) Integer limit,
+                                                        WebRequest webRequest) {
+        RecipeProjection projection = RecipeProjection.of(fields);
+        if (webRequest.checkNotModified(recipeService.eTag(RecipeFilter.builder().build(), projection, next, limit))) {
+            return null;
+        }
+        return toResponse(recipeService.findAll(projection, next, limit), projection);
+    }
+
+    @Operation(method = "Stream all recipes", summary = "Stream all recipes as newline delimited json")
+    @GetMapping(value = "/all", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamAllRecipes(@RequestParam(required = false) List<String> fields) {
+        RecipeProjection projection = RecipeProjection.of(fields);
+        StreamingResponseBody body = outputStream -> recipeStreamWriter.write(
+                consumer -> recipeService.streamAll(projection, consumer), projection, outputStream);
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(body);
     }
 
-    @Operation(method = "Get recipes by filters", summary = "Get recipes by filters")
+    @Operation(method = "Get recipes by filters", summary = "Get recipes by filters, one page at a time")
     @GetMapping
-    public List<RecipeVO> getRecipes(@RequestParam(required = false) Boolean isVegetarian,
-                                     @RequestParam(required = false) Integer servings,
-                                     @RequestParam(required = false) String includeIngredient,
-                                     @RequestParam(required = false) String excludeIngredient,
-                                     @RequestParam(required = false) String instruction) {
-        return recipeService.find(isVegetarian, servings, includeIngredient, excludeIngredient, instruction)
-                .stream()
-                .map(RecipeVOBuilder::build)
-                .toList();
+    public ResponseEntity<List<RecipeVO>> getRecipes(@RequestParam(required = false) Boolean isVegetarian,
+                                                     @RequestParam(required = false) Integer servings,
+                                                     @RequestParam(required = false) String includeIngredient,
+                                                     @RequestParam(required = false) String excludeIngredient,
+                                                     @RequestParam(required = false) String instruction,
+                                                     @RequestParam(required = false) List<String> fields,
+                                                     @RequestParam(required = false) String next,
+                                                     @RequestParam(required = false) Integer limit,
+                                                     WebRequest webRequest) {
+        RecipeFilter filter = RecipeFilter.builder()
+                .isVegetarian(isVegetarian)
+                .servings(servings)
+                .includeIngredient(includeIngredient)
+                .excludeIngredient(excludeIngredient)
+                .instruction(instruction)
+                .build();
+
+        RecipeProjection projection = RecipeProjection.of(fields);
+        if (webRequest.checkNotModified(recipeService.eTag(filter, projection, next, limit))) {
+            return null;
+        }
+        return toResponse(recipeService.find(filter, projection, next, limit), projection);
+    }
+
+    @Operation(method = "Get recipe facets", summary = "Count recipes by filters per vegetarian flag, servings and top ingredients")
+    @GetMapping("/facets")
+    public RecipeFacetsVO getFacets(@RequestParam(required = false) Boolean isVegetarian,
+                                    @RequestParam(required = false) Integer servings,
+                                    @RequestParam(required = false) String includeIngredient,
+                                    @RequestParam(required = false) String excludeIngredient,
+                                    @RequestParam(required = false) String instruction) {
+        RecipeFilter filter = RecipeFilter.builder()
+                .isVegetarian(isVegetarian)
+                .servings(servings)
+                .includeIngredient(includeIngredient)
+                .excludeIngredient(excludeIngredient)
+                .instruction(instruction)
+                .build();
+
+        return RecipeFacetsVOBuilder.build(recipeService.facets(filter));
+    }
+
+    @Operation(method = "Get a recipe", summary = "Get a recipe by id")
+    @GetMapping("/{id}")
+    public RecipeVO getRecipe(@PathVariable String id) {
+        return RecipeVOBuilder.build(recipeService.findById(id));
+    }
+
+    @Operation(method = "Get many recipes", summary = "Get many recipes by id in a single request, in the order of the ids")
+    @PostMapping("/_mget")
+    public RecipeMultiGetResponseVO getRecipes(@RequestBody @Valid RecipeMultiGetRequestVO request) {
+        return RecipeVOBuilder.build(recipeService.findByIds(request.ids()));
     }
 
     @Operation(method = "Create a recipe", summary = "Create a recipe")
@@ -51,6 +130,12 @@ public class RecipeController {
         return "Recipe created id " + recipe.id();
     }
 
+    @Operation(method = "Bulk recipe operations", summary = "Create, update and delete many recipes in a single request")
+    @PostMapping("/bulk")
+    public RecipeBulkResponseVO bulk(@RequestBody @Valid RecipeBulkRequestVO request) {
+        return recipeService.bulk(request);
+    }
+
     @Operation(method = "Update a recipe", summary = "Update a recipe")
     @PutMapping("/{id}")
     public String updateRecipe(@PathVariable String id, @RequestBody @Valid RecipeVO recipeVO) {
@@ -64,4 +149,17 @@ public class RecipeController {
         recipeService.remove(id);
         return "Recipe deleted";
     }
+
+    private ResponseEntity<List<RecipeVO>> toResponse(RecipePage page, RecipeProjection projection) {
+        List<RecipeVO> recipes = page.recipes()
+                .stream()
+                .map(recipe -> RecipeVOBuilder.build(recipe, projection))
+                .toList();
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (Objects.nonNull(page.next())) {
+            response.header(NEXT_TOKEN_HEADER, page.next());
+        }
+        return response.body(recipes);
+    }
 }
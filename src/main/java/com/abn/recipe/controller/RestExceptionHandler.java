@@ -1,17 +1,25 @@
 package com.abn.recipe.controller;
 
 import com.abn.recipe.controller.vo.ErrorResponse;
+import com.abn.recipe.exception.InvalidParameterException;
+import com.abn.recipe.exception.PreconditionRequiredException;
 import com.abn.recipe.exception.ResourceAlreadyExistException;
+import com.abn.recipe.exception.ResourceConflictException;
 import com.abn.recipe.exception.ResourceNotFoundException;
+import com.abn.recipe.exception.ServiceUnavailableException;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.BindingResult;
 import org.springframework.validation.FieldError;
 import org.springframework.validation.ObjectError;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.bind.support.WebExchangeBindException;
+import org.springframework.web.server.ResponseStatusException;
 
 @RestControllerAdvice
 @Slf4j
@@ -23,12 +31,36 @@ public class RestExceptionHandler {
         return new ErrorResponse(ex);
     }
 
+    @ExceptionHandler(InvalidParameterException.class)
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    protected ErrorResponse handleInvalidParameter(InvalidParameterException ex) {
+        return new ErrorResponse(ex);
+    }
+
     @ExceptionHandler(ResourceNotFoundException.class)
     @ResponseStatus(HttpStatus.NOT_FOUND)
     protected ErrorResponse handleNotFound(ResourceNotFoundException ex) {
         return new ErrorResponse(ex);
     }
 
+    @ExceptionHandler(ResourceConflictException.class)
+    @ResponseStatus(HttpStatus.CONFLICT)
+    protected ErrorResponse handleConflict(ResourceConflictException ex) {
+        return new ErrorResponse(ex);
+    }
+
+    @ExceptionHandler(PreconditionRequiredException.class)
+    @ResponseStatus(HttpStatus.PRECONDITION_REQUIRED)
+    protected ErrorResponse handlePreconditionRequired(PreconditionRequiredException ex) {
+        return new ErrorResponse(ex);
+    }
+
+    @ExceptionHandler(ServiceUnavailableException.class)
+    @ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+    protected ErrorResponse handleServiceUnavailable(ServiceUnavailableException ex) {
+        return new ErrorResponse(ex);
+    }
+
     @ExceptionHandler(Exception.class)
     @ResponseStatus(HttpStatus.INTERNAL_SERVER_ERROR)
     protected ErrorResponse handleInternalServerErrorRequest(Exception ex) {
@@ -38,8 +70,23 @@ public class RestExceptionHandler {
     @ResponseStatus(HttpStatus.BAD_REQUEST)
     @ExceptionHandler(MethodArgumentNotValidException.class)
     public ErrorResponse handleValidationExceptions(MethodArgumentNotValidException ex) {
+        return toErrorResponse(ex.getBindingResult());
+    }
+
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    @ExceptionHandler(WebExchangeBindException.class)
+    public ErrorResponse handleReactiveValidationExceptions(WebExchangeBindException ex) {
+        return toErrorResponse(ex.getBindingResult());
+    }
+
+    @ExceptionHandler(ResponseStatusException.class)
+    protected ResponseEntity<ErrorResponse> handleResponseStatus(ResponseStatusException ex) {
+        return ResponseEntity.status(ex.getStatus()).body(new ErrorResponse(ex.getReason()));
+    }
+
+    private ErrorResponse toErrorResponse(BindingResult bindingResult) {
         ErrorResponse errorResponse = null;
-        for (ObjectError objectError : ex.getBindingResult().getAllErrors()) {
+        for (ObjectError objectError : bindingResult.getAllErrors()) {
             String fieldName = ((FieldError) objectError).getField();
             errorResponse = new ErrorResponse(fieldName + StringUtils.SPACE + objectError.getDefaultMessage());
         }
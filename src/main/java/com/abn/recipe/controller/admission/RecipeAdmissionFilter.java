@@ -0,0 +1,153 @@
+package com.abn.recipe.controller.admission;
+
+import com.abn.recipe.config.AdmissionProperties;
+import com.abn.recipe.controller.vo.ErrorResponse;
+import com.abn.recipe.service.RecipeMetrics;
+import com.abn.recipe.service.admission.AdaptiveLimit;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Admits recipe requests up to the adaptive limit of their budget and answers the rest at once with 503 and
+ * Retry-After, before they can take a Tomcat thread into the wait queue of the Mongo connection pool. Reads and
+ * point reads by id share the read budget, everything else is a write.
+ */
+public class RecipeAdmissionFilter extends OncePerRequestFilter {
+
+    public static final String READ = "read";
+
+    public static final String WRITE = "write";
+
+    public static final String ADMITTED = "admitted";
+
+    public static final String REJECTED = "rejected";
+
+    private static final String MULTI_GET = "/_mget";
+
+    private final AdaptiveLimit readLimit;
+
+    private final AdaptiveLimit writeLimit;
+
+    private final RecipeMetrics recipeMetrics;
+
+    private final ObjectMapper objectMapper;
+
+    private final String retryAfterSeconds;
+
+    public RecipeAdmissionFilter(AdmissionProperties properties, RecipeMetrics recipeMetrics, ObjectMapper objectMapper) {
+        this.readLimit = limit(properties.read(), properties);
+        this.writeLimit = limit(properties.write(), properties);
+        this.recipeMetrics = recipeMetrics;
+        this.objectMapper = objectMapper;
+        this.retryAfterSeconds = String.valueOf(Math.max(1, (properties.retryAfter().toMillis() + 999) / 1000));
+        recipeMetrics.registerAdmissionLimit(READ, readLimit);
+        recipeMetrics.registerAdmissionLimit(WRITE, writeLimit);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        String budget = isRead(request) ? READ : WRITE;
+        AdaptiveLimit limit = READ.equals(budget) ? readLimit : writeLimit;
+        if (!limit.tryAcquire()) {
+            recipeMetrics.countAdmission(budget, REJECTED);
+            reject(response, budget);
+            return;
+        }
+        recipeMetrics.countAdmission(budget, ADMITTED);
+
+        long start = System.nanoTime();
+        boolean dropped = true;
+        try {
+            filterChain.doFilter(request, response);
+            dropped = response.getStatus() >= HttpStatus.INTERNAL_SERVER_ERROR.value();
+        } finally {
+            if (request.isAsyncStarted()) {
+                // streamed responses keep their slot until written, their duration follows the size of the export
+                request.getAsyncContext().addListener(new ReleaseOnCompletion(limit));
+            } else {
+                limit.release(System.nanoTime() - start, dropped);
+            }
+        }
+    }
+
+    private void reject(HttpServletResponse response, String budget) throws IOException {
+        response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, retryAfterSeconds);
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(),
+                new ErrorResponse("Too many concurrent recipe %ss, retry after %s seconds".formatted(budget, retryAfterSeconds)));
+    }
+
+    private static boolean isRead(HttpServletRequest request) {
+        return HttpMethod.GET.matches(request.getMethod())
+                || HttpMethod.HEAD.matches(request.getMethod())
+                || (HttpMethod.POST.matches(request.getMethod()) && request.getRequestURI().endsWith(MULTI_GET));
+    }
+
+    private static AdaptiveLimit limit(AdmissionProperties.Budget budget, AdmissionProperties properties) {
+        return new AdaptiveLimit(budget.initialLimit(), budget.minLimit(), budget.maxLimit(), budget.latencyThreshold(),
+                properties.backoffRatio(), properties.windowSize(), properties.percentile());
+    }
+
+    AdaptiveLimit readLimit() {
+        return readLimit;
+    }
+
+    AdaptiveLimit writeLimit() {
+        return writeLimit;
+    }
+
+    /**
+     * Releases the slot once, whichever of completion, error or timeout is reported first.
+     */
+    private static final class ReleaseOnCompletion implements AsyncListener {
+
+        private final AdaptiveLimit limit;
+
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private ReleaseOnCompletion(AdaptiveLimit limit) {
+            this.limit = limit;
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            release();
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            release();
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            release();
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+            event.getAsyncContext().addListener(this);
+        }
+
+        private void release() {
+            if (released.compareAndSet(false, true)) {
+                limit.release();
+            }
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package com.abn.recipe.controller.builder;
+
+import com.abn.recipe.controller.vo.RecipeFacetCountVO;
+import com.abn.recipe.controller.vo.RecipeFacetsVO;
+import com.abn.recipe.model.RecipeFacetCount;
+import com.abn.recipe.model.RecipeFacets;
+
+import java.util.List;
+
+public class RecipeFacetsVOBuilder {
+
+    public static RecipeFacetsVO build(RecipeFacets facets) {
+        return RecipeFacetsVO.builder()
+                .total(facets.total())
+                .isVegetarian(build(facets.isVegetarian()))
+                .servings(build(facets.servings()))
+                .ingredients(build(facets.ingredients()))
+                .build();
+    }
+
+    private static <T> List<RecipeFacetCountVO<T>> build(List<RecipeFacetCount<T>> counts) {
+        return counts.stream()
+                .map(count -> new RecipeFacetCountVO<>(count.value(), count.count()))
+                .toList();
+    }
+}
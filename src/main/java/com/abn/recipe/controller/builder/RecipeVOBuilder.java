@@ -1,17 +1,48 @@
 package com.abn.recipe.controller.builder;
 
+import com.abn.recipe.controller.vo.RecipeMultiGetResponseVO;
 import com.abn.recipe.controller.vo.RecipeVO;
+import com.abn.recipe.model.RecipeField;
+import com.abn.recipe.model.RecipeMultiGet;
+import com.abn.recipe.model.RecipeProjection;
 import com.abn.recipe.model.mongo.Recipe;
 
 public class RecipeVOBuilder {
 
     public static RecipeVO build(Recipe recipe) {
         return RecipeVO.builder()
+                .id(recipe.id())
                 .name(recipe.name())
                 .instructions(recipe.instructions())
                 .isVegetarian(recipe.isVegetarian())
                 .servings(recipe.servings())
                 .ingredients(recipe.ingredients())
+                .version(recipe.version())
+                .build();
+    }
+
+    /**
+     * Only the id and the projected fields are set, the others stay null and are left out of the response.
+     */
+    public static RecipeVO build(Recipe recipe, RecipeProjection projection) {
+        if (projection.equals(RecipeProjection.ALL)) {
+            return build(recipe);
+        }
+        return RecipeVO.builder()
+                .id(recipe.id())
+                .name(projection.includes(RecipeField.NAME) ? recipe.name() : null)
+                .instructions(projection.includes(RecipeField.INSTRUCTIONS) ? recipe.instructions() : null)
+                .isVegetarian(projection.includes(RecipeField.IS_VEGETARIAN) ? recipe.isVegetarian() : null)
+                .servings(projection.includes(RecipeField.SERVINGS) ? recipe.servings() : null)
+                .ingredients(projection.includes(RecipeField.INGREDIENTS) ? recipe.ingredients() : null)
+                .version(projection.includes(RecipeField.VERSION) ? recipe.version() : null)
+                .build();
+    }
+
+    public static RecipeMultiGetResponseVO build(RecipeMultiGet multiGet) {
+        return RecipeMultiGetResponseVO.builder()
+                .recipes(multiGet.recipes().stream().map(RecipeVOBuilder::build).toList())
+                .missing(multiGet.missing())
                 .build();
     }
 }
@@ -0,0 +1,69 @@
+package com.abn.recipe.controller.stream;
+
+import com.abn.recipe.controller.builder.RecipeVOBuilder;
+import com.abn.recipe.controller.vo.RecipeVO;
+import com.abn.recipe.model.RecipeProjection;
+import com.abn.recipe.model.mongo.Recipe;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.function.Consumer;
+
+/**
+ * Writes recipes as newline delimited JSON, one line per recipe, as they are produced by the source.
+ * Nothing is buffered besides the generator's own output buffer, so memory use does not depend on the number of recipes.
+ */
+@Component
+public class RecipeStreamWriter {
+
+    private static final int FLUSH_EVERY = 100;
+
+    private final ObjectMapper objectMapper;
+
+    private final ObjectWriter objectWriter;
+
+    public RecipeStreamWriter(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+        this.objectWriter = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+    }
+
+    public void write(Consumer<Consumer<Recipe>> source, OutputStream outputStream) throws IOException {
+        write(source, RecipeProjection.ALL, outputStream);
+    }
+
+    public void write(Consumer<Consumer<Recipe>> source, RecipeProjection projection, OutputStream outputStream) throws IOException {
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream)) {
+            generator.setRootValueSeparator(null);
+            var written = new int[1];
+            source.accept(recipe -> {
+                writeLine(generator, RecipeVOBuilder.build(recipe, projection));
+                if (++written[0] % FLUSH_EVERY == 0) {
+                    flush(generator);
+                }
+            });
+        }
+    }
+
+    private void writeLine(JsonGenerator generator, RecipeVO recipe) {
+        try {
+            objectWriter.writeValue(generator, recipe);
+            generator.writeRaw('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void flush(JsonGenerator generator) {
+        try {
+            generator.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,5 @@
+package com.abn.recipe.controller.vo;
+
+public enum RecipeBulkOperationType {
+    CREATE, UPDATE, DELETE
+}
@@ -0,0 +1,18 @@
+package com.abn.recipe.controller.vo;
+
+import lombok.Builder;
+
+import javax.validation.Valid;
+import javax.validation.constraints.NotNull;
+
+/**
+ * One operation of a bulk request, create needs the recipe, update needs the id and the recipe, delete needs the id.
+ */
+@Builder(toBuilder = true)
+public record RecipeBulkOperationVO(
+        @NotNull
+        RecipeBulkOperationType type,
+        String id,
+        @Valid
+        RecipeVO recipe) {
+}
@@ -0,0 +1,19 @@
+package com.abn.recipe.controller.vo;
+
+import lombok.Builder;
+
+import javax.validation.Valid;
+import javax.validation.constraints.NotEmpty;
+import javax.validation.constraints.Size;
+import java.util.List;
+
+/**
+ * Ordered batches stop at the first failing operation, unordered batches apply every operation they can.
+ */
+@Builder(toBuilder = true)
+public record RecipeBulkRequestVO(
+        boolean ordered,
+        @NotEmpty
+        @Size(max = 1000)
+        List<@Valid RecipeBulkOperationVO> operations) {
+}
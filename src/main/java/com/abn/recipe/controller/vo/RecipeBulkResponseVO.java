@@ -0,0 +1,13 @@
+package com.abn.recipe.controller.vo;
+
+import lombok.Builder;
+
+import java.util.List;
+
+@Builder(toBuilder = true)
+public record RecipeBulkResponseVO(int inserted,
+                                   int matched,
+                                   int modified,
+                                   int deleted,
+                                   List<RecipeBulkResultVO> results) {
+}
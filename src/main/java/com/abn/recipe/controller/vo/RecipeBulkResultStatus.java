@@ -0,0 +1,18 @@
+package com.abn.recipe.controller.vo;
+
+public enum RecipeBulkResultStatus {
+    APPLIED,
+    FAILED,
+    /**
+     * Update with a version the recipe no longer has, nothing was written.
+     */
+    CONFLICT,
+    /**
+     * Update or delete of a recipe that does not exist, nothing was written.
+     */
+    NOT_FOUND,
+    /**
+     * Not attempted because an earlier operation of an ordered batch failed.
+     */
+    SKIPPED
+}
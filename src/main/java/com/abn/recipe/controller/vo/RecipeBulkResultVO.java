@@ -0,0 +1,10 @@
+package com.abn.recipe.controller.vo;
+
+import lombok.Builder;
+
+@Builder(toBuilder = true)
+public record RecipeBulkResultVO(int index,
+                                 String id,
+                                 RecipeBulkResultStatus status,
+                                 String message) {
+}
@@ -0,0 +1,8 @@
+package com.abn.recipe.controller.vo;
+
+import lombok.Builder;
+
+@Builder(toBuilder = true)
+public record RecipeFacetCountVO<T>(T value,
+                                    long count) {
+}
@@ -0,0 +1,15 @@
+package com.abn.recipe.controller.vo;
+
+import lombok.Builder;
+
+import java.util.List;
+
+/**
+ * Vegetarian counts go from true to false, servings counts by ascending servings and ingredients by descending count.
+ */
+@Builder(toBuilder = true)
+public record RecipeFacetsVO(long total,
+                             List<RecipeFacetCountVO<Boolean>> isVegetarian,
+                             List<RecipeFacetCountVO<Integer>> servings,
+                             List<RecipeFacetCountVO<String>> ingredients) {
+}
@@ -0,0 +1,15 @@
+package com.abn.recipe.controller.vo;
+
+import lombok.Builder;
+
+import javax.validation.constraints.NotBlank;
+import javax.validation.constraints.NotEmpty;
+import javax.validation.constraints.Size;
+import java.util.List;
+
+@Builder(toBuilder = true)
+public record RecipeMultiGetRequestVO(
+        @NotEmpty
+        @Size(max = 1000)
+        List<@NotBlank String> ids) {
+}
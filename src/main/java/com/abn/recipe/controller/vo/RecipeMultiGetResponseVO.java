@@ -0,0 +1,10 @@
+package com.abn.recipe.controller.vo;
+
+import lombok.Builder;
+
+import java.util.List;
+
+@Builder(toBuilder = true)
+public record RecipeMultiGetResponseVO(List<RecipeVO> recipes,
+                                       List<String> missing) {
+}
@@ -1,5 +1,7 @@
 package com.abn.recipe.controller.vo;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+import io.swagger.v3.oas.annotations.media.Schema;
 import lombok.Builder;
 import org.springframework.data.mongodb.core.mapping.Document;
 
@@ -8,9 +10,15 @@ import javax.validation.constraints.NotEmpty;
 import javax.validation.constraints.NotNull;
 import java.util.List;
 
+/**
+ * The id is returned on reads and ignored on writes, updates take it from the path.
+ */
 @Document("recipes")
 @Builder(toBuilder = true)
+@JsonInclude(JsonInclude.Include.NON_NULL)
 public record RecipeVO(
+        @Schema(accessMode = Schema.AccessMode.READ_ONLY)
+        String id,
         @NotBlank
         String name,
         @NotBlank
@@ -20,5 +28,6 @@ public record RecipeVO(
         @NotNull
         Integer servings,
         @NotEmpty
-        List<String> ingredients) {
+        List<String> ingredients,
+        Long version) {
 }
@@ -0,0 +1,7 @@
+package com.abn.recipe.model;
+
+/**
+ * Number of recipes sharing a value of a field.
+ */
+public record RecipeFacetCount<T>(T value, long count) {
+}
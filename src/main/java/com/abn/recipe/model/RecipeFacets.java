@@ -0,0 +1,12 @@
+package com.abn.recipe.model;
+
+import java.util.List;
+
+/**
+ * Counts of the recipes matching a filter, per vegetarian flag, per servings and for the most used ingredients.
+ */
+public record RecipeFacets(long total,
+                           List<RecipeFacetCount<Boolean>> isVegetarian,
+                           List<RecipeFacetCount<Integer>> servings,
+                           List<RecipeFacetCount<String>> ingredients) {
+}
@@ -0,0 +1,32 @@
+package com.abn.recipe.model;
+
+import java.util.Arrays;
+import java.util.Optional;
+
+/**
+ * Recipe fields a client can select, named as in the response body and in the Mongo document.
+ */
+public enum RecipeField {
+    NAME("name"),
+    INSTRUCTIONS("instructions"),
+    IS_VEGETARIAN("isVegetarian"),
+    SERVINGS("servings"),
+    INGREDIENTS("ingredients"),
+    VERSION("version");
+
+    private final String fieldName;
+
+    RecipeField(String fieldName) {
+        this.fieldName = fieldName;
+    }
+
+    public String fieldName() {
+        return fieldName;
+    }
+
+    public static Optional<RecipeField> of(String fieldName) {
+        return Arrays.stream(values())
+                .filter(field -> field.fieldName.equals(fieldName))
+                .findFirst();
+    }
+}
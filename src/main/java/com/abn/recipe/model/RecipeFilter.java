@@ -0,0 +1,22 @@
+package com.abn.recipe.model;
+
+import lombok.Builder;
+import org.apache.commons.lang3.StringUtils;
+
+/**
+ * Text criteria are trimmed and blank ones dropped, so equivalent requests build equal filters and share cache
+ * entries and ETags.
+ */
+@Builder(toBuilder = true)
+public record RecipeFilter(Boolean isVegetarian,
+                           Integer servings,
+                           String includeIngredient,
+                           String excludeIngredient,
+                           String instruction) {
+
+    public RecipeFilter {
+        includeIngredient = StringUtils.trimToNull(includeIngredient);
+        excludeIngredient = StringUtils.trimToNull(excludeIngredient);
+        instruction = StringUtils.trimToNull(instruction);
+    }
+}
@@ -0,0 +1,11 @@
+package com.abn.recipe.model;
+
+import com.abn.recipe.model.mongo.Recipe;
+
+import java.util.List;
+
+/**
+ * Recipes found for a list of ids in the order of the ids, missing holds the ids without a recipe.
+ */
+public record RecipeMultiGet(List<Recipe> recipes, List<String> missing) {
+}
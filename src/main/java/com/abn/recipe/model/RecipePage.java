@@ -0,0 +1,11 @@
+package com.abn.recipe.model;
+
+import com.abn.recipe.model.mongo.Recipe;
+
+import java.util.List;
+
+/**
+ * A page of recipes ordered by id, next is the opaque token of the following page or null when this is the last one.
+ */
+public record RecipePage(List<Recipe> recipes, String next) {
+}
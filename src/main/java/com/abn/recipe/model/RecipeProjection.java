@@ -0,0 +1,71 @@
+package com.abn.recipe.model;
+
+import com.abn.recipe.exception.InvalidParameterException;
+import com.abn.recipe.model.mongo.Recipe;
+import org.apache.commons.collections4.CollectionUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Recipe fields to read and return. The id is always read because the next page token is built from it.
+ */
+public record RecipeProjection(Set<RecipeField> fields) {
+
+    public static final RecipeProjection ALL = new RecipeProjection(EnumSet.allOf(RecipeField.class));
+
+    /**
+     * Projection of the given field names, all fields when none is given.
+     */
+    public static RecipeProjection of(Collection<String> fieldNames) {
+        if (CollectionUtils.isEmpty(fieldNames)) {
+            return ALL;
+        }
+
+        Set<RecipeField> fields = EnumSet.noneOf(RecipeField.class);
+        for (String fieldName : fieldNames) {
+            fields.add(RecipeField.of(StringUtils.trim(fieldName))
+                    .orElseThrow(() -> new InvalidParameterException("Unknown field " + fieldName + ", expected any of " + allFieldNames())));
+        }
+        return new RecipeProjection(fields);
+    }
+
+    public boolean includes(RecipeField field) {
+        return fields.contains(field);
+    }
+
+    public void applyTo(Query query) {
+        if (!equals(ALL)) {
+            fields.forEach(field -> query.fields().include(field.fieldName()));
+        }
+    }
+
+    /**
+     * Copy of the recipe with the id and the projected fields only, for stores that always read whole recipes.
+     */
+    public Recipe applyTo(Recipe recipe) {
+        if (equals(ALL)) {
+            return recipe;
+        }
+        return Recipe.builder()
+                .id(recipe.id())
+                .name(includes(RecipeField.NAME) ? recipe.name() : null)
+                .instructions(includes(RecipeField.INSTRUCTIONS) ? recipe.instructions() : null)
+                .isVegetarian(includes(RecipeField.IS_VEGETARIAN) ? recipe.isVegetarian() : null)
+                .servings(includes(RecipeField.SERVINGS) ? recipe.servings() : null)
+                .ingredients(includes(RecipeField.INGREDIENTS) ? recipe.ingredients() : null)
+                .version(includes(RecipeField.VERSION) ? recipe.version() : null)
+                .build();
+    }
+
+    private static String allFieldNames() {
+        return Arrays.stream(RecipeField.values())
+                .map(RecipeField::fieldName)
+                .collect(Collectors.joining(", "));
+    }
+}
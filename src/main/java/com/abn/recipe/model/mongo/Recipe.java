@@ -2,16 +2,21 @@ package com.abn.recipe.model.mongo;
 
 import lombok.Builder;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Version;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.util.List;
 
+/**
+ * Fields left out of a projection are read as null, so none of the components are primitives.
+ */
 @Document("recipes")
 @Builder(toBuilder = true)
 public record Recipe(@Id String id,
                      String name,
                      String instructions,
-                     boolean isVegetarian,
-                     int servings,
-                     List<String> ingredients) {
+                     Boolean isVegetarian,
+                     Integer servings,
+                     List<String> ingredients,
+                     @Version Long version) {
 }
@@ -0,0 +1,147 @@
+package com.abn.recipe.repository.mongo;
+
+import com.abn.recipe.model.mongo.Recipe;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.index.IndexDefinition;
+import org.springframework.data.mongodb.core.index.TextIndexDefinition;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Creates the indexes of the recipes collection in a background thread on start and keeps the build status of
+ * each one for the actuator, readiness stays down until all of them are ready. Startup does not wait for a build
+ * on a large collection, and an index that failed to build is tried again every recipe.indexes.retry-delay.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "recipe.storage.type", havingValue = "mongo", matchIfMissing = true)
+public class RecipeIndexProvisioner implements SmartLifecycle {
+
+    public static final String NAME_UNIQUE_INDEX = "name_unique";
+
+    public static final String INGREDIENTS_INDEX = "ingredients";
+
+    public static final String VEGETARIAN_SERVINGS_INDEX = "isVegetarian_servings";
+
+    public static final String INSTRUCTIONS_TEXT_INDEX = "instructions_text";
+
+    public static final List<IndexDefinition> INDEXES = List.of(
+            new Index().named(NAME_UNIQUE_INDEX).on("name", Sort.Direction.ASC).unique().background(),
+            new Index().named(INGREDIENTS_INDEX).on("ingredients", Sort.Direction.ASC).background(),
+            new Index().named(VEGETARIAN_SERVINGS_INDEX)
+                    .on("isVegetarian", Sort.Direction.ASC)
+                    .on("servings", Sort.Direction.ASC)
+                    .background(),
+            new TextIndexDefinition.TextIndexDefinitionBuilder()
+                    .named(INSTRUCTIONS_TEXT_INDEX)
+                    .onField("instructions")
+                    .build());
+
+    private final MongoTemplate mongoTemplate;
+
+    private final Duration retryDelay;
+
+    private final Map<String, IndexStatus> statuses = Collections.synchronizedMap(new LinkedHashMap<>());
+
+    private volatile boolean running;
+
+    private Thread thread;
+
+    public RecipeIndexProvisioner(MongoTemplate mongoTemplate,
+                                  @Value("${recipe.indexes.retry-delay:5s}") Duration retryDelay) {
+        this.mongoTemplate = mongoTemplate;
+        this.retryDelay = retryDelay;
+        INDEXES.forEach(index -> statuses.put(name(index), IndexStatus.PENDING));
+    }
+
+    @Override
+    public synchronized void start() {
+        running = true;
+        thread = new Thread(this::run, "recipe-indexes");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    @Override
+    public synchronized void stop() {
+        running = false;
+        if (Objects.nonNull(thread)) {
+            thread.interrupt();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    public Map<String, IndexStatus> statuses() {
+        synchronized (statuses) {
+            return Map.copyOf(statuses);
+        }
+    }
+
+    public boolean isReady() {
+        return statuses().values().stream().allMatch(IndexStatus.READY::equals);
+    }
+
+    /**
+     * Builds the indexes that are not ready yet until all of them are, waiting the retry delay after a round with
+     * failures.
+     */
+    private void run() {
+        while (running) {
+            boolean failed = false;
+            for (IndexDefinition index : INDEXES) {
+                if (running && statuses.get(name(index)) != IndexStatus.READY) {
+                    failed |= !ensureIndex(index);
+                }
+            }
+            if (!failed) {
+                return;
+            }
+            log.warn("Recipe indexes are not all built, retrying in {}", retryDelay);
+            try {
+                Thread.sleep(retryDelay.toMillis());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private boolean ensureIndex(IndexDefinition index) {
+        String name = name(index);
+        statuses.put(name, IndexStatus.BUILDING);
+        try {
+            mongoTemplate.indexOps(Recipe.class).ensureIndex(index);
+            statuses.put(name, IndexStatus.READY);
+            log.info("Index {} is ready", name);
+            return true;
+        } catch (RuntimeException e) {
+            statuses.put(name, IndexStatus.FAILED);
+            log.error("Index {} could not be created", name, e);
+            return false;
+        }
+    }
+
+    private static String name(IndexDefinition index) {
+        return index.getIndexOptions().getString("name");
+    }
+
+    public enum IndexStatus {
+        PENDING, BUILDING, READY, FAILED
+    }
+}
@@ -0,0 +1,12 @@
+package com.abn.recipe.service;
+
+public enum InstructionSearchMode {
+    /**
+     * Word and phrase search on the instructions text index.
+     */
+    TEXT,
+    /**
+     * Literal substring match, it cannot use an index and scans every instruction.
+     */
+    REGEX
+}
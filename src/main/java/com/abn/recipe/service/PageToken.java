@@ -0,0 +1,32 @@
+package com.abn.recipe.service;
+
+import com.abn.recipe.exception.InvalidParameterException;
+import org.bson.types.ObjectId;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Opaque continuation token of a keyset page, it wraps the id of the last recipe of the previous page.
+ */
+public final class PageToken {
+
+    private PageToken() {
+    }
+
+    public static String encode(String lastId) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(lastId.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static ObjectId decode(String token) {
+        try {
+            String lastId = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            if (ObjectId.isValid(lastId)) {
+                return new ObjectId(lastId);
+            }
+        } catch (IllegalArgumentException e) {
+            // falls through to the invalid token error
+        }
+        throw new InvalidParameterException("Invalid next token");
+    }
+}
@@ -0,0 +1,185 @@
+package com.abn.recipe.service;
+
+import com.abn.recipe.controller.vo.RecipeBulkRequestVO;
+import com.abn.recipe.controller.vo.RecipeBulkResponseVO;
+import com.abn.recipe.controller.vo.RecipeVO;
+import com.abn.recipe.exception.PreconditionRequiredException;
+import com.abn.recipe.exception.ResourceAlreadyExistException;
+import com.abn.recipe.exception.ResourceConflictException;
+import com.abn.recipe.exception.ResourceNotFoundException;
+import com.abn.recipe.model.RecipeFacets;
+import com.abn.recipe.model.RecipeFilter;
+import com.abn.recipe.model.RecipeMultiGet;
+import com.abn.recipe.model.RecipePage;
+import com.abn.recipe.model.RecipeProjection;
+import com.abn.recipe.model.mongo.Recipe;
+import com.abn.recipe.service.cache.RecipeCache;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+
+import static com.abn.recipe.service.RecipeQueries.byIdAndVersion;
+import static com.abn.recipe.service.RecipeQueries.toRecipe;
+import static com.abn.recipe.service.RecipeQueries.toUpdate;
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+/**
+ * Non-blocking counterpart of {@link RecipeService} used by the reactive profile. Reads by id, pages and facets go
+ * through the same recipe caches, ingredient index and shared loads as blocking reads, and a miss reads Mongo
+ * through the reactive driver. Writes increment the collection version and invalidate the recipe caches and the
+ * ingredient index through {@link RecipeService} as blocking writes do.
+ */
+@Service
+@Profile("reactive")
+@Slf4j
+@RequiredArgsConstructor
+public class ReactiveRecipeService {
+
+    private final ReactiveMongoTemplate reactiveMongoTemplate;
+
+    private final RecipeQueries recipeQueries;
+
+    private final RecipeService recipeService;
+
+    private final RecipeMetrics recipeMetrics;
+
+    private final RecipeCache recipeCache;
+
+    @Value("${recipe.stream.batch-size:500}")
+    private int streamBatchSize;
+
+    @Value("${recipe.facets.top-ingredients:10}")
+    private int topIngredients;
+
+    public Mono<Recipe> create(RecipeVO recipeVO) {
+        return reactiveMongoTemplate.insert(toRecipe(recipeVO))
+                .onErrorMap(DuplicateKeyException.class, e -> new ResourceAlreadyExistException("Recipe already exists"))
+                .doOnNext(recipeService::created)
+                .doOnNext(recipe -> log.info("Recipe created with name {}", recipe.name()));
+    }
+
+    /**
+     * Same contract as {@link RecipeService#update}: the version must be given and still be current, otherwise the
+     * update is refused or reported as a conflict.
+     */
+    public Mono<Recipe> update(String id, RecipeVO recipeVO) {
+        if (Objects.isNull(recipeVO.version())) {
+            return Mono.error(new PreconditionRequiredException("version is required to update a recipe"));
+        }
+        return reactiveMongoTemplate.findAndModify(byIdAndVersion(id, recipeVO.version()), toUpdate(toRecipe(id, recipeVO)),
+                        FindAndModifyOptions.options().returnNew(true), Recipe.class)
+                .onErrorMap(DuplicateKeyException.class, e -> new ResourceAlreadyExistException("Recipe already exists"))
+                .switchIfEmpty(Mono.defer(() -> missing(id)))
+                .doOnNext(recipeService::updated)
+                .doOnNext(recipe -> log.info("Recipe updated {}", recipe.name()));
+    }
+
+    public Mono<Void> remove(String id) {
+        return reactiveMongoTemplate.remove(byIdAndVersion(id, null), Recipe.class)
+                .filter(result -> result.getDeletedCount() > 0)
+                .doOnNext(result -> {
+                    recipeService.removed(id);
+                    log.info("Recipe {} removed", id);
+                })
+                .then();
+    }
+
+    /**
+     * The reactive driver has no bulk write API in this Spring Data version, so the batch is handed to the
+     * blocking service on the bounded elastic scheduler instead of an event loop thread.
+     */
+    public Mono<RecipeBulkResponseVO> bulk(RecipeBulkRequestVO request) {
+        return Mono.fromCallable(() -> recipeService.bulk(request))
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    public Mono<Recipe> findById(String id) {
+        return Mono.fromFuture(() -> recipeCache.findByIdAsync(id, () -> reactiveMongoTemplate.findById(id, Recipe.class)
+                        .map(Optional::of)
+                        .defaultIfEmpty(Optional.empty())
+                        .toFuture()))
+                .flatMap(Mono::justOrEmpty)
+                .switchIfEmpty(Mono.error(() -> new ResourceNotFoundException("Recipe doesn't exist")));
+    }
+
+    /**
+     * Same contract as {@link RecipeService#findByIds}.
+     */
+    public Mono<RecipeMultiGet> findByIds(List<String> ids) {
+        Set<String> distinctIds = new LinkedHashSet<>(ids);
+        return reactiveMongoTemplate.find(new Query(where("_id").in(distinctIds)), Recipe.class)
+                .collectList()
+                .map(recipes -> RecipeQueries.toMultiGet(distinctIds, recipes));
+    }
+
+    /**
+     * Same tag as {@link RecipeService#eTag}, the version is kept in the process so nothing is read.
+     */
+    public Mono<String> eTag(RecipeFilter filter, RecipeProjection projection, String next, Integer limit) {
+        return Mono.fromSupplier(() -> recipeService.eTag(filter, projection, next, limit));
+    }
+
+    public Mono<RecipePage> findAll(RecipeProjection projection, String next, Integer limit) {
+        return find(RecipeFilter.builder().build(), projection, next, limit);
+    }
+
+    public Flux<Recipe> streamAll(RecipeProjection projection) {
+        Query query = new Query().cursorBatchSize(streamBatchSize);
+        projection.applyTo(query);
+        return reactiveMongoTemplate.find(query, Recipe.class);
+    }
+
+    public Mono<RecipePage> find(RecipeFilter filter, RecipeProjection projection, String next, Integer limit) {
+        return Mono.fromSupplier(() -> recipeQueries.pageSize(limit))
+                .flatMap(pageSize -> Mono.fromFuture(recipeCache.findAsync(filter, projection, next, pageSize,
+                        () -> findInMongo(filter, projection, next, pageSize).toFuture())))
+                .doOnNext(page -> recipeMetrics.recordFindResults(filter, page));
+    }
+
+    public Mono<RecipeFacets> facets(RecipeFilter filter) {
+        return Mono.fromFuture(() -> recipeCache.facetsAsync(filter, () -> reactiveMongoTemplate
+                .aggregate(recipeQueries.facetAggregation(filter, topIngredients), Recipe.class, Document.class)
+                .next()
+                .map(RecipeQueries::toFacets)
+                .toFuture()));
+    }
+
+    /**
+     * Same page as {@link RecipeService#find} reads on a miss, narrowed down by the ingredient index when it can.
+     */
+    private Mono<RecipePage> findInMongo(RecipeFilter filter, RecipeProjection projection, String next, int pageSize) {
+        ObjectId lastId = Objects.nonNull(next) ? PageToken.decode(next) : null;
+        Optional<List<ObjectId>> candidateIds = recipeService.candidateIds(filter, lastId, pageSize);
+        if (candidateIds.filter(List::isEmpty).isPresent()) {
+            return Mono.just(new RecipePage(List.of(), null));
+        }
+        Query query = recipeQueries.pageQuery(filter, projection, RecipeQueries.pageCriteria(lastId, candidateIds.orElse(null)), pageSize);
+        return reactiveMongoTemplate.find(query, Recipe.class)
+                .collectList()
+                .map(recipes -> RecipeQueries.toPage(recipes, pageSize));
+    }
+
+    private Mono<Recipe> missing(String id) {
+        return reactiveMongoTemplate.exists(byIdAndVersion(id, null), Recipe.class)
+                .flatMap(exists -> Mono.error(exists
+                        ? new ResourceConflictException("Recipe was changed by another request")
+                        : new ResourceNotFoundException("Recipe doesn't exist")));
+    }
+}
@@ -0,0 +1,27 @@
+package com.abn.recipe.service;
+
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Version of the recipes collection as this instance knows it, the cached filter results and the ETags of the
+ * Mongo store are keyed by it. It is kept in the process, so reading it costs no round trip and writes do not all
+ * update one shared document: writes through this instance increment it, and with the change stream on so do the
+ * writes of the other instances. It starts at a random value, so the versions of other instances and of earlier
+ * runs of this one do not match in practice and their ETags are answered with a full page.
+ */
+@Component
+public class RecipeCollectionVersion {
+
+    private final AtomicLong version = new AtomicLong(ThreadLocalRandom.current().nextLong(Long.MAX_VALUE / 2));
+
+    public long current() {
+        return version.get();
+    }
+
+    public void increment() {
+        version.incrementAndGet();
+    }
+}
@@ -0,0 +1,32 @@
+package com.abn.recipe.service;
+
+import com.abn.recipe.model.RecipeField;
+import com.abn.recipe.model.RecipeFilter;
+import com.abn.recipe.model.RecipeProjection;
+import org.springframework.util.DigestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.stream.Collectors;
+
+/**
+ * ETag of a recipe page: the collection version followed by a digest of the request. Any write changes
+ * the version, so an unchanged tag proves the page is unchanged without reading it. The tag is weak because it
+ * covers every encoding and content coding of the page, which also lets the server compress tagged responses.
+ */
+public final class RecipeETag {
+
+    private RecipeETag() {
+    }
+
+    /**
+     * The page size is the resolved one, so requests without a limit and with the default limit share a tag.
+     */
+    public static String of(long collectionVersion, RecipeFilter filter, RecipeProjection projection, String next, int pageSize) {
+        String fields = projection.fields().stream()
+                .map(RecipeField::fieldName)
+                .sorted()
+                .collect(Collectors.joining(","));
+        String request = filter + "|" + fields + "|" + next + "|" + pageSize;
+        return "W/\"" + collectionVersion + "-" + DigestUtils.md5DigestAsHex(request.getBytes(StandardCharsets.UTF_8)) + "\"";
+    }
+}
@@ -0,0 +1,113 @@
+package com.abn.recipe.service;
+
+import com.abn.recipe.model.RecipeFilter;
+import com.abn.recipe.model.RecipePage;
+import com.abn.recipe.service.admission.AdaptiveLimit;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Recipe specific meters, published next to the request and Mongo driver metrics.
+ */
+@Component
+@RequiredArgsConstructor
+public class RecipeMetrics {
+
+    public static final String FIND_RESULTS = "recipe.find.results";
+
+    public static final String CHANGE_STREAM_LAG = "recipe.change.stream.lag";
+
+    public static final String CHANGE_STREAM_EVENTS = "recipe.change.stream.events";
+
+    public static final String CHANGE_STREAM_RELOADS = "recipe.change.stream.reloads";
+
+    public static final String CACHE_LOADS = "recipe.cache.loads";
+
+    public static final String ADMISSION_LIMIT = "recipe.admission.limit";
+
+    public static final String ADMISSION_INFLIGHT = "recipe.admission.inflight";
+
+    public static final String ADMISSION_REQUESTS = "recipe.admission.requests";
+
+    private static final RecipeFilter NO_FILTER = RecipeFilter.builder().build();
+
+    private final MeterRegistry meterRegistry;
+
+    /**
+     * Number of recipes in every page returned by a find, tagged by whether any filter was given.
+     */
+    public void recordFindResults(RecipeFilter filter, RecipePage page) {
+        DistributionSummary.builder(FIND_RESULTS)
+                .description("Recipes returned per page")
+                .baseUnit("recipes")
+                .tag("filtered", String.valueOf(!NO_FILTER.equals(filter)))
+                .register(meterRegistry)
+                .record(page.recipes().size());
+    }
+
+    /**
+     * Time between a write being applied by Mongo and this instance processing its change event, with the
+     * one second resolution of the cluster time.
+     */
+    public void recordChangeStreamEvent(String operation, Duration lag) {
+        Counter.builder(CHANGE_STREAM_EVENTS)
+                .description("Recipe change events processed")
+                .tag("operation", operation)
+                .register(meterRegistry)
+                .increment();
+        Timer.builder(CHANGE_STREAM_LAG)
+                .description("Delay between a recipe write and its change event being processed")
+                .register(meterRegistry)
+                .record(lag.isNegative() ? Duration.ZERO : lag);
+    }
+
+    public void countChangeStreamReload() {
+        Counter.builder(CHANGE_STREAM_RELOADS)
+                .description("Full reloads of the local recipe state after the change stream could not be resumed")
+                .register(meterRegistry)
+                .increment();
+    }
+
+    /**
+     * Cache misses by whether they ran the load, joined one already running or gave up waiting for it. Joined over
+     * led plus joined is the share of misses that were coalesced.
+     */
+    public void countCacheLoad(String cache, String outcome) {
+        Counter.builder(CACHE_LOADS)
+                .description("Recipe cache misses by how their load was shared")
+                .tag("cache", cache)
+                .tag("outcome", outcome)
+                .register(meterRegistry)
+                .increment();
+    }
+
+    /**
+     * Current limit and requests in flight of an admission budget, read from the limit on every scrape.
+     */
+    public void registerAdmissionLimit(String budget, AdaptiveLimit limit) {
+        Gauge.builder(ADMISSION_LIMIT, limit, AdaptiveLimit::limit)
+                .description("Concurrent requests currently admitted by the adaptive limit")
+                .tag("budget", budget)
+                .register(meterRegistry);
+        Gauge.builder(ADMISSION_INFLIGHT, limit, AdaptiveLimit::inflight)
+                .description("Admitted requests in flight")
+                .tag("budget", budget)
+                .register(meterRegistry);
+    }
+
+    public void countAdmission(String budget, String outcome) {
+        Counter.builder(ADMISSION_REQUESTS)
+                .description("Recipe requests by whether they were admitted or rejected by the adaptive limit")
+                .tag("budget", budget)
+                .tag("outcome", outcome)
+                .register(meterRegistry)
+                .increment();
+    }
+}
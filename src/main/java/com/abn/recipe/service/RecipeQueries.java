@@ -0,0 +1,265 @@
+package com.abn.recipe.service;
+
+import com.abn.recipe.controller.vo.RecipeVO;
+import com.abn.recipe.exception.InvalidParameterException;
+import com.abn.recipe.model.RecipeFacetCount;
+import com.abn.recipe.model.RecipeFacets;
+import com.abn.recipe.model.RecipeFilter;
+import com.abn.recipe.model.RecipeMultiGet;
+import com.abn.recipe.model.RecipePage;
+import com.abn.recipe.model.RecipeProjection;
+import com.abn.recipe.model.mongo.Recipe;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOptions;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.CriteriaDefinition;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.TextCriteria;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+/**
+ * Builds the recipe queries and pages shared by the blocking and the reactive services, so both stacks
+ * answer a filter with the same documents in the same order.
+ */
+@Component
+public class RecipeQueries {
+
+    private static final String COUNT = "count";
+
+    private static final String TOTAL = "total";
+
+    private final int defaultLimit;
+
+    private final int maxLimit;
+
+    private final InstructionSearchMode instructionSearchMode;
+
+    private final Duration searchMaxTime;
+
+    public RecipeQueries(@Value("${recipe.pagination.default-limit:100}") int defaultLimit,
+                         @Value("${recipe.pagination.max-limit:1000}") int maxLimit,
+                         @Value("${recipe.search.instruction-mode:TEXT}") InstructionSearchMode instructionSearchMode,
+                         @Value("${recipe.search.max-time:2s}") Duration searchMaxTime) {
+        this.defaultLimit = defaultLimit;
+        this.maxLimit = maxLimit;
+        this.instructionSearchMode = instructionSearchMode;
+        this.searchMaxTime = searchMaxTime;
+    }
+
+    public int pageSize(Integer limit) {
+        if (Objects.isNull(limit)) {
+            return defaultLimit;
+        }
+        if (limit < 1) {
+            throw new InvalidParameterException("limit must be greater than zero");
+        }
+        return Math.min(limit, maxLimit);
+    }
+
+    /**
+     * Filter query sorted by id that reads one recipe more than the page, so {@link #toPage} can tell
+     * whether a next page exists. Only the projected fields are read.
+     */
+    public Query pageQuery(RecipeFilter filter, RecipeProjection projection, Criteria idCriteria, int pageSize) {
+        Query query = filterQuery(filter);
+        projection.applyTo(query);
+        if (Objects.nonNull(idCriteria)) {
+            query.addCriteria(idCriteria);
+        }
+        return query.with(Sort.by(Sort.Direction.ASC, "_id")).limit(pageSize + 1);
+    }
+
+    /**
+     * Single $facet aggregation counting the recipes matching the filter in total, per vegetarian flag, per
+     * servings and for the top ingredients. Ties between ingredients are broken by name.
+     */
+    public Aggregation facetAggregation(RecipeFilter filter, int topIngredients) {
+        Document match = filterQuery(filter).getQueryObject();
+        return Aggregation.newAggregation(
+                        context -> new Document("$match", context.getMappedObject(match, Recipe.class)),
+                        Aggregation.facet(Aggregation.count().as(COUNT)).as(TOTAL)
+                                .and(Aggregation.group("isVegetarian").count().as(COUNT),
+                                        Aggregation.sort(Sort.Direction.DESC, "_id")).as("isVegetarian")
+                                .and(Aggregation.group("servings").count().as(COUNT),
+                                        Aggregation.sort(Sort.Direction.ASC, "_id")).as("servings")
+                                .and(Aggregation.unwind("ingredients"),
+                                        Aggregation.group("ingredients").count().as(COUNT),
+                                        Aggregation.sort(Sort.by(Sort.Order.desc(COUNT), Sort.Order.asc("_id"))),
+                                        Aggregation.limit(topIngredients)).as("ingredients"))
+                .withOptions(AggregationOptions.builder().maxTime(searchMaxTime).build());
+    }
+
+    public static RecipeFacets toFacets(Document facets) {
+        List<Document> total = facets.getList(TOTAL, Document.class);
+        return new RecipeFacets(total.isEmpty() ? 0 : count(total.get(0)),
+                facetCounts(facets, "isVegetarian", Boolean.class),
+                facetCounts(facets, "servings", Integer.class),
+                facetCounts(facets, "ingredients", String.class));
+    }
+
+    private Query filterQuery(RecipeFilter filter) {
+        Query query = new Query();
+        if (Objects.nonNull(filter.isVegetarian())) {
+            query.addCriteria(where("isVegetarian").is(filter.isVegetarian()));
+        }
+        if (Objects.nonNull(filter.servings())) {
+            query.addCriteria(where("servings").is(filter.servings()));
+        }
+        if (Objects.nonNull(filter.includeIngredient()) || Objects.nonNull(filter.excludeIngredient())) {
+            query.addCriteria(ingredientsCriteria(filter));
+        }
+        if (Objects.nonNull(filter.instruction())) {
+            query.addCriteria(instructionCriteria(filter.instruction()));
+            query.maxTime(searchMaxTime);
+        }
+        return query;
+    }
+
+    public static Criteria afterId(ObjectId lastId) {
+        return Objects.nonNull(lastId) ? where("_id").gt(lastId) : null;
+    }
+
+    /**
+     * Ids after the page cursor, among the candidate ids when the ingredient index gave some.
+     */
+    public static Criteria pageCriteria(ObjectId lastId, List<ObjectId> candidateIds) {
+        Criteria idCriteria = afterId(lastId);
+        if (Objects.nonNull(candidateIds)) {
+            idCriteria = Objects.requireNonNullElseGet(idCriteria, () -> where("_id")).in(candidateIds);
+        }
+        return idCriteria;
+    }
+
+    public static RecipePage toPage(List<Recipe> recipes, int pageSize) {
+        if (recipes.size() <= pageSize) {
+            return new RecipePage(recipes, null);
+        }
+
+        List<Recipe> page = recipes.subList(0, pageSize);
+        return new RecipePage(page, PageToken.encode(page.get(pageSize - 1).id()));
+    }
+
+    /**
+     * Matches the recipes read for the ids back to the ids, keeping the order of the ids.
+     */
+    public static RecipeMultiGet toMultiGet(Collection<String> ids, Iterable<Recipe> found) {
+        Map<String, Recipe> recipesById = new HashMap<>();
+        found.forEach(recipe -> recipesById.put(recipe.id(), recipe));
+
+        List<Recipe> recipes = new ArrayList<>(recipesById.size());
+        List<String> missing = new ArrayList<>();
+        for (String id : ids) {
+            Recipe recipe = recipesById.get(id);
+            if (Objects.nonNull(recipe)) {
+                recipes.add(recipe);
+            } else {
+                missing.add(id);
+            }
+        }
+        return new RecipeMultiGet(recipes, missing);
+    }
+
+    public static Recipe toRecipe(RecipeVO recipeVO) {
+        return Recipe.builder()
+                .name(recipeVO.name())
+                .instructions(recipeVO.instructions())
+                .isVegetarian(recipeVO.isVegetarian())
+                .servings(recipeVO.servings())
+                .ingredients(recipeVO.ingredients())
+                .build();
+    }
+
+    public static Query byIdAndVersion(String id, Long version) {
+        Query query = new Query(where("_id").is(id));
+        if (Objects.nonNull(version)) {
+            query.addCriteria(where("version").is(version));
+        }
+        return query;
+    }
+
+    /**
+     * The recipe to write for an update of the id, with the version the update applies to.
+     */
+    public static Recipe toRecipe(String id, RecipeVO recipeVO) {
+        return toRecipe(recipeVO).toBuilder()
+                .id(id)
+                .version(recipeVO.version())
+                .build();
+    }
+
+    public static Update toUpdate(Recipe recipe) {
+        return toUpdate(recipe, null);
+    }
+
+    /**
+     * Sets only the fields that differ from the current recipe, so unchanged instructions are not sent again.
+     * The current recipe must be the one at the version the update applies to, without it every field is set.
+     */
+    public static Update toUpdate(Recipe recipe, Recipe current) {
+        Update update = new Update().inc("version", 1);
+        setChanged(update, "name", recipe.name(), current, Recipe::name);
+        setChanged(update, "instructions", recipe.instructions(), current, Recipe::instructions);
+        setChanged(update, "isVegetarian", recipe.isVegetarian(), current, Recipe::isVegetarian);
+        setChanged(update, "servings", recipe.servings(), current, Recipe::servings);
+        setChanged(update, "ingredients", recipe.ingredients(), current, Recipe::ingredients);
+        return update;
+    }
+
+    private static <T> void setChanged(Update update, String field, T value, Recipe current, Function<Recipe, T> currentValue) {
+        if (Objects.isNull(current) || !Objects.equals(value, currentValue.apply(current))) {
+            update.set(field, value);
+        }
+    }
+
+    private static <T> List<RecipeFacetCount<T>> facetCounts(Document facets, String facet, Class<T> type) {
+        return facets.getList(facet, Document.class).stream()
+                .map(facetCount -> new RecipeFacetCount<>(facetCount.get("_id", type), count(facetCount)))
+                .toList();
+    }
+
+    private static long count(Document facetCount) {
+        return facetCount.get(COUNT, Number.class).longValue();
+    }
+
+    /**
+     * Both ingredient filters go into one criteria, a query can only hold one criteria per field.
+     */
+    private static Criteria ingredientsCriteria(RecipeFilter filter) {
+        Criteria criteria = where("ingredients");
+        if (Objects.nonNull(filter.includeIngredient())) {
+            criteria.in(filter.includeIngredient());
+        }
+        if (Objects.nonNull(filter.excludeIngredient())) {
+            criteria.nin(filter.excludeIngredient());
+        }
+        return criteria;
+    }
+
+    /**
+     * Words and quoted phrases of the instruction are matched with the text index, the legacy regex mode
+     * matches the instruction as a literal so user input never reaches the regex engine.
+     */
+    private CriteriaDefinition instructionCriteria(String instruction) {
+        if (instructionSearchMode == InstructionSearchMode.REGEX) {
+            return where("instructions").regex(Pattern.quote(instruction));
+        }
+        return TextCriteria.forDefaultLanguage().matching(instruction);
+    }
+}
@@ -1,107 +1,277 @@
 package com.abn.recipe.service;
 
+import com.abn.recipe.controller.vo.RecipeBulkOperationType;
+import com.abn.recipe.controller.vo.RecipeBulkOperationVO;
+import com.abn.recipe.controller.vo.RecipeBulkRequestVO;
+import com.abn.recipe.controller.vo.RecipeBulkResponseVO;
+import com.abn.recipe.controller.vo.RecipeBulkResultStatus;
+import com.abn.recipe.controller.vo.RecipeBulkResultVO;
 import com.abn.recipe.controller.vo.RecipeVO;
-import com.abn.recipe.exception.ResourceAlreadyExistException;
+import com.abn.recipe.exception.InvalidParameterException;
+import com.abn.recipe.exception.PreconditionRequiredException;
+import com.abn.recipe.exception.ResourceConflictException;
 import com.abn.recipe.exception.ResourceNotFoundException;
+import com.abn.recipe.model.RecipeFacets;
+import com.abn.recipe.model.RecipeFilter;
+import com.abn.recipe.model.RecipeMultiGet;
+import com.abn.recipe.model.RecipePage;
+import com.abn.recipe.model.RecipeProjection;
 import com.abn.recipe.model.mongo.Recipe;
-import com.abn.recipe.repository.mongo.RecipeRepository;
+import com.abn.recipe.service.cache.RecipeCache;
+import com.abn.recipe.service.index.RecipeIngredientIndex;
+import com.abn.recipe.service.store.RecipeBulkOperation;
+import com.abn.recipe.service.store.RecipeBulkResult;
+import com.abn.recipe.service.store.RecipeStore;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.data.mongodb.core.MongoTemplate;
-import org.springframework.data.mongodb.core.query.Query;
+import org.apache.commons.lang3.StringUtils;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
 
-import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static com.abn.recipe.service.RecipeQueries.toRecipe;
 
 @Service
 @Slf4j
 @RequiredArgsConstructor
 public class RecipeService {
 
-    private final RecipeRepository recipeRepository;
+    private final RecipeStore recipeStore;
 
-    private final MongoTemplate mongoTemplate;
+    private final RecipeCache recipeCache;
 
-    public Recipe create(RecipeVO recipeVO) {
-        Optional<Recipe> maybeRecipe = recipeRepository.findByName(recipeVO.name());
-        if (maybeRecipe.isPresent()) {
-            throw new ResourceAlreadyExistException("Recipe already exists");
-        }
+    private final RecipeIngredientIndex recipeIngredientIndex;
 
-        log.info("Creating recipe: {}", recipeVO);
+    private final RecipeQueries recipeQueries;
 
-        Recipe recipe = Recipe.builder()
-                .name(recipeVO.name())
-                .instructions(recipeVO.instructions())
-                .isVegetarian(recipeVO.isVegetarian())
-                .servings(recipeVO.servings())
-                .ingredients(recipeVO.ingredients())
-                .build();
+    private final RecipeMetrics recipeMetrics;
+
+    @Value("${recipe.index.max-candidates:10000}")
+    private int maxIndexCandidates;
+
+    @Value("${recipe.facets.top-ingredients:10}")
+    private int topIngredients;
+
+    public Recipe create(RecipeVO recipeVO) {
+        log.info("Creating recipe: {}", recipeVO);
 
-        Recipe recipeCreated = recipeRepository.save(recipe);
+        Recipe recipeCreated = recipeStore.insert(toRecipe(recipeVO));
+        created(recipeCreated);
 
         log.info("Recipe created with name {}", recipeCreated.name());
 
         return recipeCreated;
     }
 
-    public void update(String id, RecipeVO recipeVO) {
-        Optional<Recipe> maybeRecipe = recipeRepository.findById(id);
+    /**
+     * Sets the recipe fields in a single store write. The update only applies to the version of the recipe, so a
+     * concurrent change is reported as a conflict instead of being overwritten, and an update without a version is
+     * refused. When the cached recipe is at that version only the changed fields are written.
+     */
+    public Recipe update(String id, RecipeVO recipeVO) {
+        log.info("Updating recipe: {}", recipeVO.name());
+
+        if (Objects.isNull(recipeVO.version())) {
+            throw new PreconditionRequiredException("version is required to update a recipe");
+        }
+        Recipe cached = recipeCache.cached(id)
+                .filter(recipe -> recipeVO.version().equals(recipe.version()))
+                .orElse(null);
+        Optional<Recipe> maybeRecipe = recipeStore.update(toRecipe(id, recipeVO), cached);
+
         if (maybeRecipe.isEmpty()) {
+            if (recipeStore.existsById(id)) {
+                throw new ResourceConflictException("Recipe was changed by another request");
+            }
             throw new ResourceNotFoundException("Recipe doesn't exist");
         }
 
-        log.info("Updating recipe: {}", recipeVO.name());
-
-        Recipe recipe = maybeRecipe.get()
-                .toBuilder()
-                .name(recipeVO.name())
-                .instructions(recipeVO.instructions())
-                .isVegetarian(recipeVO.isVegetarian())
-                .servings(recipeVO.servings())
-                .ingredients(recipeVO.ingredients())
-                .build();
-
-        recipeRepository.save(recipe);
+        Recipe recipe = maybeRecipe.get();
+        updated(recipe);
 
         log.info("Recipe updated {}", recipe.name());
+
+        return recipe;
     }
 
     public void remove(String id) {
         log.info("Removing recipe: {}", id);
 
-        recipeRepository.deleteById(id);
+        if (recipeStore.deleteById(id)) {
+            removed(id);
+            log.info("Recipe {} removed", id);
+        }
+    }
+
+    /**
+     * Drops the cached pages a new recipe can appear in and indexes it, for writes made outside this service as well.
+     */
+    public void created(Recipe recipe) {
+        recipeCache.evictCreated(recipe);
+        recipeIngredientIndex.add(recipe);
+    }
 
-        log.info("Recipe {} removed", id);
+    public void updated(Recipe recipe) {
+        recipeCache.evictUpdated(recipe);
+        recipeIngredientIndex.add(recipe);
     }
 
-    public List<Recipe> findAll() {
-        return recipeRepository.findAll();
+    public void removed(String id) {
+        recipeCache.evictRemoved(id);
+        recipeIngredientIndex.remove(id);
     }
 
-    public List<Recipe> find(Boolean isVegetarian, Integer servings, String includeIngredient, String excludeIngredient, String instruction) {
-        Query query = new Query();
-        if (Objects.nonNull(isVegetarian)) {
-            query.addCriteria(where("isVegetarian").is(isVegetarian));
-        }
-        if (Objects.nonNull(servings)) {
-            query.addCriteria(where("servings").is(servings));
-        }
-        if (Objects.nonNull(includeIngredient)) {
-            query.addCriteria(where("ingredients").in(includeIngredient));
+    /**
+     * Applies a batch of creates, updates and deletes in a single store write and reports the outcome of every operation.
+     */
+    public RecipeBulkResponseVO bulk(RecipeBulkRequestVO request) {
+        List<RecipeBulkOperationVO> operations = request.operations();
+        validate(operations);
+
+        log.info("Applying {} bulk operations on recipes", operations.size());
+
+        RecipeBulkResult result = recipeStore.bulk(operations.stream().map(RecipeService::toOperation).toList(), request.ordered());
+
+        List<String> updatedIds = new ArrayList<>();
+        List<RecipeBulkResultVO> results = new ArrayList<>(operations.size());
+        for (int index = 0; index < operations.size(); index++) {
+            RecipeBulkResult.Item item = result.items().get(index);
+            results.add(RecipeBulkResultVO.builder()
+                    .index(index)
+                    .id(item.recipe().id())
+                    .status(RecipeBulkResultStatus.valueOf(item.status().name()))
+                    .message(item.message())
+                    .build());
+            if (item.status() != RecipeBulkResult.Status.APPLIED) {
+                continue;
+            }
+            RecipeBulkOperationType type = operations.get(index).type();
+            applied(type, item.recipe());
+            if (type == RecipeBulkOperationType.UPDATE) {
+                updatedIds.add(item.recipe().id());
+            }
         }
-        if (Objects.nonNull(excludeIngredient)) {
-            query.addCriteria(where("ingredients").not().in(excludeIngredient));
+        recipeIngredientIndex.refresh(updatedIds);
+
+        log.info("Bulk operations applied, {} inserted, {} modified, {} deleted, {} failed",
+                result.inserted(), result.modified(), result.deleted(),
+                result.items().stream().filter(item -> item.status() == RecipeBulkResult.Status.FAILED).count());
+
+        return RecipeBulkResponseVO.builder()
+                .inserted(result.inserted())
+                .matched(result.matched())
+                .modified(result.modified())
+                .deleted(result.deleted())
+                .results(results)
+                .build();
+    }
+
+    public Recipe findById(String id) {
+        return recipeCache.findById(id, () -> recipeStore.findById(id))
+                .orElseThrow(() -> new ResourceNotFoundException("Recipe doesn't exist"));
+    }
+
+    /**
+     * Reads all the ids with a single store read, an id given more than once is returned once.
+     */
+    public RecipeMultiGet findByIds(List<String> ids) {
+        Set<String> distinctIds = new LinkedHashSet<>(ids);
+        return RecipeQueries.toMultiGet(distinctIds, recipeStore.findAllById(distinctIds));
+    }
+
+    /**
+     * ETag of the page a find with the same arguments returns, computed from the store version alone.
+     * The version is read before the page, so a write in between can only make the tag older than the page.
+     */
+    public String eTag(RecipeFilter filter, RecipeProjection projection, String next, Integer limit) {
+        return RecipeETag.of(recipeStore.version(), filter, projection, next, recipeQueries.pageSize(limit));
+    }
+
+    public RecipePage findAll(String next, Integer limit) {
+        return findAll(RecipeProjection.ALL, next, limit);
+    }
+
+    public RecipePage findAll(RecipeProjection projection, String next, Integer limit) {
+        return find(RecipeFilter.builder().build(), projection, next, limit);
+    }
+
+    public void streamAll(Consumer<Recipe> consumer) {
+        streamAll(RecipeProjection.ALL, consumer);
+    }
+
+    public void streamAll(RecipeProjection projection, Consumer<Recipe> consumer) {
+        recipeStore.streamAll(projection, consumer);
+    }
+
+    public RecipePage find(RecipeFilter filter, String next, Integer limit) {
+        return find(filter, RecipeProjection.ALL, next, limit);
+    }
+
+    public RecipePage find(RecipeFilter filter, RecipeProjection projection, String next, Integer limit) {
+        int pageSize = recipeQueries.pageSize(limit);
+        RecipePage page = recipeCache.find(filter, projection, next, pageSize, () -> findInStore(filter, projection, next, pageSize));
+        recipeMetrics.recordFindResults(filter, page);
+        return page;
+    }
+
+    public RecipeFacets facets(RecipeFilter filter) {
+        return recipeCache.facets(filter, () -> recipeStore.facets(filter, topIngredients));
+    }
+
+    /**
+     * Ids after the page cursor the ingredient index narrows the filter down to, in id order. Empty when the index
+     * can not answer the filter or matches too many recipes, an empty list when no recipe matches.
+     */
+    public Optional<List<ObjectId>> candidateIds(RecipeFilter filter, ObjectId lastId, int pageSize) {
+        // without an instruction filter the index answer is exact, so only the ids of the requested page are read
+        int limit = Objects.isNull(filter.instruction()) ? pageSize + 1 : maxIndexCandidates + 1;
+        return recipeIngredientIndex.findIds(filter, lastId, limit)
+                .filter(candidates -> candidates.size() <= maxIndexCandidates);
+    }
+
+    private RecipePage findInStore(RecipeFilter filter, RecipeProjection projection, String next, int pageSize) {
+        ObjectId lastId = Objects.nonNull(next) ? PageToken.decode(next) : null;
+
+        Optional<List<ObjectId>> candidateIds = candidateIds(filter, lastId, pageSize);
+        if (candidateIds.filter(List::isEmpty).isPresent()) {
+            return new RecipePage(List.of(), null);
         }
-        if (Objects.nonNull(instruction)) {
-            query.addCriteria(where("instructions").regex(instruction).regex(instruction));
+
+        return RecipeQueries.toPage(recipeStore.find(filter, projection, lastId, candidateIds.orElse(null), pageSize), pageSize);
+    }
+
+    private void validate(List<RecipeBulkOperationVO> operations) {
+        for (int index = 0; index < operations.size(); index++) {
+            RecipeBulkOperationVO operation = operations.get(index);
+            if (operation.type() != RecipeBulkOperationType.DELETE && Objects.isNull(operation.recipe())) {
+                throw new InvalidParameterException("operations[" + index + "].recipe must not be null");
+            }
+            if (operation.type() != RecipeBulkOperationType.CREATE && StringUtils.isBlank(operation.id())) {
+                throw new InvalidParameterException("operations[" + index + "].id must not be blank");
+            }
         }
+    }
 
-        return mongoTemplate.find(query, Recipe.class);
+    private static RecipeBulkOperation toOperation(RecipeBulkOperationVO operation) {
+        RecipeBulkOperation.Type type = RecipeBulkOperation.Type.valueOf(operation.type().name());
+        Recipe recipe = Objects.nonNull(operation.recipe()) ? toRecipe(operation.id(), operation.recipe()) : null;
+        return new RecipeBulkOperation(type, operation.id(), recipe);
+    }
+
+    private void applied(RecipeBulkOperationType type, Recipe recipe) {
+        switch (type) {
+            case CREATE -> created(recipe);
+            case UPDATE -> recipeCache.evictUpdated(recipe);
+            case DELETE -> removed(recipe.id());
+        }
     }
 
 }
@@ -0,0 +1,109 @@
+package com.abn.recipe.service.admission;
+
+import java.time.Duration;
+import java.util.Arrays;
+
+/**
+ * Concurrency limit that adapts with additive increase and multiplicative decrease, decided once per window of
+ * completed requests rather than per request, so a single slow request does not move it. When the window is full
+ * its latency percentile is compared with the threshold, a failed request counting as slower than any other: above
+ * the threshold the limit is multiplied by the backoff ratio, otherwise it grows by one if at least half of it was
+ * in use during the window. Requests above the limit are not queued, the caller rejects them.
+ */
+public class AdaptiveLimit {
+
+    private final int minLimit;
+
+    private final int maxLimit;
+
+    private final long latencyThresholdNanos;
+
+    private final double backoffRatio;
+
+    private final double percentile;
+
+    private final long[] window;
+
+    private int samples;
+
+    private int peakInflight;
+
+    private int limit;
+
+    private int inflight;
+
+    public AdaptiveLimit(int initialLimit, int minLimit, int maxLimit, Duration latencyThreshold, double backoffRatio,
+                         int windowSize, double percentile) {
+        if (minLimit < 1 || minLimit > maxLimit) {
+            throw new IllegalArgumentException("Limits must satisfy 1 <= min <= max, got min %d max %d".formatted(minLimit, maxLimit));
+        }
+        if (backoffRatio <= 0 || backoffRatio >= 1) {
+            throw new IllegalArgumentException("Backoff ratio must be between 0 and 1, got " + backoffRatio);
+        }
+        if (windowSize < 1) {
+            throw new IllegalArgumentException("Window size must be at least 1, got " + windowSize);
+        }
+        if (percentile <= 0 || percentile > 1) {
+            throw new IllegalArgumentException("Percentile must be above 0 and at most 1, got " + percentile);
+        }
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.latencyThresholdNanos = latencyThreshold.toNanos();
+        this.backoffRatio = backoffRatio;
+        this.percentile = percentile;
+        this.window = new long[windowSize];
+        this.limit = Math.min(maxLimit, Math.max(minLimit, initialLimit));
+    }
+
+    /**
+     * Takes a slot when fewer requests than the limit are in flight, the caller must release it once done.
+     */
+    public synchronized boolean tryAcquire() {
+        if (inflight >= limit) {
+            return false;
+        }
+        inflight++;
+        peakInflight = Math.max(peakInflight, inflight);
+        return true;
+    }
+
+    /**
+     * Gives the slot back and records how the request went, the limit adapts once the window is full.
+     *
+     * @param dropped the request failed in a way that points at overload, like a timeout or a 5xx
+     */
+    public synchronized void release(long latencyNanos, boolean dropped) {
+        inflight--;
+        window[samples++] = dropped ? Long.MAX_VALUE : latencyNanos;
+        if (samples < window.length) {
+            return;
+        }
+        if (windowLatency() > latencyThresholdNanos) {
+            limit = Math.max(minLimit, (int) (limit * backoffRatio));
+        } else if (peakInflight * 2 >= limit) {
+            limit = Math.min(maxLimit, limit + 1);
+        }
+        samples = 0;
+        peakInflight = inflight;
+    }
+
+    /**
+     * Gives the slot back without adapting the limit, for requests whose latency says nothing about load.
+     */
+    public synchronized void release() {
+        inflight--;
+    }
+
+    public synchronized int limit() {
+        return limit;
+    }
+
+    public synchronized int inflight() {
+        return inflight;
+    }
+
+    private long windowLatency() {
+        Arrays.sort(window);
+        return window[Math.max(0, (int) Math.ceil(percentile * window.length) - 1)];
+    }
+}
@@ -0,0 +1,278 @@
+package com.abn.recipe.service.cache;
+
+import com.abn.recipe.exception.ServiceUnavailableException;
+import com.abn.recipe.model.RecipeFacets;
+import com.abn.recipe.model.RecipeFilter;
+import com.abn.recipe.model.RecipePage;
+import com.abn.recipe.model.RecipeProjection;
+import com.abn.recipe.model.mongo.Recipe;
+import com.abn.recipe.service.RecipeCollectionVersion;
+import com.abn.recipe.service.RecipeMetrics;
+import com.abn.recipe.service.dictionary.IngredientDictionary;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Read-through cache of recipes by id, of filter results and of facet counts.
+ * Filter results and facet counts can be affected by any write, so they are keyed by the
+ * {@link RecipeCollectionVersion} every write increments. Invalidating them all costs one increment, and entries
+ * of older versions are never read again and age out of the size bounded caches. A result loaded while a write is
+ * applied is stored under the version read before loading, so it is not served once the write is done.
+ * Concurrent misses of the same key share one load, whether or not the cache is switched on: the first miss runs
+ * it and the others wait for its result or its failure for up to recipe.coalescing.max-wait, then fail instead of
+ * sending the query again. The blocking stack loads in the calling thread, the reactive one through the async
+ * variants, and both share the loads in flight.
+ * Recipes are kept as compacted by the {@link IngredientDictionary}, so cached recipes share one copy of every
+ * ingredient name. Cached recipes and pages are immutable and handed out as they are, a hit copies nothing.
+ */
+@Component
+public class RecipeCache {
+
+    public static final String RECIPES_BY_ID = "recipesById";
+
+    public static final String RECIPES_BY_FILTER = "recipesByFilter";
+
+    public static final String RECIPE_FACETS = "recipeFacets";
+
+    public static final String LED = "led";
+
+    public static final String JOINED = "joined";
+
+    public static final String TIMED_OUT = "timed_out";
+
+    private final Map<LoadKey, CompletableFuture<Object>> loads = new ConcurrentHashMap<>();
+
+    private final CacheManager cacheManager;
+
+    private final IngredientDictionary ingredientDictionary;
+
+    private final RecipeCollectionVersion recipeCollectionVersion;
+
+    private final RecipeMetrics recipeMetrics;
+
+    private final Duration maxWait;
+
+    public RecipeCache(CacheManager cacheManager,
+                       IngredientDictionary ingredientDictionary,
+                       RecipeCollectionVersion recipeCollectionVersion,
+                       RecipeMetrics recipeMetrics,
+                       @Value("${recipe.coalescing.max-wait:2s}") Duration maxWait) {
+        this.cacheManager = cacheManager;
+        this.ingredientDictionary = ingredientDictionary;
+        this.recipeCollectionVersion = recipeCollectionVersion;
+        this.recipeMetrics = recipeMetrics;
+        this.maxWait = maxWait;
+    }
+
+    public Optional<Recipe> findById(String id, Supplier<Optional<Recipe>> loader) {
+        return Optional.ofNullable(get(RECIPES_BY_ID, id, () -> loader.get().map(this::compact).orElse(null)));
+    }
+
+    public CompletableFuture<Optional<Recipe>> findByIdAsync(String id, Supplier<CompletableFuture<Optional<Recipe>>> loader) {
+        return getAsync(RECIPES_BY_ID, id, () -> loader.get().thenApply(recipe -> recipe.map(this::compact).orElse(null)))
+                .thenApply(recipe -> Optional.ofNullable((Recipe) recipe));
+    }
+
+    /**
+     * The recipe cached for the id, without loading it.
+     */
+    public Optional<Recipe> cached(String id) {
+        return Optional.ofNullable(cache(RECIPES_BY_ID).get(id, Recipe.class));
+    }
+
+    /**
+     * The page size is the resolved one, so requests without a limit and with the default limit share an entry.
+     */
+    public RecipePage find(RecipeFilter filter, RecipeProjection projection, String next, int pageSize, Supplier<RecipePage> loader) {
+        FilterKey key = new FilterKey(recipeCollectionVersion.current(), filter, projection, next, pageSize);
+        return get(RECIPES_BY_FILTER, key, () -> compact(loader.get()));
+    }
+
+    public CompletableFuture<RecipePage> findAsync(RecipeFilter filter, RecipeProjection projection, String next, int pageSize,
+                                                   Supplier<CompletableFuture<RecipePage>> loader) {
+        FilterKey key = new FilterKey(recipeCollectionVersion.current(), filter, projection, next, pageSize);
+        return getAsync(RECIPES_BY_FILTER, key, () -> loader.get().thenApply(this::compact))
+                .thenApply(RecipePage.class::cast);
+    }
+
+    /**
+     * The facet cache is optional, without a recipeFacets cache concurrent calls still share their loads.
+     */
+    public RecipeFacets facets(RecipeFilter filter, Supplier<RecipeFacets> loader) {
+        return get(RECIPE_FACETS, new FacetsKey(recipeCollectionVersion.current(), filter), loader);
+    }
+
+    public CompletableFuture<RecipeFacets> facetsAsync(RecipeFilter filter, Supplier<CompletableFuture<RecipeFacets>> loader) {
+        return getAsync(RECIPE_FACETS, new FacetsKey(recipeCollectionVersion.current(), filter), loader::get)
+                .thenApply(RecipeFacets.class::cast);
+    }
+
+    public void evictCreated(Recipe recipe) {
+        recipeCollectionVersion.increment();
+    }
+
+    public void evictUpdated(Recipe recipe) {
+        evictById(recipe.id());
+    }
+
+    public void evictRemoved(String id) {
+        evictById(id);
+    }
+
+    /**
+     * Evicts the recipe and every filter result and facet count, for a write known only by the recipe id. A load of
+     * the recipe still running is dropped too, so later reads start their own and its result is not cached.
+     */
+    public void evictById(String id) {
+        loads.remove(new LoadKey(RECIPES_BY_ID, id));
+        cache(RECIPES_BY_ID).evict(id);
+        recipeCollectionVersion.increment();
+    }
+
+    public void clear() {
+        loads.clear();
+        cache(RECIPES_BY_ID).clear();
+        recipeCollectionVersion.increment();
+    }
+
+    /**
+     * Runs the load in the calling thread, or waits for the one of the same key already running. A hit returns
+     * the cached value without going through a future.
+     */
+    @SuppressWarnings("unchecked")
+    private <T> T get(String cacheName, Object key, Supplier<T> loader) {
+        Cache cache = cacheManager.getCache(cacheName);
+        Cache.ValueWrapper cached = Objects.nonNull(cache) ? cache.get(key) : null;
+        if (Objects.nonNull(cached)) {
+            return (T) cached.get();
+        }
+
+        Load load = load(cacheName, key, () -> CompletableFuture.completedFuture(loader.get()));
+        try {
+            return (T) load.result().get(maxWait.toNanos(), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            throw timedOut(cacheName);
+        } catch (ExecutionException e) {
+            throw rethrow(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ServiceUnavailableException("Interrupted while waiting for a recipe read");
+        }
+    }
+
+    /**
+     * Starts the load, or joins the one of the same key already running. Only the wait of a joined load is bounded,
+     * the load itself is bounded by the Mongo timeouts. The shared future is never handed out, so a caller
+     * cancelling its copy does not cancel the load for the others.
+     */
+    private CompletableFuture<Object> getAsync(String cacheName, Object key, Supplier<CompletableFuture<?>> loader) {
+        Load load = load(cacheName, key, loader);
+        if (!load.joined()) {
+            return load.result().copy();
+        }
+        return load.result().copy()
+                .orTimeout(maxWait.toNanos(), TimeUnit.NANOSECONDS)
+                .exceptionallyCompose(e -> CompletableFuture.failedFuture(
+                        unwrap(e) instanceof TimeoutException ? timedOut(cacheName) : unwrap(e)));
+    }
+
+    private Load load(String cacheName, Object key, Supplier<CompletableFuture<?>> loader) {
+        Cache cache = cacheManager.getCache(cacheName);
+        Cache.ValueWrapper cached = Objects.nonNull(cache) ? cache.get(key) : null;
+        if (Objects.nonNull(cached)) {
+            return new Load(CompletableFuture.completedFuture(cached.get()), false);
+        }
+
+        LoadKey loadKey = new LoadKey(cacheName, key);
+        CompletableFuture<Object> load = new CompletableFuture<>();
+        CompletableFuture<Object> running = loads.putIfAbsent(loadKey, load);
+        if (Objects.nonNull(running)) {
+            recipeMetrics.countCacheLoad(cacheName, JOINED);
+            return new Load(running, true);
+        }
+
+        recipeMetrics.countCacheLoad(cacheName, LED);
+        CompletableFuture<?> loaded;
+        try {
+            loaded = loader.get();
+        } catch (RuntimeException | Error e) {
+            loaded = CompletableFuture.failedFuture(e);
+        }
+        loaded.whenComplete((value, error) -> {
+            // an eviction while loading removed the load, its result may predate the write and is not cached; the
+            // result is cached before the load is removed, so a read in between finds one or the other
+            if (Objects.isNull(error) && Objects.nonNull(cache)) {
+                loads.computeIfPresent(loadKey, (ignored, registered) -> {
+                    if (registered == load) {
+                        cache.put(key, value);
+                    }
+                    return registered;
+                });
+            }
+            loads.remove(loadKey, load);
+            if (Objects.isNull(error)) {
+                load.complete(value);
+            } else {
+                load.completeExceptionally(unwrap(error));
+            }
+        });
+        return new Load(load, false);
+    }
+
+    private ServiceUnavailableException timedOut(String cacheName) {
+        recipeMetrics.countCacheLoad(cacheName, TIMED_OUT);
+        return new ServiceUnavailableException("Timed out waiting for a recipe read");
+    }
+
+    private static Throwable unwrap(Throwable error) {
+        return error instanceof CompletionException && Objects.nonNull(error.getCause()) ? error.getCause() : error;
+    }
+
+    private static RuntimeException rethrow(Throwable error) {
+        if (error instanceof RuntimeException runtimeException) {
+            return runtimeException;
+        }
+        if (error instanceof Error e) {
+            throw e;
+        }
+        return new CompletionException(error);
+    }
+
+    private Recipe compact(Recipe recipe) {
+        return ingredientDictionary.compact(recipe);
+    }
+
+    private RecipePage compact(RecipePage page) {
+        return new RecipePage(page.recipes().stream().map(this::compact).toList(), page.next());
+    }
+
+    private Cache cache(String name) {
+        return Objects.requireNonNull(cacheManager.getCache(name), "Cache " + name + " is not configured");
+    }
+
+    private record Load(CompletableFuture<Object> result, boolean joined) {
+    }
+
+    private record LoadKey(String cacheName, Object key) {
+    }
+
+    private record FilterKey(long version, RecipeFilter filter, RecipeProjection projection, String next, int pageSize) {
+    }
+
+    private record FacetsKey(long version, RecipeFilter filter) {
+    }
+}
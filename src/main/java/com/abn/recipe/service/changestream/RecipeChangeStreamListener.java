@@ -0,0 +1,245 @@
+package com.abn.recipe.service.changestream;
+
+import com.abn.recipe.model.mongo.Recipe;
+import com.abn.recipe.service.RecipeMetrics;
+import com.abn.recipe.service.cache.RecipeCache;
+import com.abn.recipe.service.index.RecipeIngredientIndex;
+import com.mongodb.MongoServerException;
+import com.mongodb.client.ChangeStreamIterable;
+import com.mongodb.client.MongoChangeStreamCursor;
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import com.mongodb.client.model.changestream.FullDocument;
+import com.mongodb.client.model.changestream.OperationType;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.BsonDocument;
+import org.bson.BsonTimestamp;
+import org.bson.BsonValue;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tails the change stream of the recipes collection, so a write made through any instance evicts the recipe
+ * caches and updates the ingredient index of this one. The caches and the index live in the process, so they are
+ * rebuilt on start and a resume token is only worth keeping as long as they are: it is held in memory, and a
+ * stream that failed is opened again from it without a rebuild. Without a token, or when the token fell out of the
+ * oplog, the caches and the index are rebuilt from scratch. Change streams need a replica set.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "recipe.change-stream.enabled", havingValue = "true")
+public class RecipeChangeStreamListener implements SmartLifecycle {
+
+    /**
+     * InvalidResumeToken, ChangeStreamFatalError and ChangeStreamHistoryLost, the stream can only start over.
+     */
+    private static final Set<Integer> LOST_RESUME_TOKEN_CODES = Set.of(260, 280, 286);
+
+    private final MongoTemplate mongoTemplate;
+
+    private final RecipeCache recipeCache;
+
+    private final RecipeIngredientIndex recipeIngredientIndex;
+
+    private final RecipeMetrics recipeMetrics;
+
+    private final Duration maxAwaitTime;
+
+    private final Duration retryDelay;
+
+    private volatile boolean running;
+
+    /**
+     * Token of the last applied change, written by the listener thread only.
+     */
+    private volatile BsonDocument resumeToken;
+
+    private Thread thread;
+
+    public RecipeChangeStreamListener(MongoTemplate mongoTemplate,
+                                      RecipeCache recipeCache,
+                                      RecipeIngredientIndex recipeIngredientIndex,
+                                      RecipeMetrics recipeMetrics,
+                                      @Value("${recipe.change-stream.max-await-time:1s}") Duration maxAwaitTime,
+                                      @Value("${recipe.change-stream.retry-delay:5s}") Duration retryDelay) {
+        this.mongoTemplate = mongoTemplate;
+        this.recipeCache = recipeCache;
+        this.recipeIngredientIndex = recipeIngredientIndex;
+        this.recipeMetrics = recipeMetrics;
+        this.maxAwaitTime = maxAwaitTime;
+        this.retryDelay = retryDelay;
+    }
+
+    @Override
+    public synchronized void start() {
+        running = true;
+        thread = new Thread(this::run, "recipe-change-stream");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    @Override
+    public synchronized void stop() {
+        running = false;
+        if (Objects.nonNull(thread)) {
+            thread.interrupt();
+            try {
+                thread.join(maxAwaitTime.plus(retryDelay).toMillis());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Applies one change to the local state, false when the stream was invalidated and has to be opened again.
+     */
+    boolean apply(ChangeStreamDocument<Document> change) {
+        switch (change.getOperationType()) {
+            case INSERT, UPDATE, REPLACE, DELETE -> {
+                String id = id(change.getDocumentKey());
+                if (Objects.isNull(id)) {
+                    // retrying would fail the same way, so the change is skipped rather than the stream stopped
+                    log.warn("Recipe change {} skipped, its _id is neither an ObjectId nor a string: {}",
+                            change.getOperationTypeString(), change.getDocumentKey());
+                    return true;
+                }
+                apply(change, id);
+            }
+            case INVALIDATE -> {
+                return false;
+            }
+            default -> {
+                // drop, rename and drop database are followed by an invalidate
+            }
+        }
+        recipeMetrics.recordChangeStreamEvent(change.getOperationTypeString(), lag(change.getClusterTime()));
+        return true;
+    }
+
+    private void apply(ChangeStreamDocument<Document> change, String id) {
+        if (change.getOperationType() == OperationType.DELETE) {
+            recipeCache.evictRemoved(id);
+            recipeIngredientIndex.remove(id);
+            return;
+        }
+        recipeCache.evictById(id);
+        if (Objects.nonNull(change.getFullDocument())) {
+            recipeIngredientIndex.add(mongoTemplate.getConverter().read(Recipe.class, change.getFullDocument()));
+        } else {
+            // deleted before the update lookup, its delete event follows
+            recipeIngredientIndex.remove(id);
+        }
+    }
+    private void run() {
+        while (running) {
+            try {
+                watch();
+            } catch (MongoServerException e) {
+                if (LOST_RESUME_TOKEN_CODES.contains(e.getCode())) {
+                    log.warn("Recipe change stream can not be resumed, the local recipe state is reloaded", e);
+                    resumeToken = null;
+                } else {
+                    retryLater(e);
+                }
+            } catch (RuntimeException e) {
+                retryLater(e);
+            }
+        }
+    }
+
+    /**
+     * The cursor is opened before a reload, so no write made during the reload is missed. The ingredient index
+     * is loaded by that reload, it skips its own load on start when the change stream is on.
+     */
+    private void watch() {
+        ChangeStreamIterable<Document> changes = mongoTemplate.getCollection(mongoTemplate.getCollectionName(Recipe.class))
+                .watch()
+                .fullDocument(FullDocument.UPDATE_LOOKUP)
+                .maxAwaitTime(maxAwaitTime.toMillis(), TimeUnit.MILLISECONDS);
+        if (Objects.nonNull(resumeToken)) {
+            changes = changes.resumeAfter(resumeToken);
+        }
+
+        try (MongoChangeStreamCursor<ChangeStreamDocument<Document>> cursor = changes.cursor()) {
+            boolean resumed = Objects.nonNull(resumeToken);
+            if (!resumed) {
+                reload();
+            }
+            log.info("Recipe change stream opened, resumed {}", resumed);
+
+            while (running) {
+                ChangeStreamDocument<Document> change = cursor.tryNext();
+                if (Objects.isNull(change)) {
+                    continue;
+                }
+                if (!apply(change)) {
+                    log.info("Recipe change stream invalidated by {}", change.getOperationTypeString());
+                    resumeToken = null;
+                    return;
+                }
+                resumeToken = change.getResumeToken();
+            }
+        }
+    }
+
+    private void reload() {
+        recipeCache.clear();
+        recipeIngredientIndex.reload();
+        recipeMetrics.countChangeStreamReload();
+    }
+
+    private void retryLater(RuntimeException e) {
+        if (!running) {
+            return;
+        }
+        log.warn("Recipe change stream failed, retrying in {}", retryDelay, e);
+        try {
+            Thread.sleep(retryDelay.toMillis());
+        } catch (InterruptedException interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Whether a change was applied since the stream was last opened from scratch.
+     */
+    boolean hasResumeToken() {
+        return Objects.nonNull(resumeToken);
+    }
+
+    /**
+     * The recipe id of the change, null when the _id is of a type recipes are never stored with.
+     */
+    private static String id(BsonDocument documentKey) {
+        BsonValue id = documentKey.get("_id");
+        if (Objects.isNull(id)) {
+            return null;
+        }
+        if (id.isObjectId()) {
+            return id.asObjectId().getValue().toHexString();
+        }
+        return id.isString() ? id.asString().getValue() : null;
+    }
+
+    private static Duration lag(BsonTimestamp clusterTime) {
+        if (Objects.isNull(clusterTime)) {
+            return Duration.ZERO;
+        }
+        return Duration.between(Instant.ofEpochSecond(clusterTime.getTime()), Instant.now());
+    }
+}
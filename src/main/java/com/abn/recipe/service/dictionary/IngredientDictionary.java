@@ -0,0 +1,154 @@
+package com.abn.recipe.service.dictionary;
+
+import com.abn.recipe.model.mongo.Recipe;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Shared dictionary of ingredient names, every distinct name is kept once, so recipes held in memory point to the
+ * same string instead of their own copies of it. Names are kept exactly as stored in Mongo, filters and responses
+ * rely on them.
+ * Names are held weakly: a name no cached recipe or index entry refers to anymore is dropped by the next garbage
+ * collection, so recipes that were deleted or renamed do not keep their ingredients in the dictionary. At most
+ * recipe.dictionary.max-size names are shared, further names are kept as given until room is freed.
+ * Lookups take no lock, the names sit in a concurrent map keyed by weak references to them.
+ */
+@Component
+public class IngredientDictionary {
+
+    public static final int DEFAULT_MAX_SIZE = 100_000;
+
+    private final Map<Name, Name> names = new ConcurrentHashMap<>();
+
+    /**
+     * Names collected by the garbage collector, their entries are removed on the next write or size.
+     */
+    private final ReferenceQueue<String> collected = new ReferenceQueue<>();
+
+    private final int maxSize;
+
+    public IngredientDictionary() {
+        this(DEFAULT_MAX_SIZE);
+    }
+
+    @Autowired
+    public IngredientDictionary(@Value("${recipe.dictionary.max-size:" + DEFAULT_MAX_SIZE + "}") int maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * The shared instance of the name, the name itself when it is new and the dictionary is full.
+     */
+    public String canonical(String ingredient) {
+        if (Objects.isNull(ingredient)) {
+            return null;
+        }
+        String name = shared(names.get(new Name(ingredient, null)));
+        if (Objects.nonNull(name)) {
+            return name;
+        }
+
+        purge();
+        if (names.size() >= maxSize) {
+            return ingredient;
+        }
+        Name added = new Name(ingredient, collected);
+        while (true) {
+            Name existing = names.putIfAbsent(added, added);
+            if (Objects.isNull(existing)) {
+                return ingredient;
+            }
+            name = existing.get();
+            if (Objects.nonNull(name)) {
+                return name;
+            }
+            // collected since it was found, it no longer equals the name and the next put adds it
+        }
+    }
+
+    public String[] encode(List<String> ingredients) {
+        if (Objects.isNull(ingredients)) {
+            return null;
+        }
+        return ingredients.stream().map(this::canonical).toArray(String[]::new);
+    }
+
+    /**
+     * The recipe with its ingredients as an unmodifiable list of shared names. The caches hold it and hand it out
+     * as is, so a cache hit copies neither the recipe nor its ingredients.
+     */
+    public Recipe compact(Recipe recipe) {
+        if (Objects.isNull(recipe.ingredients())) {
+            return recipe;
+        }
+        return recipe.toBuilder()
+                .ingredients(recipe.ingredients().stream().map(this::canonical).toList())
+                .build();
+    }
+
+    public List<String> decode(String[] ingredients) {
+        if (Objects.isNull(ingredients)) {
+            return null;
+        }
+        return Arrays.stream(ingredients).toList();
+    }
+
+    /**
+     * Names currently shared, names that are no longer referenced are only dropped once collected.
+     */
+    public int size() {
+        purge();
+        return names.size();
+    }
+
+    private void purge() {
+        for (Reference<? extends String> name = collected.poll(); Objects.nonNull(name); name = collected.poll()) {
+            names.remove(name);
+        }
+    }
+
+    private static String shared(Name name) {
+        return Objects.nonNull(name) ? name.get() : null;
+    }
+
+    /**
+     * Weak reference to a name that compares by the name while it is alive, and by identity once it is collected
+     * so its entry can still be removed.
+     */
+    private static final class Name extends WeakReference<String> {
+
+        private final int hash;
+
+        private Name(String name, ReferenceQueue<String> queue) {
+            super(name, queue);
+            this.hash = name.hashCode();
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (this == other) {
+                return true;
+            }
+            if (!(other instanceof Name name) || hash != name.hash) {
+                return false;
+            }
+            String value = get();
+            return Objects.nonNull(value) && value.equals(name.get());
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
@@ -0,0 +1,426 @@
+package com.abn.recipe.service.index;
+
+import com.abn.recipe.model.RecipeField;
+import com.abn.recipe.model.RecipeFilter;
+import com.abn.recipe.model.RecipeProjection;
+import com.abn.recipe.model.mongo.Recipe;
+import com.abn.recipe.service.dictionary.IngredientDictionary;
+import com.abn.recipe.service.store.RecipeStore;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-process inverted index of recipes by ingredient, vegetarian flag and servings.
+ * Every recipe gets an ordinal and every indexed value a bitmap of ordinals, so a filter is answered with
+ * bitmap AND / ANDNOT operations and only the matching ids are fetched from the store. Ingredients are indexed by
+ * their shared {@link IngredientDictionary} name.
+ * Ordinals are handed out in insertion order and never reused, so the ordinals of recipes added in id order, as
+ * ObjectIds generated at insert time mostly are, are in id order too. A page is then read from the bitmap itself:
+ * a binary search finds the first ordinal after the page cursor and only the ids of the page are converted. The few
+ * recipes added out of id order sit in an unsorted tail that every page scans. Once the tail or the ordinals of
+ * removed recipes grow too large, the ordinals are renumbered in id order, and bitmaps left empty are dropped, so
+ * the index stays about as large as the recipes it holds and keeps no name of a removed ingredient alive.
+ * The index only sees the writes of this instance, plus those of the others when the change stream listener runs.
+ * With several instances and recipe.change-stream.enabled false, a filter can miss recipes written elsewhere.
+ */
+@Slf4j
+@Component
+public class RecipeIngredientIndex {
+
+    private static final RecipeProjection INDEXED_FIELDS =
+            new RecipeProjection(EnumSet.of(RecipeField.IS_VEGETARIAN, RecipeField.SERVINGS, RecipeField.INGREDIENTS));
+
+    private final RecipeStore recipeStore;
+
+    private final IngredientDictionary ingredientDictionary;
+
+    private final boolean enabled;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * Ordinals out of id order or left by removed recipes that are tolerated before the ordinals are renumbered.
+     */
+    static final int MAX_UNSORTED_ORDINALS = 1024;
+
+    private final Map<String, Integer> ordinals = new HashMap<>();
+
+    private final List<IndexedRecipe> recipes = new ArrayList<>();
+
+    /**
+     * Id of every ordinal as an ObjectId, null for ids that are not ObjectIds. Kept for removed recipes too, so the
+     * sorted ordinals stay searchable.
+     */
+    private final List<ObjectId> keys = new ArrayList<>();
+
+    /**
+     * Ordinals below it are in strictly ascending id order, the ones from it on form the unsorted tail.
+     */
+    private int sortedOrdinals;
+
+    private final Map<String, BitSet> byIngredient = new HashMap<>();
+
+    private final Map<Integer, BitSet> byServings = new HashMap<>();
+
+    /**
+     * Recipes stored without a vegetarian flag are in neither bitmap, as no vegetarian filter matches them in Mongo.
+     */
+    private final BitSet vegetarian = new BitSet();
+
+    private final BitSet notVegetarian = new BitSet();
+
+    private final BitSet live = new BitSet();
+
+    private volatile boolean ready;
+
+    @Value("${recipe.change-stream.enabled:false}")
+    private boolean loadedByChangeStream;
+
+    public RecipeIngredientIndex(RecipeStore recipeStore,
+                                 IngredientDictionary ingredientDictionary,
+                                 @Value("${recipe.index.enabled:false}") boolean enabled) {
+        this.recipeStore = recipeStore;
+        this.ingredientDictionary = ingredientDictionary;
+        this.enabled = enabled;
+    }
+
+    /**
+     * With the change stream on, the listener loads the index once its cursor is open, so no write made by another
+     * instance in between is missed and the index is not loaded twice on start.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadOnStart() {
+        if (!loadedByChangeStream) {
+            load();
+        }
+    }
+
+    /**
+     * Loads every recipe once, later calls return at once until a {@link #reload()}.
+     */
+    public synchronized void load() {
+        if (!enabled || ready) {
+            return;
+        }
+
+        log.info("Loading recipe ingredient index");
+
+        recipeStore.streamAll(INDEXED_FIELDS, this::add);
+        ready = true;
+
+        log.info("Recipe ingredient index loaded with {} recipes", size());
+    }
+
+    /**
+     * Drops every indexed recipe and loads them all again, filters are answered by the store until the load is done.
+     */
+    public synchronized void reload() {
+        if (!enabled) {
+            return;
+        }
+
+        ready = false;
+        lock.writeLock().lock();
+        try {
+            clearAll();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        load();
+    }
+
+    /**
+     * Ids after the page cursor of the recipes matching the vegetarian, servings and ingredient criteria of the
+     * filter, in id order and at most limit of them. Empty when the index is disabled, still loading, the filter has
+     * none of those criteria or a matching id is not an ObjectId and can not be paged in id order.
+     */
+    public Optional<List<ObjectId>> findIds(RecipeFilter filter, ObjectId lastId, int limit) {
+        if (!ready || !isIndexed(filter)) {
+            return Optional.empty();
+        }
+
+        lock.readLock().lock();
+        try {
+            BitSet matches = matches(filter);
+
+            List<ObjectId> tail = new ArrayList<>();
+            for (int ordinal = matches.nextSetBit(sortedOrdinals); ordinal >= 0; ordinal = matches.nextSetBit(ordinal + 1)) {
+                ObjectId key = keys.get(ordinal);
+                if (Objects.isNull(key)) {
+                    return Optional.empty();
+                }
+                if (Objects.isNull(lastId) || key.compareTo(lastId) > 0) {
+                    tail.add(key);
+                }
+            }
+            tail.sort(null);
+
+            List<ObjectId> ids = new ArrayList<>(Math.min(limit, matches.cardinality()));
+            int tailIndex = 0;
+            int ordinal = matches.nextSetBit(firstSortedAfter(lastId));
+            while (ids.size() < limit) {
+                ObjectId next = ordinal >= 0 && ordinal < sortedOrdinals ? keys.get(ordinal) : null;
+                if (tailIndex < tail.size() && (Objects.isNull(next) || tail.get(tailIndex).compareTo(next) < 0)) {
+                    ids.add(tail.get(tailIndex++));
+                } else if (Objects.nonNull(next)) {
+                    ids.add(next);
+                    ordinal = matches.nextSetBit(ordinal + 1);
+                } else {
+                    break;
+                }
+            }
+            return Optional.of(ids);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private BitSet matches(RecipeFilter filter) {
+        BitSet matches = (BitSet) live.clone();
+        if (Objects.nonNull(filter.isVegetarian())) {
+            if (filter.isVegetarian()) {
+                matches.and(vegetarian);
+            } else {
+                matches.and(notVegetarian);
+            }
+        }
+        if (Objects.nonNull(filter.servings())) {
+            matches.and(byServings.getOrDefault(filter.servings(), new BitSet()));
+        }
+        if (Objects.nonNull(filter.includeIngredient())) {
+            matches.and(ingredientBits(filter.includeIngredient()));
+        }
+        if (Objects.nonNull(filter.excludeIngredient())) {
+            matches.andNot(ingredientBits(filter.excludeIngredient()));
+        }
+        return matches;
+    }
+
+    /**
+     * First sorted ordinal whose id is after the cursor, found by binary search over the ids of the sorted ordinals.
+     */
+    private int firstSortedAfter(ObjectId lastId) {
+        if (Objects.isNull(lastId)) {
+            return 0;
+        }
+        int low = 0;
+        int high = sortedOrdinals;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (keys.get(middle).compareTo(lastId) <= 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    public void add(Recipe recipe) {
+        if (!enabled) {
+            return;
+        }
+
+        lock.writeLock().lock();
+        try {
+            Integer ordinal = ordinals.get(recipe.id());
+            if (Objects.isNull(ordinal)) {
+                ordinal = nextOrdinal(recipe.id());
+                ordinals.put(recipe.id(), ordinal);
+            } else {
+                clear(ordinal);
+            }
+
+            index(ordinal, new IndexedRecipe(recipe.id(), recipe.isVegetarian(), recipe.servings(),
+                    ingredientDictionary.encode(Objects.requireNonNullElse(recipe.ingredients(), List.of()))));
+            renumberIfUnsorted();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Reloads the indexed values of the given recipes, for writes that do not return the stored document.
+     */
+    public void refresh(Collection<String> ids) {
+        if (!enabled || ids.isEmpty()) {
+            return;
+        }
+
+        recipeStore.findAllById(ids).forEach(this::add);
+    }
+
+    public void remove(String id) {
+        if (!enabled) {
+            return;
+        }
+
+        lock.writeLock().lock();
+        try {
+            Integer ordinal = ordinals.remove(id);
+            if (Objects.nonNull(ordinal)) {
+                clear(ordinal);
+                recipes.set(ordinal, null);
+                renumberIfUnsorted();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return live.cardinality();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Number of ordinals handed out, live or removed.
+     */
+    int capacity() {
+        lock.readLock().lock();
+        try {
+            return recipes.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Number of ordinals out of id order.
+     */
+    int unsortedOrdinals() {
+        lock.readLock().lock();
+        try {
+            return recipes.size() - sortedOrdinals;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private int nextOrdinal(String id) {
+        ObjectId key = ObjectId.isValid(id) ? new ObjectId(id) : null;
+        int ordinal = recipes.size();
+        if (sortedOrdinals == ordinal && Objects.nonNull(key)
+                && (ordinal == 0 || keys.get(ordinal - 1).compareTo(key) < 0)) {
+            sortedOrdinals++;
+        }
+        recipes.add(null);
+        keys.add(key);
+        return ordinal;
+    }
+
+    private void index(int ordinal, IndexedRecipe indexed) {
+        recipes.set(ordinal, indexed);
+        live.set(ordinal);
+        if (Objects.nonNull(indexed.isVegetarian())) {
+            (indexed.isVegetarian() ? vegetarian : notVegetarian).set(ordinal);
+        }
+        if (Objects.nonNull(indexed.servings())) {
+            byServings.computeIfAbsent(indexed.servings(), servings -> new BitSet()).set(ordinal);
+        }
+        for (String ingredient : indexed.ingredients()) {
+            byIngredient.computeIfAbsent(ingredient, key -> new BitSet()).set(ordinal);
+        }
+    }
+
+    /**
+     * Hands out the ordinals again in id order once too many are out of order or removed, ids that are not
+     * ObjectIds go last. Costs a sort of the live recipes, paid by one write every so many.
+     */
+    private void renumberIfUnsorted() {
+        int unsorted = recipes.size() - sortedOrdinals;
+        int removed = recipes.size() - live.cardinality();
+        if (unsorted <= MAX_UNSORTED_ORDINALS && removed <= Math.max(MAX_UNSORTED_ORDINALS, live.cardinality())) {
+            return;
+        }
+
+        List<IndexedRecipe> indexed = live.stream()
+                .mapToObj(recipes::get)
+                .sorted(Comparator.comparing((IndexedRecipe recipe) -> ObjectId.isValid(recipe.id()) ? new ObjectId(recipe.id()) : null,
+                        Comparator.nullsLast(Comparator.naturalOrder())))
+                .toList();
+        clearAll();
+        for (IndexedRecipe recipe : indexed) {
+            int ordinal = nextOrdinal(recipe.id());
+            ordinals.put(recipe.id(), ordinal);
+            index(ordinal, recipe);
+        }
+    }
+
+    private void clearAll() {
+        ordinals.clear();
+        recipes.clear();
+        keys.clear();
+        sortedOrdinals = 0;
+        byIngredient.clear();
+        byServings.clear();
+        vegetarian.clear();
+        notVegetarian.clear();
+        live.clear();
+    }
+
+    private void clear(int ordinal) {
+        IndexedRecipe previous = recipes.get(ordinal);
+        live.clear(ordinal);
+        vegetarian.clear(ordinal);
+        notVegetarian.clear(ordinal);
+        if (Objects.nonNull(previous)) {
+            if (Objects.nonNull(previous.servings())) {
+                clear(byServings, previous.servings(), ordinal);
+            }
+            for (String ingredient : previous.ingredients()) {
+                clear(byIngredient, ingredient, ordinal);
+            }
+        }
+    }
+
+    private static <T> void clear(Map<T, BitSet> bitmaps, T value, int ordinal) {
+        // a recipe listing an ingredient twice has already emptied and dropped its bitmap
+        BitSet bits = bitmaps.get(value);
+        if (Objects.isNull(bits)) {
+            return;
+        }
+        bits.clear(ordinal);
+        if (bits.isEmpty()) {
+            bitmaps.remove(value);
+        }
+    }
+
+    private BitSet ingredientBits(String ingredient) {
+        return byIngredient.getOrDefault(ingredient, new BitSet());
+    }
+
+    private static boolean isIndexed(RecipeFilter filter) {
+        return Objects.nonNull(filter.isVegetarian())
+                || Objects.nonNull(filter.servings())
+                || Objects.nonNull(filter.includeIngredient())
+                || Objects.nonNull(filter.excludeIngredient());
+    }
+
+    /**
+     * The vegetarian flag and servings are null for recipes stored without them.
+     */
+    private record IndexedRecipe(String id, Boolean isVegetarian, Integer servings, String[] ingredients) {
+    }
+}
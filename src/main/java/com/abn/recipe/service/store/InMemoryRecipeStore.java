@@ -0,0 +1,549 @@
+package com.abn.recipe.service.store;
+
+import com.abn.recipe.exception.ResourceAlreadyExistException;
+import com.abn.recipe.model.RecipeFacetCount;
+import com.abn.recipe.model.RecipeFacets;
+import com.abn.recipe.model.RecipeFilter;
+import com.abn.recipe.model.RecipeProjection;
+import com.abn.recipe.model.mongo.Recipe;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Recipes kept in the heap of this instance, for edge deployments and offline benchmarks. Recipes are held in a
+ * skip list ordered by id next to secondary id sets per vegetarian flag, servings and ingredient. Writes lock a
+ * stripe picked by the recipe id, reads take no lock at all: they walk the most selective id set and check every
+ * recipe against the whole filter, so an index entry a write has not cleaned up yet is never returned.
+ * Instructions match as a case insensitive substring. When a snapshot file is set the recipes are loaded from it
+ * on start and written back periodically and on shutdown.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "recipe.storage.type", havingValue = "memory")
+public class InMemoryRecipeStore implements RecipeStore, SmartLifecycle {
+
+    private static final String ALREADY_EXISTS = "Recipe already exists";
+
+    private static final int STRIPES = 64;
+
+    private final ConcurrentSkipListMap<String, Recipe> recipes = new ConcurrentSkipListMap<>();
+
+    private final Map<String, String> idsByName = new ConcurrentHashMap<>();
+
+    private final NavigableSet<String> vegetarianIds = new ConcurrentSkipListSet<>();
+
+    private final NavigableSet<String> nonVegetarianIds = new ConcurrentSkipListSet<>();
+
+    private final Map<Integer, NavigableSet<String>> idsByServings = new ConcurrentHashMap<>();
+
+    private final Map<String, NavigableSet<String>> idsByIngredient = new ConcurrentHashMap<>();
+
+    private final Lock[] stripes = new Lock[STRIPES];
+
+    /**
+     * Version the ETags are built from. It is restored from the snapshot, so a restart without writes in between
+     * keeps every ETag valid. Without a snapshot the recipes of the earlier run are gone, so it starts at the clock
+     * and the ETags of that run no longer match. Writes move it to at least the clock too, so versions handed out
+     * after a crash never repeat ones an earlier run put in an ETag after its last snapshot.
+     */
+    private final AtomicLong version = new AtomicLong(System.currentTimeMillis());
+
+    private final ObjectMapper objectMapper = JsonMapper.builder().build();
+
+    private final Path snapshotFile;
+
+    private final Duration snapshotInterval;
+
+    private long snapshotVersion;
+
+    private ScheduledExecutorService snapshots;
+
+    private volatile boolean running;
+
+    public InMemoryRecipeStore(@Value("${recipe.storage.memory.snapshot-file:}") String snapshotFile,
+                               @Value("${recipe.storage.memory.snapshot-interval:1m}") Duration snapshotInterval) {
+        this.snapshotFile = StringUtils.isBlank(snapshotFile) ? null : Path.of(snapshotFile);
+        this.snapshotInterval = snapshotInterval;
+        for (int stripe = 0; stripe < STRIPES; stripe++) {
+            stripes[stripe] = new ReentrantLock();
+        }
+    }
+
+    @Override
+    public Recipe insert(Recipe recipe) {
+        return insertWithId(recipe.toBuilder().id(new ObjectId().toHexString()).version(0L).build());
+    }
+
+    @Override
+    public Optional<Recipe> update(Recipe recipe, Recipe cached) {
+        String id = recipe.id();
+        Lock lock = stripe(id);
+        lock.lock();
+        try {
+            Recipe current = recipes.get(id);
+            if (Objects.isNull(current) || (Objects.nonNull(recipe.version()) && !recipe.version().equals(current.version()))) {
+                return Optional.empty();
+            }
+
+            // a recipe stored without a version gets version 1, as the increment of a missing field does in Mongo
+            Recipe updated = recipe.toBuilder().version(Objects.requireNonNullElse(current.version(), 0L) + 1).build();
+            boolean renamed = !Objects.equals(current.name(), updated.name());
+            if (renamed) {
+                claimName(updated);
+            }
+            put(updated, current);
+            if (renamed && Objects.nonNull(current.name())) {
+                idsByName.remove(current.name(), id);
+            }
+            nextVersion();
+            return Optional.of(updated);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public boolean existsById(String id) {
+        return recipes.containsKey(id);
+    }
+
+    @Override
+    public boolean deleteById(String id) {
+        return delete(id);
+    }
+
+    @Override
+    public Optional<Recipe> findById(String id) {
+        return Optional.ofNullable(recipes.get(id));
+    }
+
+    @Override
+    public List<Recipe> findAllById(Collection<String> ids) {
+        return ids.stream()
+                .map(recipes::get)
+                .filter(Objects::nonNull)
+                .toList();
+    }
+
+    @Override
+    public List<Recipe> find(RecipeFilter filter, RecipeProjection projection, ObjectId lastId, List<ObjectId> candidateIds, int pageSize) {
+        Iterable<String> ids;
+        if (Objects.nonNull(candidateIds)) {
+            ids = candidateIds.stream().map(ObjectId::toHexString).toList();
+        } else {
+            NavigableSet<String> source = source(filter);
+            ids = Objects.nonNull(lastId) ? source.tailSet(lastId.toHexString(), false) : source;
+        }
+
+        String after = Objects.nonNull(lastId) ? lastId.toHexString() : null;
+        List<Recipe> page = new ArrayList<>(pageSize + 1);
+        for (String id : ids) {
+            Recipe recipe = recipes.get(id);
+            if (Objects.nonNull(recipe) && (Objects.isNull(after) || id.compareTo(after) > 0) && matches(filter, recipe)) {
+                page.add(projection.applyTo(recipe));
+                if (page.size() > pageSize) {
+                    break;
+                }
+            }
+        }
+        return page;
+    }
+
+    @Override
+    public void streamAll(RecipeProjection projection, Consumer<Recipe> consumer) {
+        recipes.values().forEach(recipe -> consumer.accept(projection.applyTo(recipe)));
+    }
+
+    /**
+     * Counts in one pass over the recipes matching the filter, sorted as the Mongo aggregation sorts them.
+     */
+    @Override
+    public RecipeFacets facets(RecipeFilter filter, int topIngredients) {
+        long total = 0;
+        Map<Boolean, Long> byVegetarian = new TreeMap<>(Comparator.reverseOrder());
+        Map<Integer, Long> byServings = new TreeMap<>();
+        Map<String, Long> byIngredient = new TreeMap<>();
+        for (String id : source(filter)) {
+            Recipe recipe = recipes.get(id);
+            if (Objects.isNull(recipe) || !matches(filter, recipe)) {
+                continue;
+            }
+            total++;
+            if (Objects.nonNull(recipe.isVegetarian())) {
+                byVegetarian.merge(recipe.isVegetarian(), 1L, Long::sum);
+            }
+            if (Objects.nonNull(recipe.servings())) {
+                byServings.merge(recipe.servings(), 1L, Long::sum);
+            }
+            ingredients(recipe).forEach(ingredient -> byIngredient.merge(ingredient, 1L, Long::sum));
+        }
+
+        List<RecipeFacetCount<String>> ingredients = byIngredient.entrySet().stream()
+                .sorted(Map.Entry.<String, Long>comparingByValue().reversed())
+                .limit(topIngredients)
+                .map(count -> new RecipeFacetCount<>(count.getKey(), count.getValue()))
+                .toList();
+        return new RecipeFacets(total, facetCounts(byVegetarian), facetCounts(byServings), ingredients);
+    }
+
+    /**
+     * Applies the operations one after the other. An update of a recipe at another version is reported as
+     * CONFLICT, an update or delete of a missing recipe as NOT_FOUND, neither stops an ordered batch.
+     */
+    @Override
+    public RecipeBulkResult bulk(List<RecipeBulkOperation> operations, boolean ordered) {
+        List<RecipeBulkResult.Item> items = new ArrayList<>(operations.size());
+        int inserted = 0;
+        int modified = 0;
+        int deleted = 0;
+        boolean failed = false;
+        for (RecipeBulkOperation operation : operations) {
+            Recipe recipe = switch (operation.type()) {
+                case CREATE -> operation.recipe().toBuilder().id(new ObjectId().toHexString()).version(0L).build();
+                case UPDATE -> operation.recipe().toBuilder().id(operation.id()).build();
+                case DELETE -> Recipe.builder().id(operation.id()).build();
+            };
+            RecipeBulkResult.Status status;
+            String message = null;
+
+            if (ordered && failed) {
+                status = RecipeBulkResult.Status.SKIPPED;
+            } else {
+                try {
+                    switch (operation.type()) {
+                        case CREATE -> {
+                            recipe = insertWithId(recipe);
+                            inserted++;
+                            status = RecipeBulkResult.Status.APPLIED;
+                        }
+                        case UPDATE -> {
+                            Optional<Recipe> updated = update(recipe, null);
+                            if (updated.isPresent()) {
+                                recipe = updated.get();
+                                modified++;
+                                status = RecipeBulkResult.Status.APPLIED;
+                            } else {
+                                status = recipes.containsKey(operation.id())
+                                        ? RecipeBulkResult.Status.CONFLICT : RecipeBulkResult.Status.NOT_FOUND;
+                            }
+                        }
+                        default -> {
+                            if (delete(operation.id())) {
+                                deleted++;
+                                status = RecipeBulkResult.Status.APPLIED;
+                            } else {
+                                status = RecipeBulkResult.Status.NOT_FOUND;
+                            }
+                        }
+                    }
+                } catch (ResourceAlreadyExistException e) {
+                    status = RecipeBulkResult.Status.FAILED;
+                    message = e.getMessage();
+                    failed = true;
+                }
+            }
+            items.add(new RecipeBulkResult.Item(status, recipe, message));
+        }
+
+        return new RecipeBulkResult(inserted, modified, modified, deleted, items);
+    }
+
+    @Override
+    public long version() {
+        return version.get();
+    }
+
+    public int size() {
+        return recipes.size();
+    }
+
+    @Override
+    public void start() {
+        loadSnapshot();
+        if (Objects.nonNull(snapshotFile) && !snapshotInterval.isZero()) {
+            snapshots = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "recipe-snapshot");
+                thread.setDaemon(true);
+                return thread;
+            });
+            long interval = snapshotInterval.toMillis();
+            snapshots.scheduleWithFixedDelay(this::snapshotQuietly, interval, interval, TimeUnit.MILLISECONDS);
+        }
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        if (Objects.nonNull(snapshots)) {
+            snapshots.shutdown();
+        }
+        if (Objects.nonNull(snapshotFile)) {
+            snapshot();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Loads before the web server starts taking requests and saves after it stopped.
+     */
+    @Override
+    public int getPhase() {
+        return 0;
+    }
+
+    /**
+     * Writes every recipe to a temporary file next to the snapshot file and moves it over the snapshot, so a crash
+     * while writing never leaves a truncated snapshot. Writes go on meanwhile and each recipe is saved as it was
+     * when the copy reached it. Nothing is written when the store did not change since the last snapshot.
+     */
+    public synchronized void snapshot() {
+        long currentVersion = version.get();
+        if (Objects.isNull(snapshotFile) || currentVersion == snapshotVersion) {
+            return;
+        }
+
+        try {
+            Path directory = snapshotFile.toAbsolutePath().getParent();
+            Files.createDirectories(directory);
+            Path temporary = Files.createTempFile(directory, snapshotFile.getFileName().toString(), ".tmp");
+            try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(temporary))) {
+                objectMapper.writeValue(out, new Snapshot(currentVersion, List.copyOf(recipes.values())));
+            }
+            Files.move(temporary, snapshotFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Recipe snapshot " + snapshotFile + " could not be written", e);
+        }
+        snapshotVersion = currentVersion;
+
+        log.info("Recipe snapshot written with {} recipes at version {}", recipes.size(), currentVersion);
+    }
+
+    private void snapshotQuietly() {
+        try {
+            snapshot();
+        } catch (RuntimeException e) {
+            log.error("Recipe snapshot failed, retrying in {}", snapshotInterval, e);
+        }
+    }
+
+    private synchronized void loadSnapshot() {
+        if (Objects.isNull(snapshotFile) || !Files.exists(snapshotFile)) {
+            snapshotVersion = version.get();
+            return;
+        }
+
+        Snapshot snapshot;
+        try (InputStream in = new GZIPInputStream(Files.newInputStream(snapshotFile))) {
+            snapshot = objectMapper.readValue(in, Snapshot.class);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Recipe snapshot " + snapshotFile + " could not be read", e);
+        }
+        snapshot.recipes().forEach(this::putNew);
+        version.set(snapshot.version());
+        snapshotVersion = snapshot.version();
+
+        log.info("Recipe snapshot loaded with {} recipes at version {}", snapshot.recipes().size(), snapshot.version());
+    }
+
+    private Recipe insertWithId(Recipe recipe) {
+        putNew(recipe);
+        nextVersion();
+        return recipe;
+    }
+
+    private void putNew(Recipe recipe) {
+        claimName(recipe);
+        Lock lock = stripe(recipe.id());
+        lock.lock();
+        try {
+            put(recipe, null);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private boolean delete(String id) {
+        Lock lock = stripe(id);
+        lock.lock();
+        try {
+            Recipe removed = recipes.remove(id);
+            if (Objects.isNull(removed)) {
+                return false;
+            }
+            unindex(removed, null);
+            if (Objects.nonNull(removed.name())) {
+                idsByName.remove(removed.name(), id);
+            }
+            nextVersion();
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void nextVersion() {
+        version.accumulateAndGet(System.currentTimeMillis(), (current, now) -> Math.max(current + 1, now));
+    }
+
+    /**
+     * Names are unique, the first write claiming a name wins.
+     */
+    private void claimName(Recipe recipe) {
+        if (Objects.nonNull(recipe.name()) && Objects.nonNull(idsByName.putIfAbsent(recipe.name(), recipe.id()))) {
+            throw new ResourceAlreadyExistException(ALREADY_EXISTS);
+        }
+    }
+
+    /**
+     * Indexes the new values before the recipe is visible and drops the old ones after, so a concurrent read
+     * never misses the recipe in an index it matches. Callers hold the stripe of the recipe.
+     */
+    private void put(Recipe recipe, Recipe previous) {
+        index(recipe);
+        recipes.put(recipe.id(), recipe);
+        if (Objects.nonNull(previous)) {
+            unindex(previous, recipe);
+        }
+    }
+
+    private void index(Recipe recipe) {
+        vegetarianIds(recipe.isVegetarian()).add(recipe.id());
+        if (Objects.nonNull(recipe.servings())) {
+            addId(idsByServings, recipe.servings(), recipe.id());
+        }
+        ingredients(recipe).forEach(ingredient -> addId(idsByIngredient, ingredient, recipe.id()));
+    }
+
+    /**
+     * Removes the index entries of the previous values the current recipe does not share, all of them when the
+     * recipe is gone.
+     */
+    private void unindex(Recipe previous, Recipe current) {
+        String id = previous.id();
+        if (Objects.isNull(current) || Boolean.TRUE.equals(previous.isVegetarian()) != Boolean.TRUE.equals(current.isVegetarian())) {
+            vegetarianIds(previous.isVegetarian()).remove(id);
+        }
+        if (Objects.nonNull(previous.servings()) && (Objects.isNull(current) || !previous.servings().equals(current.servings()))) {
+            removeId(idsByServings, previous.servings(), id);
+        }
+        for (String ingredient : ingredients(previous)) {
+            if (Objects.isNull(current) || !ingredients(current).contains(ingredient)) {
+                removeId(idsByIngredient, ingredient, id);
+            }
+        }
+    }
+
+    /**
+     * Adds and removes run in the map's per key lock, so a set is never dropped while another write adds to it.
+     */
+    private static <T> void addId(Map<T, NavigableSet<String>> idsByValue, T value, String id) {
+        idsByValue.compute(value, (key, ids) -> {
+            NavigableSet<String> values = Objects.requireNonNullElseGet(ids, ConcurrentSkipListSet::new);
+            values.add(id);
+            return values;
+        });
+    }
+
+    /**
+     * Drops the set once it is empty, so values no recipe has anymore do not keep an entry.
+     */
+    private static <T> void removeId(Map<T, NavigableSet<String>> idsByValue, T value, String id) {
+        idsByValue.computeIfPresent(value, (key, ids) -> {
+            ids.remove(id);
+            return ids.isEmpty() ? null : ids;
+        });
+    }
+
+    /**
+     * Smallest id set the filter narrows the recipes to, an ingredient is usually the most selective.
+     */
+    private NavigableSet<String> source(RecipeFilter filter) {
+        if (Objects.nonNull(filter.includeIngredient())) {
+            return idsByIngredient.getOrDefault(filter.includeIngredient(), new ConcurrentSkipListSet<>());
+        }
+        if (Objects.nonNull(filter.servings())) {
+            return idsByServings.getOrDefault(filter.servings(), new ConcurrentSkipListSet<>());
+        }
+        if (Objects.nonNull(filter.isVegetarian())) {
+            return vegetarianIds(filter.isVegetarian());
+        }
+        return recipes.keySet();
+    }
+
+    private NavigableSet<String> vegetarianIds(Boolean isVegetarian) {
+        return Boolean.TRUE.equals(isVegetarian) ? vegetarianIds : nonVegetarianIds;
+    }
+
+    private Lock stripe(String id) {
+        return stripes[Math.floorMod(id.hashCode(), STRIPES)];
+    }
+
+    private static boolean matches(RecipeFilter filter, Recipe recipe) {
+        return (Objects.isNull(filter.isVegetarian()) || filter.isVegetarian().equals(recipe.isVegetarian()))
+                && (Objects.isNull(filter.servings()) || filter.servings().equals(recipe.servings()))
+                && (Objects.isNull(filter.includeIngredient()) || ingredients(recipe).contains(filter.includeIngredient()))
+                && (Objects.isNull(filter.excludeIngredient()) || !ingredients(recipe).contains(filter.excludeIngredient()))
+                && (Objects.isNull(filter.instruction()) || containsIgnoreCase(recipe.instructions(), filter.instruction()));
+    }
+
+    private static boolean containsIgnoreCase(String instructions, String instruction) {
+        return Objects.nonNull(instructions)
+                && instructions.toLowerCase(Locale.ROOT).contains(instruction.toLowerCase(Locale.ROOT));
+    }
+
+    private static List<String> ingredients(Recipe recipe) {
+        return Objects.requireNonNullElse(recipe.ingredients(), List.of());
+    }
+
+    private static <T> List<RecipeFacetCount<T>> facetCounts(Map<T, Long> counts) {
+        return counts.entrySet().stream()
+                .map(count -> new RecipeFacetCount<>(count.getKey(), count.getValue()))
+                .toList();
+    }
+
+    private record Snapshot(long version, List<Recipe> recipes) {
+    }
+}
@@ -0,0 +1,271 @@
+package com.abn.recipe.service.store;
+
+import com.abn.recipe.exception.ResourceAlreadyExistException;
+import com.abn.recipe.model.RecipeFacets;
+import com.abn.recipe.model.RecipeFilter;
+import com.abn.recipe.model.RecipeProjection;
+import com.abn.recipe.model.mongo.Recipe;
+import com.abn.recipe.repository.mongo.RecipeRepository;
+import com.abn.recipe.service.RecipeCollectionVersion;
+import com.abn.recipe.service.RecipeQueries;
+import com.mongodb.ErrorCategory;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.bulk.BulkWriteResult;
+import lombok.RequiredArgsConstructor;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.util.CloseableIterator;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+import static com.abn.recipe.service.RecipeQueries.byIdAndVersion;
+import static com.abn.recipe.service.RecipeQueries.toUpdate;
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+/**
+ * Recipes kept in the recipes collection of Mongo, the default store. Every write is a single command, the version
+ * is the {@link RecipeCollectionVersion} of this instance, which the service increments after the write.
+ */
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "recipe.storage.type", havingValue = "mongo", matchIfMissing = true)
+public class MongoRecipeStore implements RecipeStore {
+
+    private static final String ALREADY_EXISTS = "Recipe already exists";
+
+    private final RecipeRepository recipeRepository;
+
+    private final MongoTemplate mongoTemplate;
+
+    private final RecipeQueries recipeQueries;
+
+    private final RecipeCollectionVersion recipeCollectionVersion;
+
+    @Value("${recipe.stream.batch-size:500}")
+    private int streamBatchSize;
+
+    @Override
+    public Recipe insert(Recipe recipe) {
+        try {
+            return recipeRepository.insert(recipe);
+        } catch (DuplicateKeyException e) {
+            throw new ResourceAlreadyExistException(ALREADY_EXISTS);
+        }
+    }
+
+    /**
+     * Sets the recipe fields in a single findAndModify guarded by the version when one is given.
+     */
+    @Override
+    public Optional<Recipe> update(Recipe recipe, Recipe cached) {
+        try {
+            return Optional.ofNullable(mongoTemplate.findAndModify(byIdAndVersion(recipe.id(), recipe.version()), toUpdate(recipe, cached),
+                    FindAndModifyOptions.options().returnNew(true), Recipe.class));
+        } catch (DuplicateKeyException e) {
+            throw new ResourceAlreadyExistException(ALREADY_EXISTS);
+        }
+    }
+
+    @Override
+    public boolean existsById(String id) {
+        return recipeRepository.existsById(id);
+    }
+
+    @Override
+    public boolean deleteById(String id) {
+        return mongoTemplate.remove(byIdAndVersion(id, null), Recipe.class).getDeletedCount() > 0;
+    }
+
+    @Override
+    public Optional<Recipe> findById(String id) {
+        return recipeRepository.findById(id);
+    }
+
+    /**
+     * Reads all the ids with a single $in query.
+     */
+    @Override
+    public List<Recipe> findAllById(Collection<String> ids) {
+        List<Recipe> recipes = new ArrayList<>(ids.size());
+        recipeRepository.findAllById(ids).forEach(recipes::add);
+        return recipes;
+    }
+
+    @Override
+    public List<Recipe> find(RecipeFilter filter, RecipeProjection projection, ObjectId lastId, List<ObjectId> candidateIds, int pageSize) {
+        return mongoTemplate.find(recipeQueries.pageQuery(filter, projection, RecipeQueries.pageCriteria(lastId, candidateIds), pageSize),
+                Recipe.class);
+    }
+
+    @Override
+    public void streamAll(RecipeProjection projection, Consumer<Recipe> consumer) {
+        Query query = new Query().cursorBatchSize(streamBatchSize);
+        projection.applyTo(query);
+        try (CloseableIterator<Recipe> recipes = mongoTemplate.stream(query, Recipe.class)) {
+            recipes.forEachRemaining(consumer);
+        }
+    }
+
+    @Override
+    public RecipeFacets facets(RecipeFilter filter, int topIngredients) {
+        return RecipeQueries.toFacets(mongoTemplate.aggregate(
+                recipeQueries.facetAggregation(filter, topIngredients), Recipe.class, Document.class).getUniqueMappedResult());
+    }
+
+    /**
+     * Reads the versions of the targeted recipes with a single $in query and sends the operations that match them
+     * in a single bulk write. An update of a recipe at another version is reported as CONFLICT, an update or delete
+     * of a missing recipe as NOT_FOUND, neither stops an ordered batch. Mongo reports the failed operations, in an
+     * ordered batch the ones after the first failure are skipped. When another writer got in between the read and
+     * the write, the updates are checked again against the stored versions.
+     */
+    @Override
+    public RecipeBulkResult bulk(List<RecipeBulkOperation> operations, boolean ordered) {
+        Map<String, Long> versions = versions(operations);
+        BulkOperations bulkOperations = mongoTemplate.bulkOps(
+                ordered ? BulkOperations.BulkMode.ORDERED : BulkOperations.BulkMode.UNORDERED, Recipe.class);
+        List<Recipe> recipes = new ArrayList<>(operations.size());
+        RecipeBulkResult.Status[] statuses = new RecipeBulkResult.Status[operations.size()];
+        List<Integer> sent = new ArrayList<>(operations.size());
+        for (int index = 0; index < operations.size(); index++) {
+            RecipeBulkOperation operation = operations.get(index);
+            switch (operation.type()) {
+                case CREATE -> {
+                    Recipe recipe = operation.recipe().toBuilder()
+                            .id(new ObjectId().toHexString())
+                            .version(0L)
+                            .build();
+                    bulkOperations.insert(recipe);
+                    sent.add(index);
+                    recipes.add(recipe);
+                }
+                case UPDATE -> {
+                    Long expectedVersion = operation.recipe().version();
+                    if (!versions.containsKey(operation.id())) {
+                        statuses[index] = RecipeBulkResult.Status.NOT_FOUND;
+                    } else if (Objects.nonNull(expectedVersion) && !expectedVersion.equals(versions.get(operation.id()))) {
+                        statuses[index] = RecipeBulkResult.Status.CONFLICT;
+                    } else {
+                        bulkOperations.updateOne(byIdAndVersion(operation.id(), expectedVersion), toUpdate(operation.recipe()));
+                        sent.add(index);
+                        versions.put(operation.id(), Objects.requireNonNullElse(versions.get(operation.id()), 0L) + 1);
+                    }
+                    recipes.add(operation.recipe().toBuilder().id(operation.id()).build());
+                }
+                case DELETE -> {
+                    if (!versions.containsKey(operation.id())) {
+                        statuses[index] = RecipeBulkResult.Status.NOT_FOUND;
+                    } else {
+                        bulkOperations.remove(byIdAndVersion(operation.id(), null));
+                        sent.add(index);
+                        versions.remove(operation.id());
+                    }
+                    recipes.add(Recipe.builder().id(operation.id()).build());
+                }
+            }
+        }
+
+        BulkWriteResult result = BulkWriteResult.acknowledged(0, 0, 0, 0, List.of());
+        Map<Integer, BulkWriteError> errors = new HashMap<>();
+        if (!sent.isEmpty()) {
+            try {
+                result = bulkOperations.execute();
+            } catch (BulkOperationException e) {
+                result = e.getResult();
+                e.getErrors().forEach(error -> errors.put(sent.get(error.getIndex()), error));
+            }
+        }
+
+        int firstError = errors.keySet().stream().min(Integer::compare).orElse(operations.size());
+        List<Integer> updated = new ArrayList<>();
+        for (int index : sent) {
+            if (errors.containsKey(index)) {
+                statuses[index] = RecipeBulkResult.Status.FAILED;
+            } else if (!ordered || index < firstError) {
+                statuses[index] = RecipeBulkResult.Status.APPLIED;
+                if (operations.get(index).type() == RecipeBulkOperation.Type.UPDATE) {
+                    updated.add(index);
+                }
+            }
+        }
+        if (result.getMatchedCount() < updated.size()) {
+            recheck(operations, updated, versions, statuses);
+        }
+
+        List<RecipeBulkResult.Item> items = new ArrayList<>(operations.size());
+        for (int index = 0; index < operations.size(); index++) {
+            if (ordered && index > firstError) {
+                items.add(new RecipeBulkResult.Item(RecipeBulkResult.Status.SKIPPED, recipes.get(index), null));
+            } else {
+                String message = errors.containsKey(index) ? bulkErrorMessage(errors.get(index)) : null;
+                items.add(new RecipeBulkResult.Item(statuses[index], recipes.get(index), message));
+            }
+        }
+        return new RecipeBulkResult(result.getInsertedCount(), result.getMatchedCount(), result.getModifiedCount(),
+                result.getDeletedCount(), items);
+    }
+
+    @Override
+    public long version() {
+        return recipeCollectionVersion.current();
+    }
+
+    /**
+     * Stored version of every recipe the operations update or delete, missing recipes have no entry.
+     */
+    private Map<String, Long> versions(List<RecipeBulkOperation> operations) {
+        List<String> ids = operations.stream()
+                .filter(operation -> operation.type() != RecipeBulkOperation.Type.CREATE)
+                .map(RecipeBulkOperation::id)
+                .distinct()
+                .toList();
+        Map<String, Long> versions = new HashMap<>();
+        if (ids.isEmpty()) {
+            return versions;
+        }
+        Query query = new Query(where("_id").in(ids));
+        query.fields().include("version");
+        mongoTemplate.find(query, Recipe.class).forEach(recipe -> versions.put(recipe.id(), recipe.version()));
+        return versions;
+    }
+
+    /**
+     * Reports the updates whose recipe is gone or at another version than the batch left it as not applied.
+     */
+    private void recheck(List<RecipeBulkOperation> operations, List<Integer> updated, Map<String, Long> expectedVersions,
+                         RecipeBulkResult.Status[] statuses) {
+        List<RecipeBulkOperation> updates = updated.stream().map(operations::get).toList();
+        Map<String, Long> storedVersions = versions(updates);
+        for (int index : updated) {
+            String id = operations.get(index).id();
+            if (!storedVersions.containsKey(id)) {
+                statuses[index] = RecipeBulkResult.Status.NOT_FOUND;
+            } else if (!Objects.equals(storedVersions.get(id), expectedVersions.get(id))) {
+                statuses[index] = RecipeBulkResult.Status.CONFLICT;
+            }
+        }
+    }
+
+    private static String bulkErrorMessage(BulkWriteError error) {
+        if (ErrorCategory.fromErrorCode(error.getCode()) == ErrorCategory.DUPLICATE_KEY) {
+            return ALREADY_EXISTS;
+        }
+        return error.getMessage();
+    }
+}
@@ -0,0 +1,14 @@
+package com.abn.recipe.service.store;
+
+import com.abn.recipe.model.mongo.Recipe;
+
+/**
+ * One write of a bulk. Creates carry the recipe, updates the id and the recipe with the version the update applies
+ * to, deletes only the id.
+ */
+public record RecipeBulkOperation(Type type, String id, Recipe recipe) {
+
+    public enum Type {
+        CREATE, UPDATE, DELETE
+    }
+}
@@ -0,0 +1,32 @@
+package com.abn.recipe.service.store;
+
+import com.abn.recipe.model.mongo.Recipe;
+
+import java.util.List;
+
+/**
+ * Outcome of a bulk write, with one item per operation in operation order. The recipe of an item is the one its
+ * operation wrote, only the id is set for deletes.
+ */
+public record RecipeBulkResult(int inserted, int matched, int modified, int deleted, List<Item> items) {
+
+    public record Item(Status status, Recipe recipe, String message) {
+    }
+
+    public enum Status {
+        APPLIED,
+        FAILED,
+        /**
+         * Update with a version the recipe no longer has, nothing was written.
+         */
+        CONFLICT,
+        /**
+         * Update or delete of a recipe that does not exist, nothing was written.
+         */
+        NOT_FOUND,
+        /**
+         * Not attempted because an earlier operation of an ordered batch failed.
+         */
+        SKIPPED
+    }
+}
@@ -0,0 +1,66 @@
+package com.abn.recipe.service.store;
+
+import com.abn.recipe.model.RecipeFacets;
+import com.abn.recipe.model.RecipeFilter;
+import com.abn.recipe.model.RecipeProjection;
+import com.abn.recipe.model.mongo.Recipe;
+import org.bson.types.ObjectId;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+/**
+ * Storage of the recipes behind {@link com.abn.recipe.service.RecipeService}, picked with recipe.storage.type.
+ * Names are unique and ids are ObjectId hex strings. The version of the store changes with every write that changes
+ * a recipe, by the store itself or by the service. Caching, the ingredient index and metrics stay in the service.
+ */
+public interface RecipeStore {
+
+    /**
+     * Stores a new recipe with a new id and version 0.
+     *
+     * @throws com.abn.recipe.exception.ResourceAlreadyExistException when the name is taken
+     */
+    Recipe insert(Recipe recipe);
+
+    /**
+     * Replaces the fields of the recipe with the id of the given one and increments its version. When the version of
+     * the given recipe is set the update only applies to that version. Empty when no recipe matches.
+     *
+     * @param cached the recipe as last read at the given version, or null when unknown; a store may then write
+     *               only the fields that changed
+     * @throws com.abn.recipe.exception.ResourceAlreadyExistException when the new name is taken by another recipe
+     */
+    Optional<Recipe> update(Recipe recipe, Recipe cached);
+
+    boolean existsById(String id);
+
+    /**
+     * False when no recipe has the id.
+     */
+    boolean deleteById(String id);
+
+    Optional<Recipe> findById(String id);
+
+    List<Recipe> findAllById(Collection<String> ids);
+
+    /**
+     * Recipes matching the filter in id order after lastId, one more than the page size so the caller can tell
+     * whether a next page exists. When candidateIds is given only those recipes are considered.
+     */
+    List<Recipe> find(RecipeFilter filter, RecipeProjection projection, ObjectId lastId, List<ObjectId> candidateIds, int pageSize);
+
+    void streamAll(RecipeProjection projection, Consumer<Recipe> consumer);
+
+    RecipeFacets facets(RecipeFilter filter, int topIngredients);
+
+    /**
+     * Applies the operations, which are already validated, and reports the outcome of every one. An ordered batch
+     * stops at the first failure.
+     */
+    RecipeBulkResult bulk(List<RecipeBulkOperation> operations, boolean ordered);
+
+    long version();
+}
@@ -0,0 +1,36 @@
+package com.abn.recipe.actuator;
+
+import com.abn.recipe.controller.config.IntegrationBaseTest;
+import org.junit.jupiter.api.Test;
+
+import static io.restassured.RestAssured.given;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class PrometheusEndpointTest extends IntegrationBaseTest {
+
+    @Test
+    void requestAndMongoMetricsAreScraped() {
+        given()
+                .when()
+                .get("/v1/recipe?isVegetarian=true")
+                .then()
+                .statusCode(200);
+
+        String scrape = given()
+                .when()
+                .get("/management/prometheus")
+                .then()
+                .statusCode(200)
+                .extract()
+                .asString();
+
+        assertThat(scrape)
+                .contains("http_server_requests_seconds_bucket{")
+                .contains("uri=\"/v1/recipe\"")
+                .contains("mongodb_driver_commands_seconds_bucket{")
+                .contains("collection=\"recipes\"")
+                .contains("mongodb_driver_pool_size{")
+                .contains("recipe_find_results_recipes_count{filtered=\"true\"")
+                .contains("recipe_admission_requests_total{budget=\"read\",outcome=\"admitted\"");
+    }
+}
@@ -0,0 +1,59 @@
+package com.abn.recipe.actuator;
+
+import com.abn.recipe.controller.config.IntegrationBaseTest;
+import com.abn.recipe.repository.mongo.RecipeIndexProvisioner;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.time.Duration;
+import java.util.Map;
+
+import static io.restassured.RestAssured.given;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class RecipeIndexEndpointTest extends IntegrationBaseTest {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(10);
+
+    @Autowired
+    private RecipeIndexProvisioner recipeIndexProvisioner;
+
+    @Test
+    void indexesAreBuiltInTheBackgroundAfterStartup() throws InterruptedException {
+        awaitIndexes();
+
+        Map<String, String> indexes = given()
+                .when()
+                .get("/management/recipeindexes")
+                .then()
+                .statusCode(200)
+                .extract()
+                .jsonPath()
+                .getMap("");
+
+        assertThat(indexes).containsOnlyKeys(
+                RecipeIndexProvisioner.NAME_UNIQUE_INDEX,
+                RecipeIndexProvisioner.INGREDIENTS_INDEX,
+                RecipeIndexProvisioner.VEGETARIAN_SERVINGS_INDEX,
+                RecipeIndexProvisioner.INSTRUCTIONS_TEXT_INDEX);
+        assertThat(indexes).allSatisfy((name, status) -> assertThat(status).isEqualTo("READY"));
+    }
+
+    @Test
+    void readinessIncludesIndexes() throws InterruptedException {
+        awaitIndexes();
+
+        given()
+                .when()
+                .get("/management/health/readiness")
+                .then()
+                .statusCode(200);
+    }
+
+    private void awaitIndexes() throws InterruptedException {
+        long deadline = System.nanoTime() + TIMEOUT.toNanos();
+        while (!recipeIndexProvisioner.isReady() && System.nanoTime() < deadline) {
+            Thread.sleep(50);
+        }
+    }
+}
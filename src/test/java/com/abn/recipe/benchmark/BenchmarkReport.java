@@ -0,0 +1,25 @@
+package com.abn.recipe.benchmark;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Writes the CSV report of a benchmark or load run under target, next to the other build reports.
+ */
+public final class BenchmarkReport {
+
+    private BenchmarkReport() {
+    }
+
+    /**
+     * Writes the lines to target/directory/fileName and returns the path of the report.
+     */
+    public static Path write(String directory, String fileName, List<String> lines) throws IOException {
+        Path report = Path.of("target", directory, fileName);
+        Files.createDirectories(report.getParent());
+        Files.write(report, lines);
+        return report;
+    }
+}
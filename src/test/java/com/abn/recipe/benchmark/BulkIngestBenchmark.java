@@ -0,0 +1,97 @@
+package com.abn.recipe.benchmark;
+
+import com.abn.recipe.controller.config.IntegrationBaseTest;
+import com.abn.recipe.controller.vo.RecipeBulkOperationType;
+import com.abn.recipe.controller.vo.RecipeBulkOperationVO;
+import com.abn.recipe.controller.vo.RecipeBulkRequestVO;
+import com.abn.recipe.controller.vo.RecipeVO;
+import com.abn.recipe.model.mongo.Recipe;
+import com.abn.recipe.repository.mongo.RecipeRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.io.IOException;
+import java.util.List;
+
+import static io.restassured.RestAssured.given;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Compares the ingest throughput of one POST per recipe with the bulk endpoint.
+ * Run with mvn test -Pbenchmark -Dtest=BulkIngestBenchmark, the required speedup can be changed with -Dbenchmark.bulk.min-speedup.
+ */
+@Tag("benchmark")
+public class BulkIngestBenchmark extends IntegrationBaseTest {
+
+    private static final int RECIPES = 2_000;
+
+    private static final int BATCH_SIZE = 500;
+
+    @Autowired
+    private RecipeRepository recipeRepository;
+
+    @BeforeEach
+    public void beforeEach() {
+        recipeRepository.deleteAll();
+    }
+
+    @Test
+    public void bulkIngestIsFasterThanSingleRecordIngest() throws IOException {
+        List<RecipeVO> recipes = new RecipeDataset(RECIPES).recipes(RECIPES * 2).stream()
+                .map(BulkIngestBenchmark::toVO)
+                .toList();
+
+        long singleStart = System.nanoTime();
+        for (RecipeVO recipe : recipes.subList(0, RECIPES)) {
+            given()
+                    .body(recipe)
+                    .header("Content-type", "application/json")
+                    .when()
+                    .post("/v1/recipe")
+                    .then()
+                    .statusCode(201);
+        }
+        double singleSeconds = (System.nanoTime() - singleStart) / 1e9;
+
+        long bulkStart = System.nanoTime();
+        for (int from = RECIPES; from < RECIPES * 2; from += BATCH_SIZE) {
+            List<RecipeBulkOperationVO> operations = recipes.subList(from, from + BATCH_SIZE).stream()
+                    .map(recipe -> RecipeBulkOperationVO.builder().type(RecipeBulkOperationType.CREATE).recipe(recipe).build())
+                    .toList();
+            given()
+                    .body(RecipeBulkRequestVO.builder().ordered(false).operations(operations).build())
+                    .header("Content-type", "application/json")
+                    .when()
+                    .post("/v1/recipe/bulk")
+                    .then()
+                    .statusCode(200);
+        }
+        double bulkSeconds = (System.nanoTime() - bulkStart) / 1e9;
+
+        double singleThroughput = RECIPES / singleSeconds;
+        double bulkThroughput = RECIPES / bulkSeconds;
+        double speedup = bulkThroughput / singleThroughput;
+
+        List<String> lines = List.of(
+                "path,recipes,seconds,recipes_per_second",
+                "single,%d,%.3f,%.1f".formatted(RECIPES, singleSeconds, singleThroughput),
+                "bulk,%d,%.3f,%.1f".formatted(RECIPES, bulkSeconds, bulkThroughput),
+                "speedup,,,%.1f".formatted(speedup));
+        BenchmarkReport.write("benchmarks", "bulk-ingest.csv", lines);
+
+        assertThat(recipeRepository.count()).isEqualTo(RECIPES * 2L);
+        assertThat(speedup).isGreaterThanOrEqualTo(Double.parseDouble(System.getProperty("benchmark.bulk.min-speedup", "20")));
+    }
+
+    private static RecipeVO toVO(Recipe recipe) {
+        return RecipeVO.builder()
+                .name(recipe.name())
+                .instructions(recipe.instructions())
+                .isVegetarian(recipe.isVegetarian())
+                .servings(recipe.servings())
+                .ingredients(recipe.ingredients())
+                .build();
+    }
+}
@@ -0,0 +1,149 @@
+package com.abn.recipe.benchmark;
+
+import com.abn.recipe.model.mongo.Recipe;
+import com.abn.recipe.service.RecipeCollectionVersion;
+import com.abn.recipe.service.RecipeMetrics;
+import com.abn.recipe.service.cache.RecipeCache;
+import com.abn.recipe.service.dictionary.IngredientDictionary;
+import com.sun.management.ThreadMXBean;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.IntFunction;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Heap retained by a working set of recipes as read from Mongo, where every recipe holds its own ingredient
+ * strings, against the same recipes compacted by an {@link IngredientDictionary}, and bytes allocated by a hit of
+ * the {@link RecipeCache} against copying the recipe out of the cache on every hit.
+ * Run with mvn test -Pbenchmark -Dtest=IngredientDictionaryFootprintBenchmark, the working set size can be
+ * changed with -Dbenchmark.footprint.recipes=500000.
+ */
+@Tag("benchmark")
+public class IngredientDictionaryFootprintBenchmark {
+
+    private static final int RECIPES = Integer.getInteger("benchmark.footprint.recipes", 200_000);
+
+    private static final int HITS = 1_000_000;
+
+    @Test
+    public void compareHeapFootprint() throws Exception {
+        long baseline = usedHeap();
+        List<Recipe> recipes = decodedRecipes();
+        long recipesBytes = usedHeap() - baseline;
+
+        IngredientDictionary ingredientDictionary = new IngredientDictionary();
+        List<Recipe> compactRecipes = recipes.stream()
+                .map(ingredientDictionary::compact)
+                .toList();
+        recipes = null;
+        long compactBytes = usedHeap() - baseline;
+
+        long ingredientsBytes = ingredientsOnly(true);
+        long sharedIngredientsBytes = ingredientsOnly(false);
+
+        double copyHitBytes = copyHitBytes(compactRecipes);
+        double hitBytes = cacheHitBytes(compactRecipes);
+
+        List<String> lines = List.of(
+                "representation,recipes,retained_bytes,bytes_per_recipe,ingredient_bytes_per_recipe,bytes_per_hit",
+                "recipe,%d,%d,%.1f,%.1f,%.1f".formatted(RECIPES, recipesBytes, (double) recipesBytes / RECIPES,
+                        (double) ingredientsBytes / RECIPES, copyHitBytes),
+                "compact_recipe,%d,%d,%.1f,%.1f,%.1f".formatted(compactRecipes.size(), compactBytes, (double) compactBytes / RECIPES,
+                        (double) sharedIngredientsBytes / RECIPES, hitBytes));
+        BenchmarkReport.write("benchmarks", "ingredient-dictionary.csv", lines);
+
+        assertThat(compactBytes).isLessThan(recipesBytes);
+        assertThat(sharedIngredientsBytes).isLessThan(ingredientsBytes);
+        assertThat(hitBytes).isLessThan(copyHitBytes);
+    }
+
+    /**
+     * Bytes allocated per read of a cached recipe when every hit copies it and its ingredients out of the cache.
+     */
+    private static double copyHitBytes(List<Recipe> cached) {
+        return allocatedPerHit(index -> {
+            Recipe recipe = cached.get(index);
+            return recipe.toBuilder().ingredients(recipe.ingredients().stream().toList()).build();
+        });
+    }
+
+    /**
+     * Bytes allocated per hit of {@link RecipeCache#findById}, which hands out the cached recipe itself.
+     */
+    private static double cacheHitBytes(List<Recipe> compactRecipes) {
+        List<Recipe> recipes = IntStream.range(0, compactRecipes.size())
+                .mapToObj(index -> compactRecipes.get(index).toBuilder().id(new ObjectId().toHexString()).build())
+                .toList();
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager(RecipeCache.RECIPES_BY_ID);
+        RecipeCache recipeCache = new RecipeCache(cacheManager, new IngredientDictionary(), new RecipeCollectionVersion(),
+                new RecipeMetrics(new SimpleMeterRegistry()), Duration.ofSeconds(2));
+        recipes.forEach(recipe -> recipeCache.findById(recipe.id(), () -> Optional.of(recipe)));
+        return allocatedPerHit(index -> recipeCache.findById(recipes.get(index).id(), Optional::empty).orElseThrow());
+    }
+
+    /**
+     * Allocated bytes of the current thread per read, measured after as many warmup reads.
+     */
+    private static double allocatedPerHit(IntFunction<Recipe> read) {
+        ThreadMXBean threads = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long checksum = 0;
+        for (int i = 0; i < HITS; i++) {
+            checksum += read.apply(i % RECIPES).ingredients().size();
+        }
+        long before = threads.getCurrentThreadAllocatedBytes();
+        for (int i = 0; i < HITS; i++) {
+            checksum += read.apply(i % RECIPES).ingredients().size();
+        }
+        long allocated = threads.getCurrentThreadAllocatedBytes() - before;
+        assertThat(checksum).isPositive();
+        return (double) allocated / HITS;
+    }
+
+    /**
+     * The driver decodes every document into new strings, so the dataset strings are copied per recipe.
+     */
+    private static List<Recipe> decodedRecipes() {
+        return new RecipeDataset(42).recipes(RECIPES).stream()
+                .map(recipe -> recipe.toBuilder()
+                        .name(new String(recipe.name()))
+                        .instructions(new String(recipe.instructions()))
+                        .ingredients(recipe.ingredients().stream().map(String::new).toList())
+                        .build())
+                .toList();
+    }
+
+    /**
+     * Heap retained by the ingredients alone, as lists of own strings or as arrays of shared dictionary names.
+     */
+    private static long ingredientsOnly(boolean asStrings) {
+        List<Recipe> recipes = new RecipeDataset(42).recipes(RECIPES);
+        IngredientDictionary ingredientDictionary = new IngredientDictionary();
+        long baseline = usedHeap();
+        List<Object> ingredients = recipes.stream()
+                .map(recipe -> asStrings
+                        ? (Object) recipe.ingredients().stream().map(String::new).toList()
+                        : ingredientDictionary.encode(recipe.ingredients().stream().map(String::new).toList()))
+                .toList();
+        long bytes = usedHeap() - baseline;
+        assertThat(ingredients).hasSize(recipes.size());
+        return bytes;
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int run = 0; run < 3; run++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
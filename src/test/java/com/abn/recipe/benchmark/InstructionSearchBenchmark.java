@@ -0,0 +1,116 @@
+package com.abn.recipe.benchmark;
+
+import com.abn.recipe.model.mongo.Recipe;
+import com.abn.recipe.repository.mongo.RecipeIndexProvisioner;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.TextIndexDefinition;
+import org.springframework.data.mongodb.core.query.CriteriaDefinition;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.TextCriteria;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+/**
+ * Compares the legacy unanchored regex with the text index for the instruction filter at growing collection sizes.
+ * The regex is the one the legacy filter sent, the search as given without quoting. Every query is warmed up before
+ * it is timed, so the first runs do not pay for loading the collection and the index into the cache.
+ * Run with mvn test -Pbenchmark -Dtest=InstructionSearchBenchmark, sizes can be changed with -Dbenchmark.sizes=10000,100000.
+ */
+@Tag("benchmark")
+public class InstructionSearchBenchmark {
+
+    private static final String COLLECTION = "recipes";
+
+    private static final int WARMUP_RUNS = 5;
+
+    private static final int RUNS = 20;
+
+    private static final List<String> SEARCHES = List.of("garnish", "roast", "\"the oven\"");
+
+    private static MongoClient mongoClient;
+
+    private static MongoTemplate mongoTemplate;
+
+    @BeforeAll
+    public static void beforeAll() {
+        mongoClient = MongoClients.create(System.getProperty("benchmark.mongodb.url", "mongodb://localhost:27017/"));
+        mongoTemplate = new MongoTemplate(mongoClient, "recipes-benchmark");
+    }
+
+    @AfterAll
+    public static void afterAll() {
+        mongoTemplate.dropCollection(COLLECTION);
+        mongoClient.close();
+    }
+
+    @Test
+    public void compareRegexWithTextIndex() throws IOException {
+        Map<String, Function<String, CriteriaDefinition>> modes = Map.of(
+                "regex", search -> where("instructions").regex(search.replace("\"", "")),
+                "text", search -> TextCriteria.forDefaultLanguage().matching(search));
+
+        List<String> lines = new ArrayList<>();
+        lines.add("recipes,mode,search,matches,median_ms,max_ms");
+
+        for (int size : sizes()) {
+            seed(size);
+            for (String search : SEARCHES) {
+                for (var mode : modes.entrySet()) {
+                    Query query = new Query(mode.getValue().apply(search));
+                    for (int run = 0; run < WARMUP_RUNS; run++) {
+                        mongoTemplate.count(query, COLLECTION);
+                    }
+                    long[] timings = new long[RUNS];
+                    long matches = 0;
+                    for (int run = 0; run < RUNS; run++) {
+                        long start = System.nanoTime();
+                        matches = mongoTemplate.count(query, COLLECTION);
+                        timings[run] = System.nanoTime() - start;
+                    }
+                    Arrays.sort(timings);
+                    lines.add("%d,%s,%s,%d,%.2f,%.2f".formatted(size, mode.getKey(), search.replace("\"", "'"), matches,
+                            timings[RUNS / 2] / 1e6, timings[RUNS - 1] / 1e6));
+                }
+            }
+        }
+
+        BenchmarkReport.write("benchmarks", "instruction-search.csv", lines);
+    }
+
+    private static void seed(int size) {
+        mongoTemplate.dropCollection(COLLECTION);
+        mongoTemplate.indexOps(COLLECTION).ensureIndex(new TextIndexDefinition.TextIndexDefinitionBuilder()
+                .named(RecipeIndexProvisioner.INSTRUCTIONS_TEXT_INDEX)
+                .onField("instructions")
+                .build());
+
+        RecipeDataset dataset = new RecipeDataset(size);
+        int batchSize = 10_000;
+        for (int from = 0; from < size; from += batchSize) {
+            List<Recipe> batch = new ArrayList<>(batchSize);
+            for (int index = from; index < Math.min(size, from + batchSize); index++) {
+                batch.add(dataset.recipe(index));
+            }
+            mongoTemplate.insert(batch, COLLECTION);
+        }
+    }
+
+    private static int[] sizes() {
+        return Arrays.stream(System.getProperty("benchmark.sizes", "10000,100000,1000000").split(","))
+                .mapToInt(Integer::parseInt)
+                .toArray();
+    }
+}
@@ -0,0 +1,199 @@
+package com.abn.recipe.benchmark;
+
+import com.abn.recipe.config.MongoConfig;
+import com.abn.recipe.config.MongoDatabaseProperties;
+import com.abn.recipe.config.MongoDatabaseProperties.Compressor;
+import com.abn.recipe.model.RecipeFilter;
+import com.abn.recipe.model.RecipePage;
+import com.abn.recipe.model.RecipeProjection;
+import com.abn.recipe.model.mongo.Recipe;
+import com.abn.recipe.service.InstructionSearchMode;
+import com.abn.recipe.service.PageToken;
+import com.abn.recipe.service.RecipeQueries;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+/**
+ * Compares Mongo client settings on reading the whole collection page by page with the maximum page size and on
+ * bursts of concurrent inserts that exceed the pool size.
+ * Run with mvn test -Pbenchmark -Dtest=MongoClientSettingsBenchmark, the collection size can be changed with
+ * -Dbenchmark.mongo.recipes=50000 and the variants with -Dbenchmark.mongo.variants=defaults,pool-10,zstd.
+ */
+@Tag("benchmark")
+public class MongoClientSettingsBenchmark {
+
+    private static final String URL = System.getProperty("benchmark.mongodb.url", "mongodb://localhost:27017/");
+
+    private static final String DATABASE = "recipes-benchmark";
+
+    private static final int RECIPES = Integer.getInteger("benchmark.mongo.recipes", 20_000);
+
+    private static final int PAGE_SIZE = 1000;
+
+    private static final int READ_RUNS = 3;
+
+    private static final int BURSTS = 10;
+
+    private static final int WRITERS_PER_BURST = 200;
+
+    private static final List<Variant> VARIANTS = List.of(
+            new Variant("defaults", null, null, List.of()),
+            new Variant("pool-10", 10, Duration.ofSeconds(2), List.of()),
+            new Variant("pool-100", 100, Duration.ofSeconds(2), List.of()),
+            new Variant("snappy", 100, Duration.ofSeconds(2), List.of(Compressor.SNAPPY)),
+            new Variant("zlib", 100, Duration.ofSeconds(2), List.of(Compressor.ZLIB)),
+            new Variant("zstd", 100, Duration.ofSeconds(2), List.of(Compressor.ZSTD)));
+
+    private static final RecipeQueries RECIPE_QUERIES = new RecipeQueries(PAGE_SIZE, PAGE_SIZE, InstructionSearchMode.TEXT, Duration.ofSeconds(2));
+
+    private static MongoClient setupClient;
+
+    private static MongoTemplate setupTemplate;
+
+    @BeforeAll
+    public static void beforeAll() {
+        setupClient = MongoClients.create(URL);
+        setupTemplate = new MongoTemplate(setupClient, DATABASE);
+        setupTemplate.dropCollection(Recipe.class);
+        setupTemplate.insertAll(new RecipeDataset(RECIPES).recipes(RECIPES));
+    }
+
+    @AfterAll
+    public static void afterAll() {
+        setupTemplate.dropCollection(Recipe.class);
+        setupClient.close();
+    }
+
+    @Test
+    public void compareClientSettings() throws Exception {
+        List<String> selected = Arrays.asList(System.getProperty("benchmark.mongo.variants",
+                String.join(",", VARIANTS.stream().map(Variant::name).toList())).split(","));
+
+        measure(VARIANTS.get(0).withName("warmup"));
+
+        List<String> lines = new ArrayList<>();
+        lines.add("variant,find_all_seconds,find_all_recipes_per_second,writes,failed_writes,write_seconds,writes_per_second,write_p50_ms,write_p99_ms");
+        for (Variant variant : VARIANTS) {
+            if (!selected.contains(variant.name())) {
+                continue;
+            }
+            lines.add(measure(variant));
+        }
+        BenchmarkReport.write("benchmarks", "mongo-client-settings.csv", lines);
+
+        assertThat(lines).hasSizeGreaterThan(1);
+    }
+
+    private static String measure(Variant variant) throws InterruptedException {
+        try (MongoClient client = MongoClients.create(MongoConfig.clientSettings(variant.properties()).build())) {
+            MongoTemplate mongoTemplate = new MongoTemplate(client, DATABASE);
+            String line = variant.name() + "," + findAll(mongoTemplate) + "," + burstWrites(mongoTemplate, variant.name());
+            mongoTemplate.remove(new Query(where("name").regex("^" + variant.name() + " burst ")), Recipe.class);
+            return line;
+        }
+    }
+
+    private static String findAll(MongoTemplate mongoTemplate) {
+        RecipeFilter noFilter = RecipeFilter.builder().build();
+        long start = System.nanoTime();
+        int read = 0;
+        for (int run = 0; run < READ_RUNS; run++) {
+            String next = null;
+            do {
+                var lastId = Objects.nonNull(next) ? PageToken.decode(next) : null;
+                Query query = RECIPE_QUERIES.pageQuery(noFilter, RecipeProjection.ALL, RecipeQueries.afterId(lastId), PAGE_SIZE);
+                RecipePage page = RecipeQueries.toPage(mongoTemplate.find(query, Recipe.class), PAGE_SIZE);
+                read += page.recipes().size();
+                next = page.next();
+            } while (Objects.nonNull(next));
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        return "%.3f,%.1f".formatted(seconds, read / seconds);
+    }
+
+    /**
+     * Every burst releases all writers at once, so most of them wait for a pooled connection.
+     */
+    private static String burstWrites(MongoTemplate mongoTemplate, String variant) throws InterruptedException {
+        RecipeDataset dataset = new RecipeDataset(variant.hashCode());
+        ConcurrentLinkedQueue<Long> latencies = new ConcurrentLinkedQueue<>();
+        AtomicInteger failed = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(WRITERS_PER_BURST);
+        long start = System.nanoTime();
+        try {
+            for (int burst = 0; burst < BURSTS; burst++) {
+                CountDownLatch go = new CountDownLatch(1);
+                CountDownLatch done = new CountDownLatch(WRITERS_PER_BURST);
+                for (int writer = 0; writer < WRITERS_PER_BURST; writer++) {
+                    Recipe recipe = dataset.recipe(0).toBuilder()
+                            .name(variant + " burst " + burst + " writer " + writer)
+                            .build();
+                    executor.execute(() -> {
+                        try {
+                            go.await();
+                            long writeStart = System.nanoTime();
+                            mongoTemplate.insert(recipe);
+                            latencies.add(System.nanoTime() - writeStart);
+                        } catch (Exception e) {
+                            failed.incrementAndGet();
+                        } finally {
+                            done.countDown();
+                        }
+                    });
+                }
+                go.countDown();
+                done.await();
+            }
+        } finally {
+            executor.shutdown();
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        long[] sorted = latencies.stream().mapToLong(Long::longValue).sorted().toArray();
+        return "%d,%d,%.3f,%.1f,%.2f,%.2f".formatted(BURSTS * WRITERS_PER_BURST, failed.get(), seconds,
+                sorted.length / seconds, percentile(sorted, 0.50), percentile(sorted, 0.99));
+    }
+
+    private static double percentile(long[] sorted, double percentile) {
+        if (sorted.length == 0) {
+            return Double.NaN;
+        }
+        int index = (int) Math.ceil(percentile * sorted.length) - 1;
+        return sorted[Math.max(index, 0)] / 1e6;
+    }
+
+    private record Variant(String name, Integer maxPoolSize, Duration maxWaitTime, List<Compressor> compressors) {
+
+        Variant withName(String name) {
+            return new Variant(name, maxPoolSize, maxWaitTime, compressors);
+        }
+
+        MongoDatabaseProperties properties() {
+            return new MongoDatabaseProperties(URL, DATABASE,
+                    new MongoDatabaseProperties.Pool(maxPoolSize, null, null, maxWaitTime, null, null),
+                    new MongoDatabaseProperties.Timeouts(null, null, null),
+                    compressors, null, null);
+        }
+    }
+}
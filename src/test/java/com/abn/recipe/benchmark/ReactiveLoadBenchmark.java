@@ -0,0 +1,154 @@
+package com.abn.recipe.benchmark;
+
+import com.abn.recipe.ApiAbnRecipe;
+import com.abn.recipe.model.mongo.Recipe;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.boot.web.embedded.netty.NettyWebServer;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs the same filter query against the blocking and the reactive stack with a growing number of concurrent
+ * connections and reports throughput, p50 and p99 latency and failed requests per stack and web server, the blocking
+ * stack on Tomcat and the reactive one on Netty. The recipe caches are switched off so both stacks read from Mongo.
+ * Run with mvn test -Pbenchmark -Dtest=ReactiveLoadBenchmark, the connection counts can be changed with
+ * -Dbenchmark.connections=100,1000 and the Tomcat thread pool with -Dbenchmark.tomcat.threads=50.
+ */
+@Tag("benchmark")
+public class ReactiveLoadBenchmark {
+
+    private static final int RECIPES = 5_000;
+
+    private static final int REQUESTS_PER_CONNECTION = 20;
+
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(10);
+
+    private static final String QUERY = "/v1/recipe?isVegetarian=true&servings=4&limit=50";
+
+    private static ConfigurableApplicationContext blocking;
+
+    private static ConfigurableApplicationContext reactive;
+
+    @BeforeAll
+    public static void beforeAll() {
+        String tomcatThreads = System.getProperty("benchmark.tomcat.threads", "50");
+        blocking = start("default", "--server.tomcat.threads.max=" + tomcatThreads, "--server.tomcat.max-connections=100000");
+        reactive = start("reactive");
+        assertThat(((WebServerApplicationContext) reactive).getWebServer()).isInstanceOf(NettyWebServer.class);
+
+        MongoTemplate mongoTemplate = blocking.getBean(MongoTemplate.class);
+        mongoTemplate.remove(new Query(), Recipe.class);
+        mongoTemplate.insertAll(new RecipeDataset(RECIPES).recipes(RECIPES));
+    }
+
+    @AfterAll
+    public static void afterAll() {
+        blocking.getBean(MongoTemplate.class).dropCollection(Recipe.class);
+        blocking.close();
+        reactive.close();
+    }
+
+    @Test
+    public void compareBlockingWithReactive() throws IOException {
+        List<Integer> connections = Arrays.stream(System.getProperty("benchmark.connections", "50,200,800").split(","))
+                .map(String::trim)
+                .map(Integer::parseInt)
+                .toList();
+
+        List<String> lines = new ArrayList<>();
+        lines.add("stack,server,connections,requests,failed,seconds,requests_per_second,p50_ms,p99_ms");
+        for (int connectionCount : connections) {
+            for (var stack : List.of(blocking, reactive)) {
+                lines.add(run(stack, connectionCount));
+            }
+        }
+        BenchmarkReport.write("benchmarks", "reactive-load.csv", lines);
+
+        assertThat(lines).hasSize(connections.size() * 2 + 1);
+    }
+
+    private static String run(ConfigurableApplicationContext stack, int connectionCount) {
+        String name = stack == reactive ? "reactive" : "blocking";
+        String server = ((WebServerApplicationContext) stack).getWebServer().getClass().getSimpleName();
+        URI uri = URI.create("http://localhost:" + stack.getEnvironment().getProperty("local.server.port") + "/api" + QUERY);
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(REQUEST_TIMEOUT)
+                .build();
+        HttpRequest request = HttpRequest.newBuilder(uri).timeout(REQUEST_TIMEOUT).GET().build();
+
+        ConcurrentLinkedQueue<Long> latencies = new ConcurrentLinkedQueue<>();
+        AtomicInteger failed = new AtomicInteger();
+        long start = System.nanoTime();
+        CompletableFuture<?>[] connectionsDone = new CompletableFuture<?>[connectionCount];
+        for (int connection = 0; connection < connectionCount; connection++) {
+            connectionsDone[connection] = send(client, request, REQUESTS_PER_CONNECTION, latencies, failed);
+        }
+        CompletableFuture.allOf(connectionsDone).join();
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        long[] sorted = latencies.stream().mapToLong(Long::longValue).sorted().toArray();
+        int requests = connectionCount * REQUESTS_PER_CONNECTION;
+        return "%s,%s,%d,%d,%d,%.3f,%.1f,%.2f,%.2f".formatted(name, server, connectionCount, requests, failed.get(), seconds,
+                sorted.length / seconds, percentile(sorted, 0.50), percentile(sorted, 0.99));
+    }
+
+    /**
+     * Sends the requests of one connection one after the other, the next request starts when the previous one completed.
+     */
+    private static CompletableFuture<Void> send(HttpClient client, HttpRequest request, int remaining,
+                                                ConcurrentLinkedQueue<Long> latencies, AtomicInteger failed) {
+        if (remaining == 0) {
+            return CompletableFuture.completedFuture(null);
+        }
+        long start = System.nanoTime();
+        return client.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                .handle((response, error) -> {
+                    if (error == null && response.statusCode() == 200) {
+                        latencies.add(System.nanoTime() - start);
+                    } else {
+                        failed.incrementAndGet();
+                    }
+                    return null;
+                })
+                .thenCompose(ignored -> send(client, request, remaining - 1, latencies, failed));
+    }
+
+    private static double percentile(long[] sorted, double percentile) {
+        if (sorted.length == 0) {
+            return Double.NaN;
+        }
+        int index = (int) Math.ceil(percentile * sorted.length) - 1;
+        return sorted[Math.max(index, 0)] / 1e6;
+    }
+
+    private static ConfigurableApplicationContext start(String profile, String... args) {
+        List<String> arguments = new ArrayList<>(List.of("--server.port=0", "--database.mongodb.name=recipes-benchmark",
+                "--spring.cache.type=none"));
+        arguments.addAll(List.of(args));
+        return new SpringApplicationBuilder(ApiAbnRecipe.class)
+                .profiles(profile)
+                .run(arguments.toArray(String[]::new));
+    }
+}
@@ -0,0 +1,81 @@
+package com.abn.recipe.benchmark;
+
+import com.abn.recipe.model.mongo.Recipe;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+/**
+ * Deterministic generator of realistic recipes for benchmarks, word and ingredient frequencies are skewed
+ * so a few of them are very common and most of them are rare, like in a real catalogue.
+ */
+public class RecipeDataset {
+
+    private static final String[] INGREDIENTS = {
+            "salt", "pepper", "olive oil", "garlic", "onion", "butter", "sugar", "flour", "eggs", "milk",
+            "tomatoes", "potatoes", "carrot", "lemon", "parsley", "basil", "rice", "pasta", "cheese", "cream",
+            "salmon", "chicken", "beef", "pork", "tuna", "shrimp", "tofu", "beans", "lentils", "spinach",
+            "mushrooms", "zucchini", "eggplant", "peppers", "ginger", "chili", "cumin", "paprika", "thyme", "rosemary"
+    };
+
+    private static final String[] MEATS = {"salmon", "chicken", "beef", "pork", "tuna", "shrimp"};
+
+    private static final String[] VERBS = {
+            "put", "bake", "fry", "boil", "stir", "chop", "slice", "mix", "season", "serve",
+            "grill", "roast", "simmer", "whisk", "pour", "heat", "cool", "drain", "blend", "garnish"
+    };
+
+    private static final String[] PLACES = {"oven", "pan", "pot", "bowl", "grill", "plate", "tray", "wok"};
+
+    private final Random random;
+
+    public RecipeDataset(long seed) {
+        this.random = new Random(seed);
+    }
+
+    public List<Recipe> recipes(int count) {
+        return IntStream.range(0, count).mapToObj(this::recipe).toList();
+    }
+
+    public Recipe recipe(int index) {
+        List<String> ingredients = new ArrayList<>();
+        int ingredientCount = 3 + random.nextInt(8);
+        while (ingredients.size() < ingredientCount) {
+            String ingredient = INGREDIENTS[skewed(INGREDIENTS.length)];
+            if (!ingredients.contains(ingredient)) {
+                ingredients.add(ingredient);
+            }
+        }
+
+        return Recipe.builder()
+                .name("recipe " + index)
+                .instructions(instructions(ingredients))
+                .isVegetarian(ingredients.stream().noneMatch(List.of(MEATS)::contains))
+                .servings(1 + random.nextInt(8))
+                .ingredients(ingredients)
+                .build();
+    }
+
+    private String instructions(List<String> ingredients) {
+        StringBuilder instructions = new StringBuilder();
+        int steps = 4 + random.nextInt(12);
+        for (int step = 0; step < steps; step++) {
+            instructions.append(VERBS[skewed(VERBS.length)])
+                    .append(" the ")
+                    .append(ingredients.get(random.nextInt(ingredients.size())))
+                    .append(" on the ")
+                    .append(PLACES[skewed(PLACES.length)])
+                    .append(" for ")
+                    .append(1 + random.nextInt(30))
+                    .append(" minutes. ");
+        }
+        return instructions.toString();
+    }
+
+    private int skewed(int bound) {
+        double value = random.nextDouble();
+        return (int) (value * value * bound);
+    }
+}
@@ -0,0 +1,97 @@
+package com.abn.recipe.benchmark;
+
+import com.abn.recipe.controller.builder.RecipeVOBuilder;
+import com.abn.recipe.controller.vo.RecipeVO;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Compares the response formats on a list of recipes: payload size, size once gzip compressed, and cpu time of the
+ * serialization and of the compression, as medians of several runs on the current thread.
+ * Run with mvn test -Pbenchmark -Dtest=RecipeFormatBenchmark, the list size can be changed with
+ * -Dbenchmark.format.recipes=50000.
+ */
+@Tag("benchmark")
+public class RecipeFormatBenchmark {
+
+    private static final int RECIPES = Integer.getInteger("benchmark.format.recipes", 10_000);
+
+    private static final int WARMUP_RUNS = 20;
+
+    private static final int RUNS = 20;
+
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+
+    @Test
+    public void compareFormats() throws IOException {
+        List<RecipeVO> recipes = new RecipeDataset(RECIPES).recipes(RECIPES).stream()
+                .map(RecipeVOBuilder::build)
+                .toList();
+
+        List<String> lines = new ArrayList<>();
+        lines.add("format,recipes,bytes,bytes_per_recipe,gzip_bytes,serialize_cpu_ms,gzip_cpu_ms");
+        lines.add(measure("json", new JsonFactory(), recipes));
+        lines.add(measure("smile", new SmileFactory(), recipes));
+        lines.add(measure("cbor", new CBORFactory(), recipes));
+        BenchmarkReport.write("benchmarks", "recipe-formats.csv", lines);
+
+        assertThat(lines).hasSize(4);
+    }
+
+    private static String measure(String format, JsonFactory factory, List<RecipeVO> recipes) throws IOException {
+        ObjectWriter writer = Jackson2ObjectMapperBuilder.json().factory(factory).build()
+                .writerFor(new TypeReference<List<RecipeVO>>() {
+                });
+
+        byte[] payload = writer.writeValueAsBytes(recipes);
+        byte[] gzipped = gzip(payload);
+        for (int run = 0; run < WARMUP_RUNS; run++) {
+            gzip(writer.writeValueAsBytes(recipes));
+        }
+
+        long[] serializeNanos = new long[RUNS];
+        long[] gzipNanos = new long[RUNS];
+        for (int run = 0; run < RUNS; run++) {
+            long start = THREADS.getCurrentThreadCpuTime();
+            byte[] bytes = writer.writeValueAsBytes(recipes);
+            long serialized = THREADS.getCurrentThreadCpuTime();
+            gzip(bytes);
+            serializeNanos[run] = serialized - start;
+            gzipNanos[run] = THREADS.getCurrentThreadCpuTime() - serialized;
+        }
+
+        return "%s,%d,%d,%.1f,%d,%.2f,%.2f".formatted(format, recipes.size(), payload.length,
+                (double) payload.length / recipes.size(), gzipped.length, median(serializeNanos), median(gzipNanos));
+    }
+
+    private static byte[] gzip(byte[] bytes) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(bytes.length / 4);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(bytes);
+        }
+        return out.toByteArray();
+    }
+
+    private static double median(long[] nanos) {
+        long[] sorted = nanos.clone();
+        Arrays.sort(sorted);
+        return sorted[sorted.length / 2] / 1e6;
+    }
+}
@@ -0,0 +1,68 @@
+package com.abn.recipe.config;
+
+import com.mongodb.MongoClientSettings;
+import com.mongodb.MongoCompressor;
+import com.mongodb.ReadConcern;
+import com.mongodb.ReadConcernLevel;
+import com.mongodb.WriteConcern;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class MongoConfigTest {
+
+    private static final String URL = "mongodb://localhost:27017/";
+
+    @Test
+    public void givenTypedPropertiesWhenBuildingSettingsThenTheyAreApplied() {
+        var properties = new MongoDatabaseProperties(URL, "recipes",
+                new MongoDatabaseProperties.Pool(50, 5, 4, Duration.ofSeconds(2), Duration.ofMinutes(5), null),
+                new MongoDatabaseProperties.Timeouts(Duration.ofSeconds(1), Duration.ofSeconds(30), Duration.ofSeconds(3)),
+                List.of(MongoDatabaseProperties.Compressor.ZSTD, MongoDatabaseProperties.Compressor.SNAPPY),
+                ReadConcernLevel.MAJORITY,
+                "majority");
+
+        MongoClientSettings settings = MongoConfig.clientSettings(properties).build();
+
+        assertThat(settings.getConnectionPoolSettings().getMaxSize()).isEqualTo(50);
+        assertThat(settings.getConnectionPoolSettings().getMinSize()).isEqualTo(5);
+        assertThat(settings.getConnectionPoolSettings().getMaxConnecting()).isEqualTo(4);
+        assertThat(settings.getConnectionPoolSettings().getMaxWaitTime(TimeUnit.MILLISECONDS)).isEqualTo(2_000);
+        assertThat(settings.getConnectionPoolSettings().getMaxConnectionIdleTime(TimeUnit.MINUTES)).isEqualTo(5);
+        assertThat(settings.getSocketSettings().getConnectTimeout(TimeUnit.MILLISECONDS)).isEqualTo(1_000);
+        assertThat(settings.getSocketSettings().getReadTimeout(TimeUnit.MILLISECONDS)).isEqualTo(30_000);
+        assertThat(settings.getClusterSettings().getServerSelectionTimeout(TimeUnit.MILLISECONDS)).isEqualTo(3_000);
+        assertThat(settings.getCompressorList()).extracting(MongoCompressor::getName).containsExactly("zstd", "snappy");
+        assertThat(settings.getReadConcern()).isEqualTo(ReadConcern.MAJORITY);
+        assertThat(settings.getWriteConcern()).isEqualTo(WriteConcern.MAJORITY);
+    }
+
+    @Test
+    public void givenNoTypedPropertiesWhenBuildingSettingsThenConnectionStringIsKept() {
+        var properties = new MongoDatabaseProperties(URL + "?maxPoolSize=7&compressors=zlib&w=majority", "",
+                new MongoDatabaseProperties.Pool(null, null, null, null, null, null),
+                new MongoDatabaseProperties.Timeouts(null, null, null),
+                null, null, null);
+
+        MongoClientSettings settings = MongoConfig.clientSettings(properties).build();
+
+        assertThat(settings.getConnectionPoolSettings().getMaxSize()).isEqualTo(7);
+        assertThat(settings.getCompressorList()).extracting(MongoCompressor::getName).containsExactly("zlib");
+        assertThat(settings.getWriteConcern()).isEqualTo(WriteConcern.MAJORITY);
+    }
+
+    @Test
+    public void givenUnknownWriteConcernWhenBuildingSettingsThenFails() {
+        var properties = new MongoDatabaseProperties(URL, "recipes",
+                new MongoDatabaseProperties.Pool(null, null, null, null, null, null),
+                new MongoDatabaseProperties.Timeouts(null, null, null),
+                null, null, "sometimes");
+
+        assertThrows(IllegalArgumentException.class, () -> MongoConfig.clientSettings(properties));
+    }
+}
@@ -0,0 +1,501 @@
+package com.abn.recipe.controller;
+
+import com.abn.recipe.controller.vo.ErrorResponse;
+import com.abn.recipe.controller.vo.RecipeFacetCountVO;
+import com.abn.recipe.controller.vo.RecipeFacetsVO;
+import com.abn.recipe.controller.vo.RecipeMultiGetRequestVO;
+import com.abn.recipe.controller.vo.RecipeMultiGetResponseVO;
+import com.abn.recipe.controller.vo.RecipeVO;
+import com.abn.recipe.exception.ResourceNotFoundException;
+import com.abn.recipe.model.mongo.Recipe;
+import com.abn.recipe.repository.mongo.RecipeRepository;
+import com.abn.recipe.service.RecipeService;
+import com.abn.recipe.service.cache.RecipeCache;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import io.restassured.RestAssured;
+import io.restassured.path.json.JsonPath;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Example;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.boot.web.embedded.netty.NettyWebServer;
+import org.springframework.boot.web.reactive.context.ReactiveWebServerApplicationContext;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static io.restassured.RestAssured.given;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.hamcrest.Matchers.not;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("reactive")
+public class ReactiveRecipeControllerTest {
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private RecipeRepository recipeRepository;
+
+    @Autowired
+    private RecipeService recipeService;
+
+    @Autowired
+    private RecipeCache recipeCache;
+
+    @Autowired
+    private ReactiveWebServerApplicationContext applicationContext;
+
+    @BeforeEach
+    public void beforeEach() {
+        RestAssured.baseURI = "http://localhost:" + port + "/api";
+        recipeRepository.deleteAll();
+        recipeCache.clear();
+    }
+
+    @Test
+    void runsOnNetty() {
+        assertThat(applicationContext.getWebServer()).isInstanceOf(NettyWebServer.class);
+    }
+
+    @Test
+    void create() {
+        var recipeVO = RecipeVO.builder()
+                .name("salmon recipe")
+                .instructions("put on the oven")
+                .isVegetarian(false)
+                .servings(2)
+                .ingredients(List.of("salmon", "potatoes"))
+                .build();
+
+        given()
+                .body(recipeVO)
+                .header("Content-type", "application/json")
+                .when()
+                .post("/v1/recipe")
+                .then()
+                .statusCode(201);
+
+        ErrorResponse errorResponse = given()
+                .body(recipeVO)
+                .header("Content-type", "application/json")
+                .when()
+                .post("/v1/recipe")
+                .then()
+                .statusCode(400)
+                .extract()
+                .as(ErrorResponse.class);
+
+        assertThat(errorResponse.message()).isEqualTo("Recipe already exists");
+        assertThat(recipeRepository.findOne(byName(recipeVO.name()))).isPresent();
+    }
+
+    @Test
+    void createWithoutName() {
+        var recipeVO = RecipeVO.builder()
+                .instructions("put on the oven")
+                .isVegetarian(false)
+                .servings(2)
+                .ingredients(List.of("salmon", "potatoes"))
+                .build();
+
+        ErrorResponse errorResponse = given()
+                .body(recipeVO)
+                .header("Content-type", "application/json")
+                .when()
+                .post("/v1/recipe")
+                .then()
+                .statusCode(400)
+                .extract()
+                .as(ErrorResponse.class);
+
+        assertThat(errorResponse.message()).isEqualTo("name must not be blank");
+    }
+
+    @Test
+    void updateWithStaleVersion() {
+        var recipeSaved = recipeRepository.save(Recipe.builder()
+                .name("salmon recipe")
+                .instructions("put on the oven")
+                .isVegetarian(false)
+                .servings(2)
+                .ingredients(List.of("salmon", "potatoes"))
+                .build());
+
+        var recipeVO = RecipeVO.builder()
+                .name("vegetables recipe")
+                .instructions("fry on the pan")
+                .isVegetarian(true)
+                .servings(4)
+                .ingredients(List.of("carrot", "potatoes"))
+                .version(recipeSaved.version())
+                .build();
+
+        given()
+                .body(recipeVO)
+                .header("Content-type", "application/json")
+                .when()
+                .put("/v1/recipe/" + recipeSaved.id())
+                .then()
+                .statusCode(200);
+
+        ErrorResponse errorResponse = given()
+                .body(recipeVO.toBuilder().name("carrot recipe").build())
+                .header("Content-type", "application/json")
+                .when()
+                .put("/v1/recipe/" + recipeSaved.id())
+                .then()
+                .statusCode(409)
+                .extract()
+                .as(ErrorResponse.class);
+
+        assertThat(errorResponse.message()).isEqualTo("Recipe was changed by another request");
+    }
+
+    @Test
+    void updateWithoutVersion() {
+        var recipeSaved = recipeRepository.save(Recipe.builder()
+                .name("salmon recipe")
+                .instructions("put on the oven")
+                .isVegetarian(false)
+                .servings(2)
+                .ingredients(List.of("salmon", "potatoes"))
+                .build());
+
+        ErrorResponse errorResponse = given()
+                .body(RecipeVO.builder()
+                        .name("vegetables recipe")
+                        .instructions("fry on the pan")
+                        .isVegetarian(true)
+                        .servings(4)
+                        .ingredients(List.of("carrot", "potatoes"))
+                        .build())
+                .header("Content-type", "application/json")
+                .when()
+                .put("/v1/recipe/" + recipeSaved.id())
+                .then()
+                .statusCode(428)
+                .extract()
+                .as(ErrorResponse.class);
+
+        assertThat(errorResponse.message()).isEqualTo("version is required to update a recipe");
+        assertThat(recipeRepository.findById(recipeSaved.id())).hasValueSatisfying(
+                value -> assertThat(value.name()).isEqualTo("salmon recipe"));
+    }
+
+    @Test
+    void findAllByPages() {
+        var recipe1 = Recipe.builder()
+                .name("salmon recipe")
+                .instructions("put on the oven")
+                .isVegetarian(false)
+                .servings(2)
+                .ingredients(List.of("salmon", "potatoes"))
+                .build();
+
+        var recipe2 = Recipe.builder()
+                .name("vegetables recipe")
+                .instructions("fry on the pan")
+                .isVegetarian(true)
+                .servings(4)
+                .ingredients(List.of("carrot", "potatoes"))
+                .build();
+
+        recipeRepository.saveAll(List.of(recipe1, recipe2));
+
+        var firstPage = given()
+                .when()
+                .get("/v1/recipe/all?limit=1")
+                .then()
+                .statusCode(200)
+                .extract();
+
+        var firstRecipes = firstPage.as(RecipeVO[].class);
+        assertThat(firstRecipes).hasSize(1);
+        assertThat(firstRecipes[0].name()).isEqualTo(recipe1.name());
+
+        var next = firstPage.header(RecipeController.NEXT_TOKEN_HEADER);
+        assertThat(next).isNotBlank();
+
+        var secondPage = given()
+                .when()
+                .get("/v1/recipe?isVegetarian=true&limit=1&next=" + next)
+                .then()
+                .statusCode(200)
+                .extract();
+
+        assertThat(secondPage.as(RecipeVO[].class)).extracting(RecipeVO::name).containsExactly(recipe2.name());
+        assertThat(secondPage.header(RecipeController.NEXT_TOKEN_HEADER)).isNull();
+    }
+
+    @Test
+    void findAllWithInvalidNextToken() {
+        ErrorResponse errorResponse = given()
+                .when()
+                .get("/v1/recipe/all?next=invalid")
+                .then()
+                .statusCode(400)
+                .extract()
+                .as(ErrorResponse.class);
+
+        assertThat(errorResponse.message()).isEqualTo("Invalid next token");
+    }
+
+    @Test
+    void findAllAsNdjson() {
+        var recipe1 = Recipe.builder()
+                .name("salmon recipe")
+                .instructions("put on the oven")
+                .isVegetarian(false)
+                .servings(2)
+                .ingredients(List.of("salmon", "potatoes"))
+                .build();
+
+        var recipe2 = Recipe.builder()
+                .name("vegetables recipe")
+                .instructions("fry on the pan")
+                .isVegetarian(true)
+                .servings(4)
+                .ingredients(List.of("carrot", "potatoes"))
+                .build();
+
+        recipeRepository.saveAll(List.of(recipe1, recipe2));
+
+        var body = given()
+                .header("Accept", "application/x-ndjson")
+                .when()
+                .get("/v1/recipe/all")
+                .then()
+                .statusCode(200)
+                .contentType("application/x-ndjson")
+                .extract()
+                .asString();
+
+        var recipes = Arrays.stream(body.split("\n"))
+                .map(line -> new JsonPath(line).getString("name"))
+                .toList();
+        assertThat(recipes).containsExactlyInAnyOrder(recipe1.name(), recipe2.name());
+    }
+
+    @Test
+    void findAllAsCbor() throws Exception {
+        recipeRepository.save(Recipe.builder()
+                .name("salmon recipe")
+                .instructions("put on the oven")
+                .isVegetarian(false)
+                .servings(2)
+                .ingredients(List.of("salmon", "potatoes"))
+                .build());
+
+        var body = given()
+                .header("Accept", "application/cbor")
+                .when()
+                .get("/v1/recipe/all")
+                .then()
+                .statusCode(200)
+                .contentType("application/cbor")
+                .extract()
+                .asByteArray();
+
+        var recipes = new CBORMapper().readValue(body, RecipeVO[].class);
+        assertThat(recipes).extracting(RecipeVO::name).containsExactly("salmon recipe");
+    }
+
+    @Test
+    void remove() {
+        var recipeSaved = recipeRepository.save(Recipe.builder()
+                .name("salmon recipe")
+                .instructions("put on the oven")
+                .isVegetarian(false)
+                .servings(2)
+                .ingredients(List.of("salmon", "potatoes"))
+                .build());
+
+        given()
+                .when()
+                .delete("/v1/recipe/" + recipeSaved.id())
+                .then()
+                .statusCode(200);
+
+        assertThat(recipeRepository.findAll()).isEmpty();
+    }
+
+    @Test
+    void updateAndRemoveEvictCachedRecipe() {
+        var recipeSaved = recipeRepository.save(Recipe.builder()
+                .name("salmon recipe")
+                .instructions("put on the oven")
+                .isVegetarian(false)
+                .servings(2)
+                .ingredients(List.of("salmon", "potatoes"))
+                .build());
+        assertThat(recipeService.findById(recipeSaved.id()).name()).isEqualTo("salmon recipe");
+
+        given()
+                .body(RecipeVO.builder()
+                        .name("baked salmon recipe")
+                        .instructions("put on the oven")
+                        .isVegetarian(false)
+                        .servings(2)
+                        .ingredients(List.of("salmon"))
+                        .version(recipeSaved.version())
+                        .build())
+                .header("Content-type", "application/json")
+                .when()
+                .put("/v1/recipe/" + recipeSaved.id())
+                .then()
+                .statusCode(200);
+
+        assertThat(recipeService.findById(recipeSaved.id()).name()).isEqualTo("baked salmon recipe");
+
+        given()
+                .when()
+                .delete("/v1/recipe/" + recipeSaved.id())
+                .then()
+                .statusCode(200);
+
+        assertThrows(ResourceNotFoundException.class, () -> recipeService.findById(recipeSaved.id()));
+    }
+
+    @Test
+    void findByIdReadsThroughTheCache() {
+        var recipeSaved = recipeRepository.save(Recipe.builder()
+                .name("salmon recipe")
+                .instructions("put on the oven")
+                .isVegetarian(false)
+                .servings(2)
+                .ingredients(List.of("salmon", "potatoes"))
+                .build());
+
+        given()
+                .when()
+                .get("/v1/recipe/" + recipeSaved.id())
+                .then()
+                .statusCode(200);
+        // written behind the back of the service, so only a cached read still returns the former name
+        recipeRepository.save(recipeSaved.toBuilder().name("baked salmon recipe").build());
+
+        String name = given()
+                .when()
+                .get("/v1/recipe/" + recipeSaved.id())
+                .then()
+                .statusCode(200)
+                .extract()
+                .path("name");
+
+        assertThat(name).isEqualTo("salmon recipe");
+        assertThat(recipeService.findById(recipeSaved.id()).name()).isEqualTo("salmon recipe");
+    }
+
+    @Test
+    void findAllWithETag() {
+        recipeRepository.save(Recipe.builder()
+                .name("salmon recipe")
+                .instructions("put on the oven")
+                .isVegetarian(false)
+                .servings(2)
+                .ingredients(List.of("salmon", "potatoes"))
+                .build());
+
+        String eTag = given()
+                .when()
+                .get("/v1/recipe/all")
+                .then()
+                .statusCode(200)
+                .extract()
+                .header("ETag");
+
+        given()
+                .header("If-None-Match", eTag)
+                .when()
+                .get("/v1/recipe/all")
+                .then()
+                .statusCode(304)
+                .header("ETag", eTag);
+
+        given()
+                .header("Content-type", "application/json")
+                .when()
+                .delete("/v1/recipe/" + recipeRepository.findOne(byName("salmon recipe")).orElseThrow().id())
+                .then()
+                .statusCode(200);
+
+        given()
+                .header("If-None-Match", eTag)
+                .when()
+                .get("/v1/recipe/all")
+                .then()
+                .statusCode(200)
+                .header("ETag", not(eTag));
+    }
+
+    @Test
+    void findByIds() {
+        var salmonRecipe = recipeRepository.save(Recipe.builder()
+                .name("salmon recipe")
+                .instructions("put on the oven")
+                .isVegetarian(false)
+                .servings(2)
+                .ingredients(List.of("salmon", "potatoes"))
+                .build());
+
+        var response = given()
+                .body(RecipeMultiGetRequestVO.builder()
+                        .ids(List.of("62a1f0c2e4b0a1b2c3d4e5f6", salmonRecipe.id()))
+                        .build())
+                .header("Content-type", "application/json")
+                .when()
+                .post("/v1/recipe/_mget")
+                .then()
+                .statusCode(200)
+                .extract()
+                .as(RecipeMultiGetResponseVO.class);
+
+        assertThat(response.recipes()).extracting(RecipeVO::id).containsExactly(salmonRecipe.id());
+        assertThat(response.missing()).containsExactly("62a1f0c2e4b0a1b2c3d4e5f6");
+
+        given()
+                .when()
+                .get("/v1/recipe/" + salmonRecipe.id())
+                .then()
+                .statusCode(200);
+
+        given()
+                .when()
+                .get("/v1/recipe/62a1f0c2e4b0a1b2c3d4e5f6")
+                .then()
+                .statusCode(404);
+    }
+
+    @Test
+    void facets() {
+        recipeRepository.save(Recipe.builder()
+                .name("salmon recipe")
+                .instructions("put on the oven")
+                .isVegetarian(false)
+                .servings(2)
+                .ingredients(List.of("salmon", "potatoes"))
+                .build());
+
+        var facets = given()
+                .when()
+                .get("/v1/recipe/facets?isVegetarian=false")
+                .then()
+                .statusCode(200)
+                .extract()
+                .as(RecipeFacetsVO.class);
+
+        assertThat(facets.total()).isEqualTo(1);
+        assertThat(facets.servings()).extracting(RecipeFacetCountVO::value).containsExactly(2);
+        assertThat(facets.ingredients()).extracting(RecipeFacetCountVO::value).containsExactly("potatoes", "salmon");
+    }
+
+    private static Example<Recipe> byName(String name) {
+        return Example.of(Recipe.builder().name(name).build());
+    }
+}
@@ -2,27 +2,65 @@ package com.abn.recipe.controller;
 
 import com.abn.recipe.controller.config.IntegrationBaseTest;
 import com.abn.recipe.controller.vo.ErrorResponse;
+import com.abn.recipe.controller.vo.RecipeBulkOperationType;
+import com.abn.recipe.controller.vo.RecipeBulkOperationVO;
+import com.abn.recipe.controller.vo.RecipeBulkRequestVO;
+import com.abn.recipe.controller.vo.RecipeBulkResponseVO;
+import com.abn.recipe.controller.vo.RecipeBulkResultStatus;
+import com.abn.recipe.controller.vo.RecipeBulkResultVO;
+import com.abn.recipe.controller.vo.RecipeFacetCountVO;
+import com.abn.recipe.controller.vo.RecipeFacetsVO;
+import com.abn.recipe.controller.vo.RecipeMultiGetRequestVO;
+import com.abn.recipe.controller.vo.RecipeMultiGetResponseVO;
 import com.abn.recipe.controller.vo.RecipeVO;
 import com.abn.recipe.model.mongo.Recipe;
 import com.abn.recipe.repository.mongo.RecipeRepository;
+import com.abn.recipe.service.cache.RecipeCache;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.restassured.common.mapper.TypeRef;
+import io.restassured.config.DecoderConfig;
+import io.restassured.config.RestAssuredConfig;
+import io.restassured.path.json.JsonPath;
 import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Example;
 
+import java.io.ByteArrayInputStream;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+import java.util.zip.GZIPInputStream;
 
 import static io.restassured.RestAssured.given;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.hamcrest.Matchers.not;
 
 public class RecipeControllerTest extends IntegrationBaseTest {
 
     @Autowired
     private RecipeRepository recipeRepository;
 
+    @Autowired
+    private RecipeCache recipeCache;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
     @BeforeEach
     public void beforeEach() {
         recipeRepository.deleteAll();
+        recipeCache.clear();
     }
 
     @Test
@@ -35,6 +73,7 @@ public class RecipeControllerTest extends IntegrationBaseTest {
                 .ingredients(List.of("salmon", "potatoes"))
                 .build();
 
+        long commands = mongoCommands();
         given()
                 .body(recipeVO)
                 .header("Content-type", "application/json")
@@ -43,7 +82,9 @@ public class RecipeControllerTest extends IntegrationBaseTest {
                 .then()
                 .statusCode(201);
 
-        var maybeRecipe = recipeRepository.findByName(recipeVO.name());
+        assertThat(mongoCommands() - commands).isEqualTo(1);
+
+        var maybeRecipe = recipeRepository.findOne(byName(recipeVO.name()));
         assertThat(maybeRecipe.isPresent()).isTrue();
 
         Recipe recipe = maybeRecipe.get();
@@ -200,6 +241,136 @@ public class RecipeControllerTest extends IntegrationBaseTest {
         assertThat(allRecipes.size()).isEqualTo(1);
     }
 
+    @Test
+    void createConcurrentlyWithSameName() throws Exception {
+        var recipeVO = RecipeVO.builder()
+                .name("salmon recipe")
+                .instructions("put on the oven")
+                .isVegetarian(false)
+                .servings(2)
+                .ingredients(List.of("salmon", "potatoes"))
+                .build();
+
+        int requests = 20;
+        var start = new CountDownLatch(1);
+        var executor = Executors.newFixedThreadPool(requests);
+        try {
+            List<Future<Integer>> statusCodes = new ArrayList<>();
+            for (int i = 0; i < requests; i++) {
+                statusCodes.add(executor.submit(() -> {
+                    start.await();
+                    return given()
+                            .body(recipeVO)
+                            .header("Content-type", "application/json")
+                            .when()
+                            .post("/v1/recipe")
+                            .statusCode();
+                }));
+            }
+            start.countDown();
+
+            List<Integer> results = new ArrayList<>();
+            for (Future<Integer> statusCode : statusCodes) {
+                results.add(statusCode.get(30, TimeUnit.SECONDS));
+            }
+
+            assertThat(results).containsOnlyOnce(201);
+            assertThat(results).filteredOn(code -> code == 400).hasSize(requests - 1);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        var allRecipes = recipeRepository.findAll();
+        assertThat(allRecipes.size()).isEqualTo(1);
+    }
+
+    @Test
+    void bulk() {
+        var existing = recipeRepository.saveAll(List.of(
+                Recipe.builder()
+                        .name("salmon recipe")
+                        .instructions("put on the oven")
+                        .isVegetarian(false)
+                        .servings(2)
+                        .ingredients(List.of("salmon", "potatoes"))
+                        .build(),
+                Recipe.builder()
+                        .name("tuna recipe")
+                        .instructions("put on the grill")
+                        .isVegetarian(false)
+                        .servings(1)
+                        .ingredients(List.of("tuna"))
+                        .build()));
+
+        var vegetablesRecipe = RecipeVO.builder()
+                .name("vegetables recipe")
+                .instructions("fry on the pan")
+                .isVegetarian(true)
+                .servings(4)
+                .ingredients(List.of("carrot", "potatoes"))
+                .build();
+
+        var request = RecipeBulkRequestVO.builder()
+                .ordered(false)
+                .operations(List.of(
+                        RecipeBulkOperationVO.builder().type(RecipeBulkOperationType.CREATE).recipe(vegetablesRecipe).build(),
+                        RecipeBulkOperationVO.builder().type(RecipeBulkOperationType.CREATE)
+                                .recipe(vegetablesRecipe.toBuilder().instructions("boil on the pot").build()).build(),
+                        RecipeBulkOperationVO.builder().type(RecipeBulkOperationType.UPDATE).id(existing.get(0).id())
+                                .recipe(vegetablesRecipe.toBuilder().name("baked salmon recipe").build()).build(),
+                        RecipeBulkOperationVO.builder().type(RecipeBulkOperationType.DELETE).id(existing.get(1).id()).build()))
+                .build();
+
+        var response = given()
+                .body(request)
+                .header("Content-type", "application/json")
+                .when()
+                .post("/v1/recipe/bulk")
+                .then()
+                .statusCode(200)
+                .extract()
+                .as(RecipeBulkResponseVO.class);
+
+        assertThat(response.modified()).isEqualTo(1);
+        assertThat(response.deleted()).isEqualTo(1);
+        assertThat(response.results()).extracting(RecipeBulkResultVO::status).containsExactly(
+                RecipeBulkResultStatus.APPLIED, RecipeBulkResultStatus.FAILED,
+                RecipeBulkResultStatus.APPLIED, RecipeBulkResultStatus.APPLIED);
+        assertThat(response.results().get(1).message()).isEqualTo("Recipe already exists");
+
+        assertThat(recipeRepository.findAll()).extracting(Recipe::name)
+                .containsExactlyInAnyOrder("vegetables recipe", "baked salmon recipe");
+        assertThat(recipeRepository.findById(response.results().get(0).id())).isPresent();
+    }
+
+    @Test
+    void bulkUpdateWithoutId() {
+        var request = RecipeBulkRequestVO.builder()
+                .operations(List.of(RecipeBulkOperationVO.builder()
+                        .type(RecipeBulkOperationType.UPDATE)
+                        .recipe(RecipeVO.builder()
+                                .name("vegetables recipe")
+                                .instructions("fry on the pan")
+                                .isVegetarian(true)
+                                .servings(4)
+                                .ingredients(List.of("carrot", "potatoes"))
+                                .build())
+                        .build()))
+                .build();
+
+        ErrorResponse errorResponse = given()
+                .body(request)
+                .header("Content-type", "application/json")
+                .when()
+                .post("/v1/recipe/bulk")
+                .then()
+                .statusCode(400)
+                .extract()
+                .as(ErrorResponse.class);
+
+        assertThat(errorResponse.message()).isEqualTo("operations[0].id must not be blank");
+    }
+
     @Test
     void update() {
         var recipe = Recipe.builder()
@@ -218,8 +389,10 @@ public class RecipeControllerTest extends IntegrationBaseTest {
                 .isVegetarian(true)
                 .servings(4)
                 .ingredients(List.of("carrot", "potatoes"))
+                .version(recipeSaved.version())
                 .build();
 
+        long commands = mongoCommands();
         given()
                 .body(recipeVO)
                 .header("Content-type", "application/json")
@@ -228,7 +401,9 @@ public class RecipeControllerTest extends IntegrationBaseTest {
                 .then()
                 .statusCode(200);
 
-        var maybeRecipe = recipeRepository.findByName(recipeVO.name());
+        assertThat(mongoCommands() - commands).isEqualTo(1);
+
+        var maybeRecipe = recipeRepository.findOne(byName(recipeVO.name()));
         assertThat(maybeRecipe.isPresent()).isTrue();
 
         Recipe recipeUpdated = maybeRecipe.get();
@@ -239,6 +414,90 @@ public class RecipeControllerTest extends IntegrationBaseTest {
         assertThat(recipeUpdated.ingredients()).isEqualTo(recipeVO.ingredients());
     }
 
+    @Test
+    void updateWithStaleVersion() {
+        var recipe = Recipe.builder()
+                .name("salmon recipe")
+                .instructions("put on the oven")
+                .isVegetarian(false)
+                .servings(2)
+                .ingredients(List.of("salmon", "potatoes"))
+                .build();
+
+        var recipeSaved = recipeRepository.save(recipe);
+
+        var recipeVO = RecipeVO.builder()
+                .name("vegetables recipe")
+                .instructions("fry on the pan")
+                .isVegetarian(true)
+                .servings(4)
+                .ingredients(List.of("carrot", "potatoes"))
+                .version(recipeSaved.version())
+                .build();
+
+        given()
+                .body(recipeVO)
+                .header("Content-type", "application/json")
+                .when()
+                .put("/v1/recipe/" + recipeSaved.id())
+                .then()
+                .statusCode(200);
+
+        ErrorResponse errorResponse = given()
+                .body(recipeVO.toBuilder().name("carrot recipe").build())
+                .header("Content-type", "application/json")
+                .when()
+                .put("/v1/recipe/" + recipeSaved.id())
+                .then()
+                .statusCode(409)
+                .extract()
+                .as(ErrorResponse.class);
+
+        assertThat(errorResponse.message()).isEqualTo("Recipe was changed by another request");
+
+        var recipeUpdated = recipeRepository.findById(recipeSaved.id());
+        assertThat(recipeUpdated).hasValueSatisfying(value -> {
+            assertThat(value.name()).isEqualTo(recipeVO.name());
+            assertThat(value.version()).isEqualTo(recipeSaved.version() + 1);
+        });
+    }
+
+    @Test
+    void updateWithoutVersion() {
+        var recipe = Recipe.builder()
+                .name("salmon recipe")
+                .instructions("put on the oven")
+                .isVegetarian(false)
+                .servings(2)
+                .ingredients(List.of("salmon", "potatoes"))
+                .build();
+
+        var recipeSaved = recipeRepository.save(recipe);
+
+        var recipeVO = RecipeVO.builder()
+                .name("vegetables recipe")
+                .instructions("fry on the pan")
+                .isVegetarian(true)
+                .servings(4)
+                .ingredients(List.of("carrot", "potatoes"))
+                .build();
+
+        ErrorResponse errorResponse = given()
+                .body(recipeVO)
+                .header("Content-type", "application/json")
+                .when()
+                .put("/v1/recipe/" + recipeSaved.id())
+                .then()
+                .statusCode(428)
+                .extract()
+                .as(ErrorResponse.class);
+
+        assertThat(errorResponse.message()).isEqualTo("version is required to update a recipe");
+
+        var recipeNotUpdated = recipeRepository.findById(recipeSaved.id());
+        assertThat(recipeNotUpdated).hasValueSatisfying(value -> assertThat(value.name()).isEqualTo(recipe.name()));
+    }
+
     @Test
     void updateWithInvalidId() {
         var recipe = Recipe.builder()
@@ -257,6 +516,7 @@ public class RecipeControllerTest extends IntegrationBaseTest {
                 .isVegetarian(true)
                 .servings(4)
                 .ingredients(List.of("carrot", "potatoes"))
+                .version(recipeSaved.version())
                 .build();
 
         ErrorResponse errorResponse = given()
@@ -271,7 +531,7 @@ public class RecipeControllerTest extends IntegrationBaseTest {
 
         assertThat(errorResponse.message()).isEqualTo("Recipe doesn't exist");
 
-        var maybeRecipe = recipeRepository.findByName(recipe.name());
+        var maybeRecipe = recipeRepository.findOne(byName(recipe.name()));
         assertThat(maybeRecipe.isPresent()).isTrue();
 
         Recipe recipeNotUpdated = maybeRecipe.get();
@@ -315,6 +575,392 @@ public class RecipeControllerTest extends IntegrationBaseTest {
         assertThat(recipes.size()).isEqualTo(2);
     }
 
+    @Test
+    void findAllByPages() {
+        var recipe1 = Recipe.builder()
+                .name("salmon recipe")
+                .instructions("put on the oven")
+                .isVegetarian(false)
+                .servings(2)
+                .ingredients(List.of("salmon", "potatoes"))
+                .build();
+
+        var recipe2 = Recipe.builder()
+                .name("vegetables recipe")
+                .instructions("fry on the pan")
+                .isVegetarian(true)
+                .servings(4)
+                .ingredients(List.of("carrot", "potatoes"))
+                .build();
+
+        recipeRepository.saveAll(List.of(recipe1, recipe2));
+
+        var firstPage = given()
+                .header("Content-type", "application/json")
+                .when()
+                .get("/v1/recipe/all?limit=1")
+                .then()
+                .statusCode(200)
+                .extract();
+
+        var firstRecipes = firstPage.as(RecipeVO[].class);
+        assertThat(firstRecipes).hasSize(1);
+        assertThat(firstRecipes[0].name()).isEqualTo(recipe1.name());
+
+        var next = firstPage.header(RecipeController.NEXT_TOKEN_HEADER);
+        assertThat(next).isNotBlank();
+
+        var secondPage = given()
+                .header("Content-type", "application/json")
+                .when()
+                .get("/v1/recipe/all?limit=1&next=" + next)
+                .then()
+                .statusCode(200)
+                .extract();
+
+        var secondRecipes = secondPage.as(RecipeVO[].class);
+        assertThat(secondRecipes).hasSize(1);
+        assertThat(secondRecipes[0].name()).isEqualTo(recipe2.name());
+        assertThat(secondPage.header(RecipeController.NEXT_TOKEN_HEADER)).isNull();
+    }
+
+    @Test
+    void findAllWithFields() {
+        recipeRepository.save(Recipe.builder()
+                .name("salmon recipe")
+                .instructions("put on the oven")
+                .isVegetarian(false)
+                .servings(2)
+                .ingredients(List.of("salmon", "potatoes"))
+                .build());
+
+        var recipes = given()
+                .when()
+                .get("/v1/recipe/all?fields=name,servings")
+                .then()
+                .statusCode(200)
+                .extract()
+                .as(new TypeRef<List<Map<String, Object>>>() {
+                });
+
+        assertThat(recipes).hasSize(1);
+        assertThat(recipes.get(0)).containsOnlyKeys("id", "name", "servings");
+        assertThat(recipes.get(0)).containsEntry("name", "salmon recipe").containsEntry("servings", 2);
+    }
+
+    @Test
+    void findAllWithETag() {
+        recipeRepository.save(Recipe.builder()
+                .name("salmon recipe")
+                .instructions("put on the oven")
+                .isVegetarian(false)
+                .servings(2)
+                .ingredients(List.of("salmon", "potatoes"))
+                .build());
+
+        String eTag = given()
+                .when()
+                .get("/v1/recipe/all")
+                .then()
+                .statusCode(200)
+                .extract()
+                .header("ETag");
+
+        assertThat(eTag).isNotBlank();
+
+        given()
+                .header("If-None-Match", eTag)
+                .when()
+                .get("/v1/recipe/all")
+                .then()
+                .statusCode(304)
+                .header("ETag", eTag);
+
+        given()
+                .header("If-None-Match", eTag)
+                .when()
+                .get("/v1/recipe?isVegetarian=false")
+                .then()
+                .statusCode(200);
+
+        var recipeVO = RecipeVO.builder()
+                .name("vegetables recipe")
+                .instructions("fry on the pan")
+                .isVegetarian(true)
+                .servings(4)
+                .ingredients(List.of("carrot", "potatoes"))
+                .build();
+
+        given()
+                .body(recipeVO)
+                .header("Content-type", "application/json")
+                .when()
+                .post("/v1/recipe")
+                .then()
+                .statusCode(201);
+
+        var recipes = given()
+                .header("If-None-Match", eTag)
+                .when()
+                .get("/v1/recipe/all")
+                .then()
+                .statusCode(200)
+                .header("ETag", not(eTag))
+                .extract()
+                .as(RecipeVO[].class);
+
+        assertThat(recipes).hasSize(2);
+    }
+
+    @Test
+    void facets() {
+        recipeRepository.saveAll(List.of(
+                Recipe.builder()
+                        .name("salmon recipe")
+                        .instructions("put on the oven")
+                        .isVegetarian(false)
+                        .servings(2)
+                        .ingredients(List.of("salmon", "potatoes"))
+                        .build(),
+                Recipe.builder()
+                        .name("carrot recipe")
+                        .instructions("fry on the pan")
+                        .isVegetarian(true)
+                        .servings(2)
+                        .ingredients(List.of("carrot", "potatoes"))
+                        .build(),
+                Recipe.builder()
+                        .name("onion soup")
+                        .instructions("boil in the pot")
+                        .isVegetarian(true)
+                        .servings(4)
+                        .ingredients(List.of("onion", "carrot", "potatoes"))
+                        .build()));
+
+        var facets = given()
+                .when()
+                .get("/v1/recipe/facets")
+                .then()
+                .statusCode(200)
+                .extract()
+                .as(RecipeFacetsVO.class);
+
+        assertThat(facets.total()).isEqualTo(3);
+        assertThat(facets.isVegetarian()).extracting(RecipeFacetCountVO::value, RecipeFacetCountVO::count)
+                .containsExactly(tuple(true, 2L), tuple(false, 1L));
+        assertThat(facets.servings()).extracting(RecipeFacetCountVO::value, RecipeFacetCountVO::count)
+                .containsExactly(tuple(2, 2L), tuple(4, 1L));
+        assertThat(facets.ingredients()).extracting(RecipeFacetCountVO::value, RecipeFacetCountVO::count)
+                .containsExactly(tuple("potatoes", 3L), tuple("carrot", 2L), tuple("onion", 1L), tuple("salmon", 1L));
+
+        var vegetarianFacets = given()
+                .when()
+                .get("/v1/recipe/facets?isVegetarian=true&excludeIngredient=onion")
+                .then()
+                .statusCode(200)
+                .extract()
+                .as(RecipeFacetsVO.class);
+
+        assertThat(vegetarianFacets.total()).isEqualTo(1);
+        assertThat(vegetarianFacets.ingredients()).extracting(RecipeFacetCountVO::value).containsExactly("carrot", "potatoes");
+    }
+
+    @Test
+    void findById() {
+        var recipeSaved = recipeRepository.save(Recipe.builder()
+                .name("salmon recipe")
+                .instructions("put on the oven")
+                .isVegetarian(false)
+                .servings(2)
+                .ingredients(List.of("salmon", "potatoes"))
+                .build());
+
+        var recipeFound = given()
+                .when()
+                .get("/v1/recipe/" + recipeSaved.id())
+                .then()
+                .statusCode(200)
+                .extract()
+                .as(RecipeVO.class);
+
+        assertThat(recipeFound.id()).isEqualTo(recipeSaved.id());
+        assertThat(recipeFound.name()).isEqualTo(recipeSaved.name());
+        assertThat(recipeFound.servings()).isEqualTo(2);
+
+        ErrorResponse errorResponse = given()
+                .when()
+                .get("/v1/recipe/62a1f0c2e4b0a1b2c3d4e5f6")
+                .then()
+                .statusCode(404)
+                .extract()
+                .as(ErrorResponse.class);
+
+        assertThat(errorResponse.message()).isEqualTo("Recipe doesn't exist");
+    }
+
+    @Test
+    void findByIds() {
+        var salmonRecipe = recipeRepository.save(Recipe.builder()
+                .name("salmon recipe")
+                .instructions("put on the oven")
+                .isVegetarian(false)
+                .servings(2)
+                .ingredients(List.of("salmon", "potatoes"))
+                .build());
+        var carrotRecipe = recipeRepository.save(Recipe.builder()
+                .name("carrot recipe")
+                .instructions("fry on the pan")
+                .isVegetarian(true)
+                .servings(4)
+                .ingredients(List.of("carrot", "potatoes"))
+                .build());
+
+        var response = given()
+                .body(RecipeMultiGetRequestVO.builder()
+                        .ids(List.of(carrotRecipe.id(), "62a1f0c2e4b0a1b2c3d4e5f6", salmonRecipe.id()))
+                        .build())
+                .header("Content-type", "application/json")
+                .when()
+                .post("/v1/recipe/_mget")
+                .then()
+                .statusCode(200)
+                .extract()
+                .as(RecipeMultiGetResponseVO.class);
+
+        assertThat(response.recipes()).extracting(RecipeVO::id).containsExactly(carrotRecipe.id(), salmonRecipe.id());
+        assertThat(response.recipes()).extracting(RecipeVO::name).containsExactly("carrot recipe", "salmon recipe");
+        assertThat(response.missing()).containsExactly("62a1f0c2e4b0a1b2c3d4e5f6");
+    }
+
+    @Test
+    void findByIdsWithoutIds() {
+        ErrorResponse errorResponse = given()
+                .body(RecipeMultiGetRequestVO.builder().ids(List.of()).build())
+                .header("Content-type", "application/json")
+                .when()
+                .post("/v1/recipe/_mget")
+                .then()
+                .statusCode(400)
+                .extract()
+                .as(ErrorResponse.class);
+
+        assertThat(errorResponse.message()).isEqualTo("ids must not be empty");
+    }
+
+    @Test
+    void findWithUnknownField() {
+        ErrorResponse errorResponse = given()
+                .when()
+                .get("/v1/recipe?isVegetarian=true&fields=name,calories")
+                .then()
+                .statusCode(400)
+                .extract()
+                .as(ErrorResponse.class);
+
+        assertThat(errorResponse.message()).startsWith("Unknown field calories");
+    }
+
+    @Test
+    void findAllWithInvalidNextToken() {
+        ErrorResponse errorResponse = given()
+                .header("Content-type", "application/json")
+                .when()
+                .get("/v1/recipe/all?next=invalid")
+                .then()
+                .statusCode(400)
+                .extract()
+                .as(ErrorResponse.class);
+
+        assertThat(errorResponse.message()).isEqualTo("Invalid next token");
+    }
+
+    @Test
+    void findAllAsNdjson() {
+        var recipe1 = Recipe.builder()
+                .name("salmon recipe")
+                .instructions("put on the oven")
+                .isVegetarian(false)
+                .servings(2)
+                .ingredients(List.of("salmon", "potatoes"))
+                .build();
+
+        var recipe2 = Recipe.builder()
+                .name("vegetables recipe")
+                .instructions("fry on the pan")
+                .isVegetarian(true)
+                .servings(4)
+                .ingredients(List.of("carrot", "potatoes"))
+                .build();
+
+        recipeRepository.saveAll(List.of(recipe1, recipe2));
+
+        var body = given()
+                .header("Accept", "application/x-ndjson")
+                .when()
+                .get("/v1/recipe/all")
+                .then()
+                .statusCode(200)
+                .contentType("application/x-ndjson")
+                .extract()
+                .asString();
+
+        var recipes = Arrays.stream(body.split("\n"))
+                .map(line -> new JsonPath(line).getString("name"))
+                .toList();
+        assertThat(recipes).containsExactlyInAnyOrder(recipe1.name(), recipe2.name());
+    }
+
+    @Test
+    void findAllAsCbor() throws Exception {
+        recipeRepository.save(Recipe.builder()
+                .name("salmon recipe")
+                .instructions("put on the oven")
+                .isVegetarian(false)
+                .servings(2)
+                .ingredients(List.of("salmon", "potatoes"))
+                .build());
+
+        var body = given()
+                .header("Accept", "application/cbor")
+                .when()
+                .get("/v1/recipe/all")
+                .then()
+                .statusCode(200)
+                .contentType("application/cbor")
+                .extract()
+                .asByteArray();
+
+        var recipes = new CBORMapper().readValue(body, RecipeVO[].class);
+        assertThat(recipes).extracting(RecipeVO::name, RecipeVO::servings).containsExactly(tuple("salmon recipe", 2));
+    }
+
+    @Test
+    void findAllGzipped() throws Exception {
+        recipeRepository.saveAll(IntStream.range(0, 50)
+                .mapToObj(index -> Recipe.builder()
+                        .name("salmon recipe " + index)
+                        .instructions("put on the oven")
+                        .isVegetarian(false)
+                        .servings(2)
+                        .ingredients(List.of("salmon", "potatoes"))
+                        .build())
+                .toList());
+
+        var response = given()
+                .config(RestAssuredConfig.config().decoderConfig(DecoderConfig.decoderConfig().noContentDecoders()))
+                .header("Accept-Encoding", "gzip")
+                .when()
+                .get("/v1/recipe/all")
+                .then()
+                .statusCode(200)
+                .header("Content-Encoding", "gzip")
+                .extract();
+
+        try (var body = new GZIPInputStream(new ByteArrayInputStream(response.asByteArray()))) {
+            assertThat(new JsonPath(body).getList("name")).hasSize(50);
+        }
+    }
+
     @Test
     void remove() {
         var recipe1 = Recipe.builder()
@@ -376,6 +1022,7 @@ public class RecipeControllerTest extends IntegrationBaseTest {
     }
 
     @Test
+    @Tag("mongod")
     void findByInstructions() {
         var recipe1 = Recipe.builder()
                 .name("salmon recipe")
@@ -412,6 +1059,44 @@ public class RecipeControllerTest extends IntegrationBaseTest {
         assertThat(recipeFound.name()).isEqualTo(recipe1.name());
     }
 
+    @Test
+    @Tag("mongod")
+    void findByInstructionPhrase() {
+        var recipe1 = Recipe.builder()
+                .name("salmon recipe")
+                .instructions("put on the oven")
+                .isVegetarian(false)
+                .servings(2)
+                .ingredients(List.of("salmon", "potatoes"))
+                .build();
+
+        var recipe2 = Recipe.builder()
+                .name("vegetables recipe")
+                .instructions("fry on the pan")
+                .isVegetarian(true)
+                .servings(4)
+                .ingredients(List.of("carrot", "potatoes"))
+                .build();
+
+        recipeRepository.saveAll(List.of(recipe1, recipe2));
+
+        var recipesArray = given()
+                .header("Content-type", "application/json")
+                .when()
+                .get("/v1/recipe?instruction=\"the oven\"")
+                .then()
+                .statusCode(200)
+                .extract()
+                .as(RecipeVO[].class);
+
+        var recipes = Arrays.asList(recipesArray);
+        assertThat(recipes.size()).isEqualTo(1);
+
+        RecipeVO recipeFound = recipes.get(0);
+        assertThat(recipeFound.instructions()).contains("the oven");
+        assertThat(recipeFound.name()).isEqualTo(recipe1.name());
+    }
+
     @Test
     void findByServings() {
         var recipe1 = Recipe.builder()
@@ -561,6 +1246,39 @@ public class RecipeControllerTest extends IntegrationBaseTest {
         assertThat(recipeFound.name()).isEqualTo(recipe1.name());
     }
 
+    @Test
+    void findByIncludedAndExcludedIngredients() {
+        var recipe1 = Recipe.builder()
+                .name("salmon recipe")
+                .instructions("put on the oven")
+                .isVegetarian(false)
+                .servings(2)
+                .ingredients(List.of("salmon", "potatoes"))
+                .build();
+
+        var recipe2 = Recipe.builder()
+                .name("vegetables recipe")
+                .instructions("fry on the pan")
+                .isVegetarian(true)
+                .servings(4)
+                .ingredients(List.of("carrot", "potatoes"))
+                .build();
+
+        recipeRepository.saveAll(List.of(recipe1, recipe2));
+
+        var recipesArray = given()
+                .header("Content-type", "application/json")
+                .when()
+                .get("/v1/recipe?includeIngredient=potatoes&excludeIngredient=carrot")
+                .then()
+                .statusCode(200)
+                .extract()
+                .as(RecipeVO[].class);
+
+        var recipes = Arrays.asList(recipesArray);
+        assertThat(recipes).extracting(RecipeVO::name).containsExactly(recipe1.name());
+    }
+
     @Test
     void findByWithInvalidParameters() {
         var recipe1 = Recipe.builder()
@@ -594,5 +1312,14 @@ public class RecipeControllerTest extends IntegrationBaseTest {
         assertThat(recipes.size()).isEqualTo(0);
     }
 
+    /**
+     * Commands sent through the blocking driver, as timed by the command listener.
+     */
+    private long mongoCommands() {
+        return meterRegistry.find("mongodb.driver.commands").timers().stream().mapToLong(Timer::count).sum();
+    }
 
+    private static Example<Recipe> byName(String name) {
+        return Example.of(Recipe.builder().name(name).build());
+    }
 }
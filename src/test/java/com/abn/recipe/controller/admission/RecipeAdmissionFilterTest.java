@@ -0,0 +1,85 @@
+package com.abn.recipe.controller.admission;
+
+import com.abn.recipe.config.AdmissionProperties;
+import com.abn.recipe.service.RecipeMetrics;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import javax.servlet.FilterChain;
+import javax.servlet.http.HttpServletResponse;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class RecipeAdmissionFilterTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final RecipeAdmissionFilter filter = new RecipeAdmissionFilter(
+            new AdmissionProperties(Duration.ofMillis(1500), 0.9, 1, 0.9,
+                    new AdmissionProperties.Budget(1, 1, 1, Duration.ofSeconds(1)),
+                    new AdmissionProperties.Budget(1, 1, 1, Duration.ofSeconds(1))),
+            new RecipeMetrics(meterRegistry), new ObjectMapper());
+
+    @Test
+    public void givenReadBudgetInUseWhenAnotherReadArrivesThenItIsRejectedWith503AndRetryAfter() throws Exception {
+        AtomicReference<MockHttpServletResponse> nested = new AtomicReference<>();
+        FilterChain chain = (request, response) -> {
+            MockHttpServletResponse rejected = new MockHttpServletResponse();
+            filter.doFilter(request("GET", "/api/v1/recipe"), rejected, (nestedRequest, nestedResponse) -> {
+                throw new IllegalStateException("should not be admitted");
+            });
+            nested.set(rejected);
+            ((HttpServletResponse) response).setStatus(200);
+        };
+
+        MockHttpServletResponse admitted = new MockHttpServletResponse();
+        filter.doFilter(request("GET", "/api/v1/recipe"), admitted, chain);
+
+        assertThat(admitted.getStatus()).isEqualTo(200);
+        assertThat(nested.get().getStatus()).isEqualTo(503);
+        assertThat(nested.get().getHeader(HttpHeaders.RETRY_AFTER)).isEqualTo("2");
+        assertThat(nested.get().getContentAsString()).contains("Too many concurrent recipe reads");
+        assertThat(filter.readLimit().inflight()).isZero();
+        assertThat(meterRegistry.get(RecipeMetrics.ADMISSION_REQUESTS)
+                .tag("budget", RecipeAdmissionFilter.READ).tag("outcome", RecipeAdmissionFilter.REJECTED)
+                .counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    public void givenReadBudgetInUseWhenWriteOrMultiGetArrivesThenOnlyTheWriteIsAdmitted() throws Exception {
+        MockHttpServletResponse write = new MockHttpServletResponse();
+        MockHttpServletResponse multiGet = new MockHttpServletResponse();
+        FilterChain chain = (request, response) -> {
+            filter.doFilter(request("PUT", "/api/v1/recipe/1"), write, (nestedRequest, nestedResponse) -> {
+            });
+            filter.doFilter(request("POST", "/api/v1/recipe/_mget"), multiGet, (nestedRequest, nestedResponse) -> {
+            });
+        };
+
+        filter.doFilter(request("GET", "/api/v1/recipe/1"), new MockHttpServletResponse(), chain);
+
+        assertThat(write.getStatus()).isEqualTo(200);
+        assertThat(multiGet.getStatus()).isEqualTo(503);
+        assertThat(filter.writeLimit().inflight()).isZero();
+    }
+
+    @Test
+    public void givenAdmittedRequestFailingWith5xxWhenDoneThenSlotIsReleased() throws Exception {
+        filter.doFilter(request("POST", "/api/v1/recipe"), new MockHttpServletResponse(),
+                (request, response) -> ((HttpServletResponse) response).setStatus(500));
+
+        assertThat(filter.writeLimit().inflight()).isZero();
+        assertThat(meterRegistry.get(RecipeMetrics.ADMISSION_LIMIT).tag("budget", RecipeAdmissionFilter.WRITE)
+                .gauge().value()).isEqualTo(1);
+    }
+
+    private static MockHttpServletRequest request(String method, String uri) {
+        return new MockHttpServletRequest(method, uri);
+    }
+}
@@ -0,0 +1,83 @@
+package com.abn.recipe.controller.stream;
+
+import com.abn.recipe.model.mongo.Recipe;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class RecipeStreamWriterTest {
+
+    private static final int TOTAL_RECIPES = 200_000;
+
+    private final RecipeStreamWriter recipeStreamWriter = new RecipeStreamWriter(new ObjectMapper());
+
+    @Test
+    public void givenLargeSourceWhenWriteThenRecipesAreWrittenAsTheyArrive() throws Exception {
+        var produced = new int[1];
+        var outputStream = new LineCountingOutputStream();
+        var maxPending = new int[1];
+
+        Consumer<Consumer<Recipe>> source = consumer -> IntStream.range(0, TOTAL_RECIPES).forEach(i -> {
+            maxPending[0] = Math.max(maxPending[0], produced[0] - outputStream.lines);
+            produced[0]++;
+            consumer.accept(recipe(i));
+        });
+
+        recipeStreamWriter.write(source, outputStream);
+
+        assertThat(outputStream.lines).isEqualTo(TOTAL_RECIPES);
+        assertThat(maxPending[0]).isLessThanOrEqualTo(200);
+    }
+
+    @Test
+    public void givenRecipesWhenWriteThenEachRecipeIsOneJsonLine() throws Exception {
+        var outputStream = new ByteArrayOutputStream();
+
+        recipeStreamWriter.write(consumer -> {
+            consumer.accept(recipe(1));
+            consumer.accept(recipe(2));
+        }, outputStream);
+
+        var lines = outputStream.toString().split("\n");
+        assertThat(lines).hasSize(2);
+        assertThat(lines[0]).startsWith("{\"id\":\"1\",\"name\":\"recipe 1\"");
+        assertThat(lines[1]).startsWith("{\"id\":\"2\",\"name\":\"recipe 2\"");
+    }
+
+    private static Recipe recipe(int i) {
+        return Recipe.builder()
+                .id(String.valueOf(i))
+                .name("recipe " + i)
+                .instructions("put on the oven")
+                .isVegetarian(i % 2 == 0)
+                .servings(i % 8)
+                .ingredients(List.of("salmon", "potatoes"))
+                .build();
+    }
+
+    private static class LineCountingOutputStream extends OutputStream {
+
+        private int lines;
+
+        @Override
+        public void write(int b) {
+            if (b == '\n') {
+                lines++;
+            }
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            for (int i = off; i < off + len; i++) {
+                write(b[i]);
+            }
+        }
+    }
+}
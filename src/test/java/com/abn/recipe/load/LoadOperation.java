@@ -0,0 +1,23 @@
+package com.abn.recipe.load;
+
+/**
+ * Requests of the load mix, the key names their weight in load-test.properties.
+ */
+public enum LoadOperation {
+
+    FILTER("filter"),
+    ALL("all"),
+    CREATE("create"),
+    UPDATE("update"),
+    DELETE("delete");
+
+    private final String key;
+
+    LoadOperation(String key) {
+        this.key = key;
+    }
+
+    public String key() {
+        return key;
+    }
+}
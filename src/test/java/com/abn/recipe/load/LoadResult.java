@@ -0,0 +1,137 @@
+package com.abn.recipe.load;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Latency histograms in nanoseconds and failure counts of a load run, per operation and for all of them. Requests
+ * shed by the admission control are counted as rejected, apart from the failures.
+ */
+public class LoadResult {
+
+    private static final int SIGNIFICANT_DIGITS = 3;
+
+    private static final double NANOS_PER_MILLI = 1e6;
+
+    private final Map<LoadOperation, Histogram> latencies = new EnumMap<>(LoadOperation.class);
+
+    private final Map<LoadOperation, AtomicLong> failures = new EnumMap<>(LoadOperation.class);
+
+    private final Histogram all = new ConcurrentHistogram(SIGNIFICANT_DIGITS);
+
+    private final AtomicLong failed = new AtomicLong();
+
+    private final AtomicLong rejected = new AtomicLong();
+
+    private final long startNanos = System.nanoTime();
+
+    private volatile long endNanos;
+
+    public LoadResult() {
+        for (LoadOperation operation : LoadOperation.values()) {
+            latencies.put(operation, new ConcurrentHistogram(SIGNIFICANT_DIGITS));
+            failures.put(operation, new AtomicLong());
+        }
+    }
+
+    public void record(LoadOperation operation, long latencyNanos) {
+        latencies.get(operation).recordValue(latencyNanos);
+        all.recordValue(latencyNanos);
+    }
+
+    public void fail(LoadOperation operation) {
+        failures.get(operation).incrementAndGet();
+        failed.incrementAndGet();
+    }
+
+    public void reject() {
+        rejected.incrementAndGet();
+    }
+
+    public void finish() {
+        endNanos = System.nanoTime();
+    }
+
+    public double seconds() {
+        return (endNanos - startNanos) / 1e9;
+    }
+
+    public double throughput() {
+        return all.getTotalCount() / seconds();
+    }
+
+    public double errorRate() {
+        long requests = all.getTotalCount() + failed.get();
+        return requests == 0 ? 0 : (double) failed.get() / requests;
+    }
+
+    public double rejectionRate() {
+        long requests = all.getTotalCount() + failed.get() + rejected.get();
+        return requests == 0 ? 0 : (double) rejected.get() / requests;
+    }
+
+    public List<String> report() {
+        List<String> lines = new ArrayList<>();
+        lines.add("operation,requests,failed,requests_per_second,p50_ms,p90_ms,p99_ms,p999_ms,max_ms");
+        for (LoadOperation operation : LoadOperation.values()) {
+            lines.add(line(operation.key(), latencies.get(operation), failures.get(operation).get()));
+        }
+        lines.add(line("all", all, failed.get()));
+        lines.add("rejected," + rejected.get());
+        return lines;
+    }
+
+    /**
+     * Percentile distribution of all requests in milliseconds, in the format the HdrHistogram plotter reads.
+     */
+    public void writeDistribution(PrintStream out) {
+        all.outputPercentileDistribution(out, NANOS_PER_MILLI);
+    }
+
+    /**
+     * Every broken budget as a readable sentence, empty when the run is within budget.
+     */
+    public List<String> violations(LoadSettings settings) {
+        LoadSettings.Budget budget = settings.budget();
+        List<String> violations = new ArrayList<>();
+        checkLatency(violations, "p50", 50.0, budget.p50Millis());
+        checkLatency(violations, "p99", 99.0, budget.p99Millis());
+        checkLatency(violations, "p99.9", 99.9, budget.p999Millis());
+        if (errorRate() > budget.maxErrorRate()) {
+            violations.add("error rate %.4f above %.4f".formatted(errorRate(), budget.maxErrorRate()));
+        }
+        if (rejectionRate() > budget.maxRejectionRate()) {
+            violations.add("rejection rate %.4f above %.4f".formatted(rejectionRate(), budget.maxRejectionRate()));
+        }
+        double throughputRatio = throughput() / settings.rate();
+        if (throughputRatio < budget.minThroughputRatio()) {
+            violations.add("throughput %.1f/s is %.2f of the %d/s target, below %.2f".formatted(throughput(),
+                    throughputRatio, settings.rate(), budget.minThroughputRatio()));
+        }
+        return violations;
+    }
+
+    private void checkLatency(List<String> violations, String name, double percentile, double budgetMillis) {
+        double millis = all.getValueAtPercentile(percentile) / NANOS_PER_MILLI;
+        if (millis > budgetMillis) {
+            violations.add("%s latency %.2f ms above %.2f ms".formatted(name, millis, budgetMillis));
+        }
+    }
+
+    private String line(String name, Histogram histogram, long failedRequests) {
+        return "%s,%d,%d,%.1f,%.2f,%.2f,%.2f,%.2f,%.2f".formatted(name, histogram.getTotalCount(), failedRequests,
+                histogram.getTotalCount() / seconds(),
+                histogram.getValueAtPercentile(50) / NANOS_PER_MILLI,
+                histogram.getValueAtPercentile(90) / NANOS_PER_MILLI,
+                histogram.getValueAtPercentile(99) / NANOS_PER_MILLI,
+                histogram.getValueAtPercentile(99.9) / NANOS_PER_MILLI,
+                histogram.getMaxValue() / NANOS_PER_MILLI);
+    }
+}
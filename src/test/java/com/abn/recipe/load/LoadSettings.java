@@ -0,0 +1,69 @@
+package com.abn.recipe.load;
+
+import org.springframework.boot.convert.DurationStyle;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Settings and budgets of a load run, read from load-test.properties and overridden by the load.* system properties.
+ */
+public record LoadSettings(int recipes,
+                           int rate,
+                           Duration warmup,
+                           Duration duration,
+                           Duration requestTimeout,
+                           String profile,
+                           List<String> appArgs,
+                           Map<LoadOperation, Integer> mix,
+                           Budget budget) {
+
+    private static final String RESOURCE = "/load-test.properties";
+
+    private static final String SYSTEM_PREFIX = "load.";
+
+    public record Budget(double p50Millis, double p99Millis, double p999Millis, double maxErrorRate, double maxRejectionRate,
+                         double minThroughputRatio) {
+    }
+
+    public static LoadSettings load() {
+        Properties properties = new Properties();
+        try (InputStream in = LoadSettings.class.getResourceAsStream(RESOURCE)) {
+            properties.load(in);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        System.getProperties().stringPropertyNames().stream()
+                .filter(name -> name.startsWith(SYSTEM_PREFIX))
+                .forEach(name -> properties.setProperty(name.substring(SYSTEM_PREFIX.length()), System.getProperty(name)));
+
+        Map<LoadOperation, Integer> mix = new EnumMap<>(LoadOperation.class);
+        for (LoadOperation operation : LoadOperation.values()) {
+            mix.put(operation, Integer.parseInt(properties.getProperty("mix." + operation.key(), "0")));
+        }
+
+        return new LoadSettings(
+                Integer.parseInt(properties.getProperty("recipes")),
+                Integer.parseInt(properties.getProperty("rate")),
+                DurationStyle.detectAndParse(properties.getProperty("warmup")),
+                DurationStyle.detectAndParse(properties.getProperty("duration")),
+                DurationStyle.detectAndParse(properties.getProperty("request-timeout")),
+                properties.getProperty("profile"),
+                Arrays.stream(properties.getProperty("app-args", "").split("\\s+")).filter(arg -> !arg.isBlank()).toList(),
+                mix,
+                new Budget(
+                        Double.parseDouble(properties.getProperty("budget.p50-ms")),
+                        Double.parseDouble(properties.getProperty("budget.p99-ms")),
+                        Double.parseDouble(properties.getProperty("budget.p999-ms")),
+                        Double.parseDouble(properties.getProperty("budget.max-error-rate")),
+                        Double.parseDouble(properties.getProperty("budget.max-rejection-rate")),
+                        Double.parseDouble(properties.getProperty("budget.min-throughput-ratio"))));
+    }
+}
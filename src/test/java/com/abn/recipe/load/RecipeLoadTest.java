@@ -0,0 +1,272 @@
+package com.abn.recipe.load;
+
+import com.abn.recipe.ApiAbnRecipe;
+import com.abn.recipe.benchmark.BenchmarkReport;
+import com.abn.recipe.benchmark.RecipeDataset;
+import com.abn.recipe.controller.builder.RecipeVOBuilder;
+import com.abn.recipe.model.mongo.Recipe;
+import com.abn.recipe.service.store.RecipeBulkOperation;
+import com.abn.recipe.service.store.RecipeStore;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import de.bwaldvogel.mongo.MongoServer;
+import de.bwaldvogel.mongo.backend.memory.MemoryBackend;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.locks.LockSupport;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Starts the application on an in-process Mongo stand-in, seeds it and sends a mix of filtered reads, pages of all
+ * recipes, creates, updates and deletes at a fixed rate. Requests are sent on schedule whatever the latency of the
+ * previous ones, and latency is measured from the scheduled start, so a slow server is not hidden by a generator
+ * that waits for it. Throughput and latency percentiles are written to target/load and the run fails when a budget
+ * of load-test.properties is broken. Requests shed with 503 by the admission control count as rejected, not as
+ * latency samples or failures.
+ * Run with mvn test -Pload, settings can be overridden with -Dload.rate=500 -Dload.duration=60s and so on.
+ */
+@Tag("load")
+public class RecipeLoadTest {
+
+    private static final String[] FILTERS = {
+            "/v1/recipe?isVegetarian=true&servings=4&limit=50",
+            "/v1/recipe?includeIngredient=salmon&limit=50",
+            "/v1/recipe?isVegetarian=false&excludeIngredient=garlic&limit=50",
+            "/v1/recipe?instruction=oven&limit=20"
+    };
+
+    private static final String ALL = "/v1/recipe/all?limit=100";
+
+    private static final Pattern CREATED_ID = Pattern.compile("Recipe created id (\\w+)");
+
+    private static final int SERVICE_UNAVAILABLE = 503;
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private static final LoadSettings SETTINGS = LoadSettings.load();
+
+    /**
+     * Recipes that exist and are not being updated or deleted, updates and deletes take one so they never collide.
+     */
+    private static final Deque<String> IDS = new ConcurrentLinkedDeque<>();
+
+    /**
+     * Version of every recipe in {@link #IDS}, sent with its update. Only the request holding the id changes it.
+     */
+    private static final Map<String, Long> VERSIONS = new ConcurrentHashMap<>();
+
+    private static MongoServer mongoServer;
+
+    private static ConfigurableApplicationContext application;
+
+    private static HttpClient client;
+
+    private static String baseUrl;
+
+    private final Random random = new Random(42);
+
+    private final RecipeDataset dataset = new RecipeDataset(42);
+
+    private int written;
+
+    @BeforeAll
+    public static void beforeAll() {
+        mongoServer = new MongoServer(new MemoryBackend());
+        String connectionString = mongoServer.bindAndGetConnectionString();
+
+        List<String> arguments = new ArrayList<>(List.of("--server.port=0",
+                "--database.mongodb.url=" + connectionString + "/",
+                "--database.mongodb.name=recipes-load",
+                // the stand-in has no text search
+                "--recipe.search.instruction-mode=REGEX",
+                "--logging.level.root=WARN"));
+        arguments.addAll(SETTINGS.appArgs());
+        application = new SpringApplicationBuilder(ApiAbnRecipe.class)
+                .profiles(SETTINGS.profile())
+                .run(arguments.toArray(String[]::new));
+
+        // one bulk write through the configured store, so the memory store is seeded the same way
+        List<RecipeBulkOperation> creates = new RecipeDataset(SETTINGS.recipes()).recipes(SETTINGS.recipes()).stream()
+                .map(recipe -> new RecipeBulkOperation(RecipeBulkOperation.Type.CREATE, null, recipe))
+                .toList();
+        application.getBean(RecipeStore.class).bulk(creates, false).items()
+                .forEach(item -> add(item.recipe().id()));
+
+        client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(SETTINGS.requestTimeout())
+                .build();
+        baseUrl = "http://localhost:" + application.getEnvironment().getProperty("local.server.port") + "/api";
+    }
+
+    @AfterAll
+    public static void afterAll() {
+        application.close();
+        mongoServer.shutdownNow();
+    }
+
+    @Test
+    public void recipeMixWithinBudgets() throws IOException {
+        run(SETTINGS.warmup());
+        LoadResult result = run(SETTINGS.duration());
+
+        List<String> lines = result.report();
+        Path report = BenchmarkReport.write("load", "recipe-load.csv", lines);
+        try (PrintStream distribution = new PrintStream(Files.newOutputStream(report.resolveSibling("recipe-load.hgrm")))) {
+            result.writeDistribution(distribution);
+        }
+
+        assertThat(result.violations(SETTINGS))
+                .as("budgets of %d requests/s over %s", SETTINGS.rate(), SETTINGS.duration())
+                .isEmpty();
+    }
+
+    private LoadResult run(Duration duration) {
+        LoadResult result = new LoadResult();
+        long interval = 1_000_000_000L / SETTINGS.rate();
+        long requests = duration.toNanos() / interval;
+        List<CompletableFuture<Void>> sent = new ArrayList<>();
+
+        long start = System.nanoTime();
+        for (long request = 0; request < requests; request++) {
+            long scheduled = start + request * interval;
+            long wait = scheduled - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            sent.add(send(nextOperation(), scheduled, result));
+        }
+        CompletableFuture.allOf(sent.toArray(CompletableFuture[]::new)).join();
+        result.finish();
+        return result;
+    }
+
+    private CompletableFuture<Void> send(LoadOperation operation, long scheduled, LoadResult result) {
+        boolean takesRecipe = operation.equals(LoadOperation.UPDATE) || operation.equals(LoadOperation.DELETE);
+        String id = takesRecipe ? IDS.pollFirst() : null;
+        if (takesRecipe && Objects.isNull(id)) {
+            // every recipe is deleted or busy
+            return send(LoadOperation.CREATE, scheduled, result);
+        }
+
+        HttpRequest request = request(operation, id);
+        int expectedStatus = operation.equals(LoadOperation.CREATE) ? 201 : 200;
+        return client.sendAsync(request, HttpResponse.BodyHandlers.ofString())
+                .handle((response, error) -> {
+                    boolean succeeded = Objects.isNull(error) && response.statusCode() == expectedStatus;
+                    if (succeeded) {
+                        result.record(operation, System.nanoTime() - scheduled);
+                    } else if (Objects.isNull(error) && response.statusCode() == SERVICE_UNAVAILABLE) {
+                        result.reject();
+                    } else {
+                        result.fail(operation);
+                    }
+                    release(operation, id, succeeded ? response.body() : null);
+                    return null;
+                });
+    }
+
+    /**
+     * Puts the recipe back once its update or failed delete completed and makes created recipes available.
+     */
+    private static void release(LoadOperation operation, String id, String body) {
+        switch (operation) {
+            case UPDATE -> {
+                if (Objects.nonNull(body)) {
+                    VERSIONS.merge(id, 1L, Long::sum);
+                }
+                IDS.addLast(id);
+            }
+            case DELETE -> {
+                if (Objects.isNull(body)) {
+                    IDS.addLast(id);
+                } else {
+                    VERSIONS.remove(id);
+                }
+            }
+            case CREATE -> {
+                Matcher created = CREATED_ID.matcher(Objects.requireNonNullElse(body, ""));
+                if (created.find()) {
+                    add(created.group(1));
+                }
+            }
+            default -> {
+            }
+        }
+    }
+
+    private static void add(String id) {
+        VERSIONS.put(id, 0L);
+        IDS.addLast(id);
+    }
+
+    private HttpRequest request(LoadOperation operation, String id) {
+        return switch (operation) {
+            case FILTER -> get(FILTERS[random.nextInt(FILTERS.length)]);
+            case ALL -> get(ALL);
+            case CREATE -> builder("/v1/recipe").POST(body("load created", null)).build();
+            case UPDATE -> builder("/v1/recipe/" + id).PUT(body("load updated", VERSIONS.get(id))).build();
+            case DELETE -> builder("/v1/recipe/" + id).DELETE().build();
+        };
+    }
+
+    private LoadOperation nextOperation() {
+        Map<LoadOperation, Integer> mix = SETTINGS.mix();
+        int pick = random.nextInt(mix.values().stream().mapToInt(Integer::intValue).sum());
+        for (var weight : mix.entrySet()) {
+            pick -= weight.getValue();
+            if (pick < 0) {
+                return weight.getKey();
+            }
+        }
+        throw new IllegalStateException("Empty load mix");
+    }
+
+    /**
+     * Names are unique, a recipe name can only be used once.
+     */
+    private HttpRequest.BodyPublisher body(String namePrefix, Long version) {
+        Recipe recipe = dataset.recipe(written).toBuilder().name(namePrefix + " " + written++).version(version).build();
+        try {
+            return HttpRequest.BodyPublishers.ofString(OBJECT_MAPPER.writeValueAsString(RecipeVOBuilder.build(recipe)));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static HttpRequest get(String path) {
+        return builder(path).GET().build();
+    }
+
+    private static HttpRequest.Builder builder(String path) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .timeout(SETTINGS.requestTimeout())
+                .header("Content-Type", "application/json");
+    }
+}
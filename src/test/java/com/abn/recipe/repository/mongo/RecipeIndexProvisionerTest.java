@@ -0,0 +1,95 @@
+package com.abn.recipe.repository.mongo;
+
+import com.abn.recipe.model.mongo.Recipe;
+import com.abn.recipe.repository.mongo.RecipeIndexProvisioner.IndexStatus;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexDefinition;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class RecipeIndexProvisionerTest {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(5);
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @Mock
+    private IndexOperations indexOperations;
+
+    private RecipeIndexProvisioner recipeIndexProvisioner;
+
+    @BeforeEach
+    public void setUp() {
+        when(mongoTemplate.indexOps(Recipe.class)).thenReturn(indexOperations);
+        recipeIndexProvisioner = new RecipeIndexProvisioner(mongoTemplate, Duration.ofMillis(10));
+    }
+
+    @AfterEach
+    public void tearDown() {
+        recipeIndexProvisioner.stop();
+    }
+
+    @Test
+    public void givenIndexStillBuildingWhenStartedThenStartReturnsAndStatusIsBuilding() throws InterruptedException {
+        CountDownLatch built = new CountDownLatch(1);
+        when(indexOperations.ensureIndex(any())).thenAnswer(invocation -> {
+            built.await();
+            return name(invocation.getArgument(0));
+        });
+
+        recipeIndexProvisioner.start();
+
+        assertThat(await(() -> recipeIndexProvisioner.statuses().containsValue(IndexStatus.BUILDING))).isTrue();
+        assertThat(recipeIndexProvisioner.statuses()).containsEntry(RecipeIndexProvisioner.NAME_UNIQUE_INDEX, IndexStatus.BUILDING);
+        assertThat(recipeIndexProvisioner.isReady()).isFalse();
+
+        built.countDown();
+        assertThat(await(recipeIndexProvisioner::isReady)).isTrue();
+    }
+
+    @Test
+    public void givenIndexBuildFailingOnceWhenStartedThenItIsRetriedUntilReady() throws InterruptedException {
+        doAnswer(invocation -> name(invocation.getArgument(0))).when(indexOperations).ensureIndex(any());
+        doThrow(new DataAccessResourceFailureException("Mongo is down"))
+                .doReturn(RecipeIndexProvisioner.INGREDIENTS_INDEX)
+                .when(indexOperations).ensureIndex(argThat(index -> RecipeIndexProvisioner.INGREDIENTS_INDEX.equals(name(index))));
+
+        recipeIndexProvisioner.start();
+
+        assertThat(await(recipeIndexProvisioner::isReady)).isTrue();
+        verify(indexOperations, times(2)).ensureIndex(argThat(index -> RecipeIndexProvisioner.INGREDIENTS_INDEX.equals(name(index))));
+        verify(indexOperations, times(RecipeIndexProvisioner.INDEXES.size() + 1)).ensureIndex(any());
+    }
+
+    private static String name(IndexDefinition index) {
+        return index.getIndexOptions().getString("name");
+    }
+
+    private static boolean await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TIMEOUT.toNanos();
+        while (System.nanoTime() < deadline) {
+            if (condition.getAsBoolean()) {
+                return true;
+            }
+            Thread.sleep(10);
+        }
+        return false;
+    }
+}
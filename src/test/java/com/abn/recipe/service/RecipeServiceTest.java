@@ -1,67 +1,420 @@
 package com.abn.recipe.service;
 
+import com.abn.recipe.controller.vo.RecipeBulkOperationType;
+import com.abn.recipe.controller.vo.RecipeBulkOperationVO;
+import com.abn.recipe.controller.vo.RecipeBulkRequestVO;
+import com.abn.recipe.controller.vo.RecipeBulkResponseVO;
+import com.abn.recipe.controller.vo.RecipeBulkResultStatus;
+import com.abn.recipe.controller.vo.RecipeBulkResultVO;
 import com.abn.recipe.controller.vo.RecipeVO;
+import com.abn.recipe.exception.InvalidParameterException;
+import com.abn.recipe.exception.PreconditionRequiredException;
 import com.abn.recipe.exception.ResourceAlreadyExistException;
+import com.abn.recipe.exception.ResourceConflictException;
 import com.abn.recipe.exception.ResourceNotFoundException;
+import com.abn.recipe.model.RecipeFacetCount;
+import com.abn.recipe.model.RecipeFacets;
+import com.abn.recipe.model.RecipeFilter;
+import com.abn.recipe.model.RecipeMultiGet;
+import com.abn.recipe.model.RecipePage;
+import com.abn.recipe.model.RecipeProjection;
 import com.abn.recipe.model.mongo.Recipe;
 import com.abn.recipe.repository.mongo.RecipeRepository;
+import com.abn.recipe.service.cache.RecipeCache;
+import com.abn.recipe.service.dictionary.IngredientDictionary;
+import com.abn.recipe.service.index.RecipeIngredientIndex;
+import com.abn.recipe.service.store.MongoRecipeStore;
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.ServerAddress;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.bulk.BulkWriteResult;
+import com.mongodb.client.result.DeleteResult;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bson.BsonDocument;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Captor;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.cache.support.NoOpCacheManager;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
 import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationResults;
 import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.data.util.CloseableIterator;
+import org.springframework.test.util.ReflectionTestUtils;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
 public class RecipeServiceTest {
 
-    @InjectMocks
+    private static final int DEFAULT_LIMIT = 100;
+
+    private static final int MAX_LIMIT = 1000;
+
     private RecipeService recipeService;
 
+    private MongoRecipeStore recipeStore;
+
     @Mock
     private RecipeRepository recipeRepository;
 
     @Mock
     private MongoTemplate mongoTemplate;
 
+    @Mock
+    private RecipeIngredientIndex recipeIngredientIndex;
+
+    private final RecipeCollectionVersion recipeCollectionVersion = new RecipeCollectionVersion();
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Spy
+    private RecipeMetrics recipeMetrics = new RecipeMetrics(meterRegistry);
+
+    @Spy
+    private RecipeCache recipeCache = new RecipeCache(new NoOpCacheManager(), new IngredientDictionary(), recipeCollectionVersion,
+                recipeMetrics, Duration.ofSeconds(2));
+
+    @Spy
+    private RecipeQueries recipeQueries = new RecipeQueries(DEFAULT_LIMIT, MAX_LIMIT, InstructionSearchMode.TEXT, Duration.ofSeconds(2));
+
     @Captor
     private ArgumentCaptor<Recipe> recipeArgumentCaptor;
 
     @Captor
     private ArgumentCaptor<Query> queryArgumentCaptor;
 
+    @Captor
+    private ArgumentCaptor<Update> updateArgumentCaptor;
+
+    @Captor
+    private ArgumentCaptor<Aggregation> aggregationArgumentCaptor;
+
+    @BeforeEach
+    public void beforeEach() {
+        recipeStore = new MongoRecipeStore(recipeRepository, mongoTemplate, recipeQueries, recipeCollectionVersion);
+        recipeService = new RecipeService(recipeStore, recipeCache, recipeIngredientIndex, recipeQueries, recipeMetrics);
+        ReflectionTestUtils.setField(recipeService, "maxIndexCandidates", MAX_LIMIT);
+        ReflectionTestUtils.setField(recipeService, "topIngredients", 10);
+    }
+
     @Test
     public void givenExistingRecipeWhenRemoveThenIsDeleted() {
+        when(mongoTemplate.remove(any(Query.class), eq(Recipe.class))).thenReturn(DeleteResult.acknowledged(1));
+        long version = recipeCollectionVersion.current();
+
+        recipeService.remove("123");
+
+        verify(mongoTemplate, times(1)).remove(queryArgumentCaptor.capture(), eq(Recipe.class));
+        assertThat(queryArgumentCaptor.getValue().getQueryObject().toJson()).isEqualTo("{\"_id\": \"123\"}");
+        assertThat(recipeCollectionVersion.current()).isEqualTo(version + 1);
+    }
+
+    @Test
+    public void givenMissingRecipeWhenRemoveThenVersionIsKept() {
+        when(mongoTemplate.remove(any(Query.class), eq(Recipe.class))).thenReturn(DeleteResult.acknowledged(0));
+        long version = recipeCollectionVersion.current();
+
         recipeService.remove("123");
 
-        verify(recipeRepository, times(1)).deleteById(anyString());
+        assertThat(recipeCollectionVersion.current()).isEqualTo(version);
+        verify(recipeCache, times(0)).evictRemoved("123");
+    }
+
+    @Test
+    public void givenFilterWhenFacetsThenOneAggregationMatchesTheFilterFirst() {
+        Document result = new Document("total", List.of(new Document("count", 3)))
+                .append("isVegetarian", List.of(new Document("_id", true).append("count", 2), new Document("_id", false).append("count", 1)))
+                .append("servings", List.of(new Document("_id", 2).append("count", 3)))
+                .append("ingredients", List.of(new Document("_id", "potatoes").append("count", 3)));
+        when(mongoTemplate.aggregate(any(Aggregation.class), eq(Recipe.class), eq(Document.class)))
+                .thenReturn(new AggregationResults<>(List.of(result), new Document()));
+
+        RecipeFacets facets = recipeService.facets(RecipeFilter.builder().servings(2).build());
+
+        verify(mongoTemplate, times(1)).aggregate(aggregationArgumentCaptor.capture(), eq(Recipe.class), eq(Document.class));
+        List<Document> pipeline = aggregationArgumentCaptor.getValue().toPipeline(Aggregation.DEFAULT_CONTEXT);
+
+        assertThat(pipeline).hasSize(2);
+        assertThat(pipeline.get(0)).isEqualTo(new Document("$match", new Document("servings", 2)));
+        assertThat(pipeline.get(1).get("$facet", Document.class)).containsOnlyKeys("total", "isVegetarian", "servings", "ingredients");
+        assertThat(facets.total()).isEqualTo(3);
+        assertThat(facets.isVegetarian()).containsExactly(new RecipeFacetCount<>(true, 2), new RecipeFacetCount<>(false, 1));
+        assertThat(facets.ingredients()).containsExactly(new RecipeFacetCount<>("potatoes", 3));
+    }
+
+    @Test
+    public void givenIdsWhenFindByIdsThenRecipesFollowIdOrderAndMissingIdsAreReported() {
+        Recipe salmonRecipe = Recipe.builder().id("62a1f0c2e4b0a1b2c3d4e5f6").name("salmon recipe").build();
+        Recipe carrotRecipe = Recipe.builder().id("62a1f0c2e4b0a1b2c3d4e5f7").name("carrot recipe").build();
+        when(recipeRepository.findAllById(any())).thenReturn(List.of(salmonRecipe, carrotRecipe));
+
+        RecipeMultiGet multiGet = recipeService.findByIds(List.of(carrotRecipe.id(), "123", salmonRecipe.id(), carrotRecipe.id()));
+
+        verify(recipeRepository, times(1)).findAllById(Set.of(carrotRecipe.id(), "123", salmonRecipe.id()));
+        assertThat(multiGet.recipes()).containsExactly(carrotRecipe, salmonRecipe);
+        assertThat(multiGet.missing()).containsExactly("123");
+    }
+
+    @Test
+    public void givenSameCollectionVersionWhenETagThenTagIsStableAndNoRecipeIsRead() {
+        RecipeFilter filter = RecipeFilter.builder().isVegetarian(true).build();
+
+        String eTag = recipeService.eTag(filter, RecipeProjection.ALL, null, null);
+
+        assertThat(eTag).startsWith("W/\"" + recipeCollectionVersion.current() + "-").endsWith("\"");
+        assertThat(recipeService.eTag(filter, RecipeProjection.ALL, null, DEFAULT_LIMIT)).isEqualTo(eTag);
+        assertThat(recipeService.eTag(filter, RecipeProjection.of(List.of("name")), null, null)).isNotEqualTo(eTag);
+        assertThat(recipeService.eTag(RecipeFilter.builder().build(), RecipeProjection.ALL, null, null)).isNotEqualTo(eTag);
+        verifyNoInteractions(mongoTemplate);
+
+        recipeCollectionVersion.increment();
+
+        assertThat(recipeService.eTag(filter, RecipeProjection.ALL, null, null)).isNotEqualTo(eTag);
     }
 
     @Test
     public void givenExistingRecipesWhenFindAllThenRecipesAreReturned() {
+        Recipe salmonRecipe = Recipe.builder().id("62a1f0c2e4b0a1b2c3d4e5f6").name("salmon recipe").build();
+        when(mongoTemplate.find(any(Query.class), eq(Recipe.class))).thenReturn(List.of(salmonRecipe));
+
+        RecipePage page = recipeService.findAll(null, null);
+
+        assertThat(page.recipes()).hasSize(1);
+        assertThat(page.next()).isNull();
+
+        verify(mongoTemplate, times(1)).find(queryArgumentCaptor.capture(), eq(Recipe.class));
+
+        Query query = queryArgumentCaptor.getValue();
+        assertThat(query.getLimit()).isEqualTo(DEFAULT_LIMIT + 1);
+        assertThat(query.getSortObject().toJson()).isEqualTo("{\"_id\": 1}");
+    }
+
+    @Test
+    public void givenMoreRecipesThanLimitWhenFindThenNextTokenIsReturned() {
+        Recipe salmonRecipe = Recipe.builder().id("62a1f0c2e4b0a1b2c3d4e5f6").name("salmon recipe").build();
+        Recipe carrotRecipe = Recipe.builder().id("62a1f0c2e4b0a1b2c3d4e5f7").name("carrot recipe").build();
+        when(mongoTemplate.find(any(Query.class), eq(Recipe.class))).thenReturn(new ArrayList<>(List.of(salmonRecipe, carrotRecipe)));
+
+        RecipePage page = recipeService.find(RecipeFilter.builder().build(), null, 1);
+
+        assertThat(page.recipes()).containsExactly(salmonRecipe);
+        assertThat(page.next()).isEqualTo(PageToken.encode(salmonRecipe.id()));
+    }
+
+    @Test
+    public void givenNextTokenWhenFindThenQueryStartsAfterLastId() {
+        String next = PageToken.encode("62a1f0c2e4b0a1b2c3d4e5f6");
+
+        recipeService.find(RecipeFilter.builder().build(), next, 10);
+
+        verify(mongoTemplate, times(1)).find(queryArgumentCaptor.capture(), eq(Recipe.class));
+
+        Query query = queryArgumentCaptor.getValue();
+        assertThat(query.toString()).contains("\"_id\" : { \"$gt\" : { \"$oid\" : \"62a1f0c2e4b0a1b2c3d4e5f6\"}}");
+        assertThat(query.getLimit()).isEqualTo(11);
+    }
+
+    @Test
+    public void givenLimitAboveMaximumWhenFindThenLimitIsCapped() {
+        recipeService.find(RecipeFilter.builder().build(), null, MAX_LIMIT * 10);
+
+        verify(mongoTemplate, times(1)).find(queryArgumentCaptor.capture(), eq(Recipe.class));
+
+        assertThat(queryArgumentCaptor.getValue().getLimit()).isEqualTo(MAX_LIMIT + 1);
+    }
+
+    @Test
+    public void givenFilterWhenFindThenResultSizeIsRecorded() {
+        RecipeFilter filter = RecipeFilter.builder().isVegetarian(true).build();
+        Recipe carrotRecipe = Recipe.builder().id("62a1f0c2e4b0a1b2c3d4e5f7").name("carrot recipe").build();
+        when(mongoTemplate.find(any(Query.class), eq(Recipe.class))).thenReturn(List.of(carrotRecipe));
+
+        recipeService.find(filter, null, null);
+
+        DistributionSummary results = meterRegistry.get(RecipeMetrics.FIND_RESULTS).tag("filtered", "true").summary();
+        assertThat(results.count()).isEqualTo(1);
+        assertThat(results.totalAmount()).isEqualTo(1);
+    }
+
+    @Test
+    public void givenConcurrentIdenticalFindsWhenReadIsSlowThenOneQueryIsShared() throws Exception {
+        int callers = 8;
+        RecipeCache caffeineCache = new RecipeCache(new CaffeineCacheManager(
+                RecipeCache.RECIPES_BY_ID, RecipeCache.RECIPES_BY_FILTER), new IngredientDictionary(), recipeCollectionVersion,
+                recipeMetrics, Duration.ofSeconds(2));
+        RecipeService cachedService = new RecipeService(recipeStore, caffeineCache, recipeIngredientIndex, recipeQueries, recipeMetrics);
+        ReflectionTestUtils.setField(cachedService, "maxIndexCandidates", MAX_LIMIT);
+        RecipeFilter filter = RecipeFilter.builder().isVegetarian(true).servings(4).build();
+        Recipe carrotRecipe = Recipe.builder().id("62a1f0c2e4b0a1b2c3d4e5f7").name("carrot recipe").build();
+        CountDownLatch release = new CountDownLatch(1);
+        when(mongoTemplate.find(any(Query.class), eq(Recipe.class))).thenAnswer(invocation -> {
+            release.await(5, TimeUnit.SECONDS);
+            return List.of(carrotRecipe);
+        });
+
+        ExecutorService executor = Executors.newFixedThreadPool(callers);
+        try {
+            List<Future<RecipePage>> pages = new ArrayList<>();
+            for (int caller = 0; caller < callers; caller++) {
+                pages.add(executor.submit(() -> cachedService.find(filter, null, null)));
+            }
+            awaitJoined(callers - 1);
+            release.countDown();
+
+            for (Future<RecipePage> page : pages) {
+                assertThat(page.get(5, TimeUnit.SECONDS).recipes()).containsExactly(carrotRecipe);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        verify(mongoTemplate, times(1)).find(any(Query.class), eq(Recipe.class));
+    }
+
+    @Test
+    public void givenFieldsWhenFindThenOnlyThoseFieldsAreRead() {
+        RecipeProjection projection = RecipeProjection.of(List.of("name", "servings"));
+
+        recipeService.find(RecipeFilter.builder().build(), projection, null, null);
+
+        verify(mongoTemplate, times(1)).find(queryArgumentCaptor.capture(), eq(Recipe.class));
+
+        assertThat(queryArgumentCaptor.getValue().getFieldsObject()).containsOnly(entry("name", 1), entry("servings", 1));
+    }
+
+    @Test
+    public void givenUnknownFieldWhenParsingProjectionThenInvalidParameter() {
+        InvalidParameterException exception = assertThrows(InvalidParameterException.class,
+                () -> RecipeProjection.of(List.of("name", "calories")));
+
+        assertThat(exception.getMessage()).startsWith("Unknown field calories");
+    }
+
+    @Test
+    public void givenIncludedAndExcludedIngredientWhenFindThenBothAreInOneCriteria() {
+        RecipeFilter filter = RecipeFilter.builder().includeIngredient("potatoes").excludeIngredient("salmon").build();
+
+        recipeService.find(filter, null, 10);
+
+        verify(mongoTemplate, times(1)).find(queryArgumentCaptor.capture(), eq(Recipe.class));
+
+        Query query = queryArgumentCaptor.getValue();
+        assertThat(query.getQueryObject().toJson())
+                .isEqualTo("{\"ingredients\": {\"$in\": [\"potatoes\"], \"$nin\": [\"salmon\"]}}");
+    }
+
+    @Test
+    public void givenIndexedFilterWhenFindThenOnlyIndexedIdsAreFetched() {
+        RecipeFilter filter = RecipeFilter.builder().excludeIngredient("potatoes").build();
+        when(recipeIngredientIndex.findIds(filter, null, 2))
+                .thenReturn(Optional.of(List.of(new ObjectId("62a1f0c2e4b0a1b2c3d4e5f6"), new ObjectId("62a1f0c2e4b0a1b2c3d4e5f7"))));
+
+        recipeService.find(filter, null, 1);
+
+        verify(mongoTemplate, times(1)).find(queryArgumentCaptor.capture(), eq(Recipe.class));
+
+        Query query = queryArgumentCaptor.getValue();
+        assertThat(query.toString()).contains("\"_id\" : { \"$in\" : [{ \"$oid\" : \"62a1f0c2e4b0a1b2c3d4e5f6\"}, { \"$oid\" : \"62a1f0c2e4b0a1b2c3d4e5f7\"}]}");
+    }
+
+    @Test
+    public void givenIndexedFilterMatchingTooManyRecipesWhenFindThenFilterIsAnsweredByTheDatabase() {
+        RecipeFilter filter = RecipeFilter.builder().includeIngredient("carrot").instruction("oven").build();
+        List<ObjectId> ids = Stream.generate(ObjectId::new).limit(MAX_LIMIT + 1L).toList();
+        when(recipeIngredientIndex.findIds(filter, null, MAX_LIMIT + 1)).thenReturn(Optional.of(ids));
+
+        recipeService.find(filter, null, 1);
+
+        verify(mongoTemplate, times(1)).find(queryArgumentCaptor.capture(), eq(Recipe.class));
+
+        Query query = queryArgumentCaptor.getValue();
+        assertThat(query.getQueryObject().toJson()).doesNotContain("_id");
+    }
+
+    @Test
+    public void givenIndexedFilterWithoutMatchesWhenFindThenDatabaseIsNotQueried() {
+        RecipeFilter filter = RecipeFilter.builder().includeIngredient("carrot").build();
+        when(recipeIngredientIndex.findIds(filter, null, DEFAULT_LIMIT + 1)).thenReturn(Optional.of(List.of()));
+
+        RecipePage page = recipeService.find(filter, null, null);
+
+        assertThat(page.recipes()).isEmpty();
+        verify(mongoTemplate, times(0)).find(any(Query.class), eq(Recipe.class));
+    }
+
+    @Test
+    public void givenInvalidNextTokenWhenFindThenInvalidParameterIsThrown() {
+        assertThrows(
+                InvalidParameterException.class,
+                () -> recipeService.find(RecipeFilter.builder().build(), "invalid", null),
+                "Invalid next token");
+
+        verify(mongoTemplate, times(0)).find(any(Query.class), eq(Recipe.class));
+    }
+
+    @Test
+    public void givenExistingRecipesWhenStreamAllThenRecipesAreConsumedFromCursor() {
         Recipe salmonRecipe = Recipe.builder().name("salmon recipe").build();
-        when(recipeRepository.findAll()).thenReturn(List.of(salmonRecipe));
+        Iterator<Recipe> iterator = List.of(salmonRecipe).iterator();
+        when(mongoTemplate.stream(any(Query.class), eq(Recipe.class))).thenReturn(new CloseableIterator<>() {
+            @Override
+            public boolean hasNext() {
+                return iterator.hasNext();
+            }
+
+            @Override
+            public Recipe next() {
+                return iterator.next();
+            }
 
-        List<Recipe> allRecipes = recipeService.findAll();
+            @Override
+            public void close() {
+            }
+        });
 
-        assertThat(allRecipes).hasSize(1);
+        List<Recipe> consumed = new ArrayList<>();
+        recipeService.streamAll(consumed::add);
 
-        verify(recipeRepository, times(1)).findAll();
+        assertThat(consumed).containsExactly(salmonRecipe);
+
+        verify(recipeRepository, times(0)).findAll();
     }
 
     @Test
     public void givenNonExistingRecipeWhenCreateThenRecipesIsCreated() {
-        when(recipeRepository.save(any(Recipe.class))).thenReturn(Recipe.builder().id("123").build());
+        when(recipeRepository.insert(any(Recipe.class))).thenReturn(Recipe.builder().id("123").build());
 
         RecipeVO recipe = RecipeVO.builder()
                 .name("salmon recipe")
@@ -73,7 +426,8 @@ public class RecipeServiceTest {
 
         recipeService.create(recipe);
 
-        verify(recipeRepository, times(1)).save(recipeArgumentCaptor.capture());
+        verify(recipeRepository, times(1)).insert(recipeArgumentCaptor.capture());
+        verifyNoMoreInteractions(recipeRepository);
 
         Recipe recipeParameter = recipeArgumentCaptor.getValue();
         assertThat(recipeParameter).isNotNull();
@@ -86,8 +440,7 @@ public class RecipeServiceTest {
 
     @Test
     public void givenExistingRecipeWhenCreateThenRecipesIsNotCreated() {
-        Recipe existingRecipe = Recipe.builder().id("123").name("salmon recipe").build();
-        when(recipeRepository.findByName(anyString())).thenReturn(Optional.of(existingRecipe));
+        when(recipeRepository.insert(any(Recipe.class))).thenThrow(new DuplicateKeyException("E11000 duplicate key error"));
 
         RecipeVO recipe = RecipeVO.builder()
                 .name("salmon recipe")
@@ -102,14 +455,14 @@ public class RecipeServiceTest {
                 () -> recipeService.create(recipe),
                 "Recipe already exists");
 
-        verify(recipeRepository, times(0)).save(any(Recipe.class));
+        verify(recipeRepository, times(1)).insert(any(Recipe.class));
     }
 
     @Test
     public void givenExistingRecipeWhenUpdateThenRecipeIsUpdated() {
         String id = "123";
-        Recipe existingRecipe = Recipe.builder().id(id).build();
-        when(recipeRepository.findById(anyString())).thenReturn(Optional.of(existingRecipe));
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class), eq(Recipe.class)))
+                .thenReturn(Recipe.builder().id(id).name("salmon recipe").version(1L).build());
 
         RecipeVO recipe = RecipeVO.builder()
                 .name("salmon recipe")
@@ -117,19 +470,93 @@ public class RecipeServiceTest {
                 .isVegetarian(false)
                 .servings(2)
                 .ingredients(List.of("salmon", "potatoes"))
+                .version(0L)
                 .build();
 
         recipeService.update(id, recipe);
 
-        verify(recipeRepository, times(1)).save(recipeArgumentCaptor.capture());
+        verify(mongoTemplate, times(1)).findAndModify(queryArgumentCaptor.capture(), updateArgumentCaptor.capture(),
+                any(FindAndModifyOptions.class), eq(Recipe.class));
+        verify(recipeRepository, times(0)).findById(anyString());
+        verify(recipeRepository, times(0)).save(any(Recipe.class));
 
-        Recipe recipeParameter = recipeArgumentCaptor.getValue();
-        assertThat(recipeParameter).isNotNull();
-        assertThat(recipeParameter.name()).isEqualTo(recipe.name());
-        assertThat(recipeParameter.instructions()).isEqualTo(recipe.instructions());
-        assertThat(recipeParameter.isVegetarian()).isEqualTo(recipe.isVegetarian());
-        assertThat(recipeParameter.servings()).isEqualTo(recipe.servings());
-        assertThat(recipeParameter.ingredients()).isEqualTo(recipe.ingredients());
+        assertThat(queryArgumentCaptor.getValue().getQueryObject().toJson()).isEqualTo("{\"_id\": \"123\", \"version\": 0}");
+
+        Document setObject = updateArgumentCaptor.getValue().getUpdateObject().get("$set", Document.class);
+        assertThat(setObject.get("name")).isEqualTo(recipe.name());
+        assertThat(setObject.get("instructions")).isEqualTo(recipe.instructions());
+        assertThat(setObject.get("isVegetarian")).isEqualTo(recipe.isVegetarian());
+        assertThat(setObject.get("servings")).isEqualTo(recipe.servings());
+        assertThat(setObject.get("ingredients")).isEqualTo(recipe.ingredients());
+        assertThat(updateArgumentCaptor.getValue().getUpdateObject().get("$inc", Document.class).get("version")).isEqualTo(1);
+    }
+
+    @Test
+    public void givenVersionWhenUpdateThenUpdateIsGuardedByVersion() {
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class), eq(Recipe.class)))
+                .thenReturn(Recipe.builder().id("123").name("salmon recipe").version(4L).build());
+
+        RecipeVO recipe = RecipeVO.builder()
+                .name("salmon recipe")
+                .version(3L)
+                .build();
+
+        recipeService.update("123", recipe);
+
+        verify(mongoTemplate, times(1)).findAndModify(queryArgumentCaptor.capture(), any(Update.class),
+                any(FindAndModifyOptions.class), eq(Recipe.class));
+
+        assertThat(queryArgumentCaptor.getValue().getQueryObject().toJson()).isEqualTo("{\"_id\": \"123\", \"version\": 3}");
+    }
+
+    @Test
+    public void givenCachedRecipeAtVersionWhenUpdateThenOnlyChangedFieldsAreSet() {
+        RecipeCache caffeineCache = new RecipeCache(new CaffeineCacheManager(RecipeCache.RECIPES_BY_ID),
+                new IngredientDictionary(), recipeCollectionVersion, recipeMetrics, Duration.ofSeconds(2));
+        RecipeService cachedService = new RecipeService(recipeStore, caffeineCache, recipeIngredientIndex, recipeQueries, recipeMetrics);
+        Recipe salmonRecipe = Recipe.builder().id("123").name("salmon recipe").instructions("put the salmon on the oven")
+                .isVegetarian(false).servings(2).ingredients(List.of("salmon", "potatoes")).version(3L).build();
+        when(recipeRepository.findById("123")).thenReturn(Optional.of(salmonRecipe));
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class), eq(Recipe.class)))
+                .thenReturn(salmonRecipe.toBuilder().servings(4).version(4L).build());
+        cachedService.findById("123");
+
+        cachedService.update("123", RecipeVO.builder().name("salmon recipe").instructions("put the salmon on the oven")
+                .isVegetarian(false).servings(4).ingredients(List.of("salmon", "potatoes")).version(3L).build());
+
+        verify(mongoTemplate, times(1)).findAndModify(any(Query.class), updateArgumentCaptor.capture(),
+                any(FindAndModifyOptions.class), eq(Recipe.class));
+        assertThat(updateArgumentCaptor.getValue().getUpdateObject().get("$set", Document.class))
+                .containsExactly(entry("servings", 4));
+    }
+
+    @Test
+    public void givenNoVersionWhenUpdateThenPreconditionIsRequired() {
+        RecipeVO recipe = RecipeVO.builder()
+                .name("salmon recipe")
+                .build();
+
+        assertThrows(
+                PreconditionRequiredException.class,
+                () -> recipeService.update("123", recipe),
+                "version is required to update a recipe");
+
+        verifyNoInteractions(mongoTemplate);
+    }
+
+    @Test
+    public void givenStaleVersionWhenUpdateThenConflictIsThrown() {
+        when(recipeRepository.existsById("123")).thenReturn(true);
+
+        RecipeVO recipe = RecipeVO.builder()
+                .name("salmon recipe")
+                .version(3L)
+                .build();
+
+        assertThrows(
+                ResourceConflictException.class,
+                () -> recipeService.update("123", recipe),
+                "Recipe was changed by another request");
     }
 
     @Test
@@ -140,6 +567,7 @@ public class RecipeServiceTest {
                 .isVegetarian(false)
                 .servings(2)
                 .ingredients(List.of("salmon", "potatoes"))
+                .version(0L)
                 .build();
 
         assertThrows(
@@ -147,12 +575,88 @@ public class RecipeServiceTest {
                 () -> recipeService.update("123", recipe),
                 "Recipe doesn't exist");
 
-        verify(recipeRepository, times(0)).save(any(Recipe.class));
+        verify(recipeIngredientIndex, times(0)).add(any(Recipe.class));
+    }
+
+    @Test
+    public void givenOrderedBulkWithFailingOperationWhenBulkThenFollowingOperationsAreSkipped() {
+        BulkOperations bulkOperations = mock(BulkOperations.class);
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.ORDERED, Recipe.class)).thenReturn(bulkOperations);
+        BulkWriteError duplicateName = new BulkWriteError(11000, "E11000 duplicate key error", new BsonDocument(), 1);
+        when(bulkOperations.execute()).thenThrow(new BulkOperationException("Bulk write failed", new MongoBulkWriteException(
+                BulkWriteResult.acknowledged(1, 0, 0, 0, List.of()), List.of(duplicateName), null, new ServerAddress())));
+
+        RecipeVO recipe = RecipeVO.builder()
+                .name("salmon recipe")
+                .instructions("put the salmon on the oven")
+                .isVegetarian(false)
+                .servings(2)
+                .ingredients(List.of("salmon", "potatoes"))
+                .build();
+
+        long version = recipeCollectionVersion.current();
+
+        RecipeBulkResponseVO response = recipeService.bulk(RecipeBulkRequestVO.builder()
+                .ordered(true)
+                .operations(List.of(
+                        RecipeBulkOperationVO.builder().type(RecipeBulkOperationType.CREATE).recipe(recipe).build(),
+                        RecipeBulkOperationVO.builder().type(RecipeBulkOperationType.CREATE).recipe(recipe).build(),
+                        RecipeBulkOperationVO.builder().type(RecipeBulkOperationType.DELETE).id("123").build()))
+                .build());
+
+        verify(bulkOperations, times(2)).insert(any(Recipe.class));
+        verify(bulkOperations, times(0)).remove(any(Query.class));
+        verify(recipeIngredientIndex, times(1)).add(any(Recipe.class));
+        verify(recipeIngredientIndex, times(0)).remove(anyString());
+
+        assertThat(response.inserted()).isEqualTo(1);
+        assertThat(response.results()).extracting(RecipeBulkResultVO::status).containsExactly(
+                RecipeBulkResultStatus.APPLIED, RecipeBulkResultStatus.FAILED, RecipeBulkResultStatus.SKIPPED);
+        assertThat(response.results().get(1).message()).isEqualTo("Recipe already exists");
+        assertThat(recipeCollectionVersion.current()).isGreaterThan(version);
+    }
+
+    @Test
+    public void givenStaleVersionAndMissingIdsWhenBulkThenOnlyMatchingOperationsAreSentAndApplied() {
+        String id = "62a1f0c2e4b0a1b2c3d4e5f6";
+        BulkOperations bulkOperations = mock(BulkOperations.class);
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.ORDERED, Recipe.class)).thenReturn(bulkOperations);
+        when(mongoTemplate.find(any(Query.class), eq(Recipe.class))).thenReturn(List.of(Recipe.builder().id(id).version(3L).build()));
+        when(bulkOperations.execute()).thenReturn(BulkWriteResult.acknowledged(0, 1, 0, 1, List.of()));
+
+        RecipeVO recipe = RecipeVO.builder()
+                .name("salmon recipe")
+                .instructions("put the salmon on the oven")
+                .isVegetarian(false)
+                .servings(2)
+                .ingredients(List.of("salmon", "potatoes"))
+                .build();
+
+        long version = recipeCollectionVersion.current();
+
+        RecipeBulkResponseVO response = recipeService.bulk(RecipeBulkRequestVO.builder()
+                .ordered(true)
+                .operations(List.of(
+                        RecipeBulkOperationVO.builder().type(RecipeBulkOperationType.UPDATE).id(id).recipe(recipe.toBuilder().version(2L).build()).build(),
+                        RecipeBulkOperationVO.builder().type(RecipeBulkOperationType.UPDATE).id("123").recipe(recipe).build(),
+                        RecipeBulkOperationVO.builder().type(RecipeBulkOperationType.DELETE).id("123").build(),
+                        RecipeBulkOperationVO.builder().type(RecipeBulkOperationType.UPDATE).id(id).recipe(recipe.toBuilder().version(3L).build()).build()))
+                .build());
+
+        verify(bulkOperations, times(1)).updateOne(any(Query.class), any(Update.class));
+        verify(bulkOperations, times(0)).remove(any(Query.class));
+        verify(recipeIngredientIndex, times(1)).refresh(List.of(id));
+        verify(recipeCache, times(0)).evictRemoved("123");
+
+        assertThat(response.results()).extracting(RecipeBulkResultVO::status).containsExactly(
+                RecipeBulkResultStatus.CONFLICT, RecipeBulkResultStatus.NOT_FOUND,
+                RecipeBulkResultStatus.NOT_FOUND, RecipeBulkResultStatus.APPLIED);
+        assertThat(recipeCollectionVersion.current()).isGreaterThan(version);
     }
 
     @Test
     public void givenNonParametersWhenFindRecipeThenRecipeIsCorrectFiltered() {
-        recipeService.find(false, null, null, null, null);
+        recipeService.find(RecipeFilter.builder().isVegetarian(false).build(), null, null);
 
         verify(mongoTemplate, times(1)).find(queryArgumentCaptor.capture(), eq(Recipe.class));
 
@@ -163,7 +667,7 @@ public class RecipeServiceTest {
 
     @Test
     public void givenIsVegetarianParametersWhenFindRecipeThenRecipeIsCorrectFiltered() {
-        recipeService.find(false, null, null, null, null);
+        recipeService.find(RecipeFilter.builder().isVegetarian(false).build(), null, null);
 
         verify(mongoTemplate, times(1)).find(queryArgumentCaptor.capture(), eq(Recipe.class));
 
@@ -174,7 +678,7 @@ public class RecipeServiceTest {
 
     @Test
     public void givenServingsParametersWhenFindRecipeThenRecipeIsCorrectFiltered() {
-        recipeService.find(null, 1, null, null, null);
+        recipeService.find(RecipeFilter.builder().servings(1).build(), null, null);
 
         verify(mongoTemplate, times(1)).find(queryArgumentCaptor.capture(), eq(Recipe.class));
 
@@ -185,7 +689,7 @@ public class RecipeServiceTest {
 
     @Test
     public void givenIncludedIngredientParametersWhenFindRecipeThenRecipeIsCorrectFiltered() {
-        recipeService.find(null, null, "potatoes", null, null);
+        recipeService.find(RecipeFilter.builder().includeIngredient("potatoes").build(), null, null);
 
         verify(mongoTemplate, times(1)).find(queryArgumentCaptor.capture(), eq(Recipe.class));
 
@@ -196,23 +700,53 @@ public class RecipeServiceTest {
 
     @Test
     public void givenExcludedIngredientParametersWhenFindRecipeThenRecipeIsCorrectFiltered() {
-        recipeService.find(null, null, null, "potatoes", null);
+        recipeService.find(RecipeFilter.builder().excludeIngredient("potatoes").build(), null, null);
 
         verify(mongoTemplate, times(1)).find(queryArgumentCaptor.capture(), eq(Recipe.class));
 
         Query query = queryArgumentCaptor.getValue();
         String queryString = query.toString();
-        assertThat(queryString).contains("\"ingredients\" : { \"$not\" : { \"$in\" : [\"potatoes\"]");
+        assertThat(queryString).contains("\"ingredients\" : { \"$nin\" : [\"potatoes\"]");
     }
 
     @Test
     public void givenInstructionParametersWhenFindRecipeThenRecipeIsCorrectFiltered() {
-        recipeService.find(null, null, null, null, "oven");
+        recipeService.find(RecipeFilter.builder().instruction("oven").build(), null, null);
 
         verify(mongoTemplate, times(1)).find(queryArgumentCaptor.capture(), eq(Recipe.class));
 
         Query query = queryArgumentCaptor.getValue();
         String queryString = query.toString();
-        assertThat(queryString).contains("\"instructions\" : { \"$regularExpression\" : { \"pattern\" : \"oven\"");
+        assertThat(queryString).contains("\"$text\" : { \"$search\" : \"oven\"}");
+        assertThat(query.getMeta().getMaxTimeMsec()).isEqualTo(2000);
+    }
+
+    @Test
+    public void givenRegexModeWhenFindRecipeThenInstructionIsMatchedAsLiteral() {
+        ReflectionTestUtils.setField(recipeStore, "recipeQueries",
+                new RecipeQueries(DEFAULT_LIMIT, MAX_LIMIT, InstructionSearchMode.REGEX, Duration.ofSeconds(2)));
+
+        recipeService.find(RecipeFilter.builder().instruction("(a+)+$").build(), null, null);
+
+        verify(mongoTemplate, times(1)).find(queryArgumentCaptor.capture(), eq(Recipe.class));
+
+        Query query = queryArgumentCaptor.getValue();
+        assertThat(query.toString()).contains("\"pattern\" : \"\\\\Q(a+)+$\\\\E\"");
+    }
+
+    /**
+     * Waits until the callers that did not start the load joined it.
+     */
+    private void awaitJoined(int count) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (joined() < count && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+        assertThat(joined()).isEqualTo(count);
+    }
+
+    private double joined() {
+        return meterRegistry.find(RecipeMetrics.CACHE_LOADS).tag("outcome", RecipeCache.JOINED).counters().stream()
+                .mapToDouble(Counter::count).sum();
     }
 }
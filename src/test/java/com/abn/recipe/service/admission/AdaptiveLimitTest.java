@@ -0,0 +1,90 @@
+package com.abn.recipe.service.admission;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class AdaptiveLimitTest {
+
+    private static final long FAST = Duration.ofMillis(10).toNanos();
+
+    private static final long SLOW = Duration.ofSeconds(1).toNanos();
+
+    private static final int WINDOW = 4;
+
+    private final AdaptiveLimit limit = new AdaptiveLimit(4, 2, 6, Duration.ofMillis(100), 0.5, WINDOW, 0.75);
+
+    @Test
+    public void givenLimitReachedWhenAcquiringThenRequestIsRejectedUntilASlotIsReleased() {
+        for (int i = 0; i < 4; i++) {
+            assertThat(limit.tryAcquire()).isTrue();
+        }
+
+        assertThat(limit.tryAcquire()).isFalse();
+        limit.release();
+        assertThat(limit.tryAcquire()).isTrue();
+        assertThat(limit.inflight()).isEqualTo(4);
+    }
+
+    @Test
+    public void givenFastWindowsUsingTheLimitWhenReleasedThenLimitGrowsUpToMax() {
+        for (int i = 0; i < 10; i++) {
+            while (limit.tryAcquire()) {
+                // fill the limit
+            }
+            while (limit.inflight() > 0) {
+                limit.release(FAST, false);
+            }
+        }
+
+        assertThat(limit.limit()).isEqualTo(6);
+    }
+
+    @Test
+    public void givenFastWindowWhenLimitIsMostlyIdleThenLimitStays() {
+        completeRequests(WINDOW, FAST, false);
+
+        assertThat(limit.limit()).isEqualTo(4);
+    }
+
+    @Test
+    public void givenOneSlowRequestInAFastWindowWhenWindowEndsThenLimitStays() {
+        completeRequests(1, SLOW, false);
+        completeRequests(WINDOW - 1, FAST, false);
+
+        assertThat(limit.limit()).isEqualTo(4);
+    }
+
+    @Test
+    public void givenSlowOrDroppedWindowsWhenTheyEndThenLimitBacksOffDownToMin() {
+        completeRequests(WINDOW - 1, SLOW, false);
+        assertThat(limit.limit()).isEqualTo(4);
+
+        completeRequests(1, SLOW, false);
+        assertThat(limit.limit()).isEqualTo(2);
+
+        completeRequests(WINDOW, FAST, true);
+        assertThat(limit.limit()).isEqualTo(2);
+        assertThat(limit.inflight()).isZero();
+    }
+
+    @Test
+    public void givenMinAboveMaxWhenCreatedThenItFails() {
+        assertThrows(IllegalArgumentException.class, () -> new AdaptiveLimit(4, 8, 6, Duration.ofMillis(100), 0.5, WINDOW, 0.75));
+    }
+
+    @Test
+    public void givenEmptyWindowWhenCreatedThenItFails() {
+        assertThrows(IllegalArgumentException.class, () -> new AdaptiveLimit(4, 2, 6, Duration.ofMillis(100), 0.5, 0, 0.75));
+    }
+
+    private void completeRequests(int requests, long latencyNanos, boolean dropped) {
+        for (int i = 0; i < requests; i++) {
+            assertThat(limit.tryAcquire()).isTrue();
+            limit.release(latencyNanos, dropped);
+        }
+    }
+}
@@ -0,0 +1,319 @@
+package com.abn.recipe.service.cache;
+
+import com.abn.recipe.exception.ServiceUnavailableException;
+import com.abn.recipe.model.RecipeFacets;
+import com.abn.recipe.model.RecipeFilter;
+import com.abn.recipe.model.RecipePage;
+import com.abn.recipe.model.RecipeProjection;
+import com.abn.recipe.model.mongo.Recipe;
+import com.abn.recipe.service.RecipeCollectionVersion;
+import com.abn.recipe.service.RecipeMetrics;
+import com.abn.recipe.service.dictionary.IngredientDictionary;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class RecipeCacheTest {
+
+    private static final int PAGE_SIZE = 100;
+
+    private static final Duration MAX_WAIT = Duration.ofSeconds(2);
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final RecipeMetrics recipeMetrics = new RecipeMetrics(meterRegistry);
+
+    private final RecipeCache recipeCache = new RecipeCache(new ConcurrentMapCacheManager(
+            RecipeCache.RECIPES_BY_ID, RecipeCache.RECIPES_BY_FILTER), new IngredientDictionary(), new RecipeCollectionVersion(), recipeMetrics, MAX_WAIT);
+
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @Test
+    public void givenCachedRecipeWhenFindByIdThenDatabaseIsNotQueriedAgain() {
+        Recipe salmonRecipe = Recipe.builder().id("123").name("salmon recipe").build();
+
+        recipeCache.findById("123", () -> load(salmonRecipe));
+        Optional<Recipe> maybeRecipe = recipeCache.findById("123", () -> load(salmonRecipe));
+
+        assertThat(maybeRecipe).contains(salmonRecipe);
+        assertThat(loads.get()).isEqualTo(1);
+    }
+
+    @Test
+    public void givenMissingRecipeWhenFindByIdThenMissIsCached() {
+        recipeCache.findById("123", () -> load(null));
+        Optional<Recipe> maybeRecipe = recipeCache.findById("123", () -> load(null));
+
+        assertThat(maybeRecipe).isEmpty();
+        assertThat(loads.get()).isEqualTo(1);
+    }
+
+    @Test
+    public void givenCachedRecipeWhenUpdatedThenRecipeIsLoadedAgain() {
+        Recipe salmonRecipe = Recipe.builder().id("123").name("salmon recipe").build();
+        Recipe carrotRecipe = salmonRecipe.toBuilder().name("carrot recipe").build();
+
+        recipeCache.findById("123", () -> load(salmonRecipe));
+        recipeCache.evictUpdated(carrotRecipe);
+
+        assertThat(recipeCache.findById("123", () -> load(carrotRecipe))).contains(carrotRecipe);
+        assertThat(loads.get()).isEqualTo(2);
+    }
+
+    @Test
+    public void givenCachedFilterResultWhenRecipeIsCreatedThenFilterResultIsDropped() {
+        RecipeFilter filter = RecipeFilter.builder().isVegetarian(true).build();
+        RecipePage emptyPage = new RecipePage(List.of(), null);
+
+        recipeCache.find(filter, RecipeProjection.ALL, null, PAGE_SIZE, () -> loadPage(emptyPage));
+        recipeCache.find(filter, RecipeProjection.ALL, null, PAGE_SIZE, () -> loadPage(emptyPage));
+        assertThat(loads.get()).isEqualTo(1);
+
+        recipeCache.evictCreated(Recipe.builder().id("123").name("salmon recipe").build());
+        recipeCache.find(filter, RecipeProjection.ALL, null, PAGE_SIZE, () -> loadPage(emptyPage));
+
+        assertThat(loads.get()).isEqualTo(2);
+    }
+
+    @Test
+    public void givenWriteWhileFilterResultIsLoadedWhenFindAgainThenResultIsLoadedAgain() {
+        RecipeFilter filter = RecipeFilter.builder().isVegetarian(true).build();
+        RecipePage emptyPage = new RecipePage(List.of(), null);
+
+        recipeCache.find(filter, RecipeProjection.ALL, null, PAGE_SIZE, () -> {
+            recipeCache.evictRemoved("123");
+            return loadPage(emptyPage);
+        });
+        recipeCache.find(filter, RecipeProjection.ALL, null, PAGE_SIZE, () -> loadPage(emptyPage));
+        recipeCache.find(filter, RecipeProjection.ALL, null, PAGE_SIZE, () -> loadPage(emptyPage));
+
+        assertThat(loads.get()).isEqualTo(2);
+    }
+
+    @Test
+    public void givenWriteWhileFilterResultIsLoadedWhenSameFindArrivesThenItGetsItsOwnLoad() throws Exception {
+        RecipeFilter filter = RecipeFilter.builder().isVegetarian(true).build();
+        RecipePage emptyPage = new RecipePage(List.of(), null);
+        RecipePage salmonPage = new RecipePage(List.of(Recipe.builder().id("123").name("salmon recipe").build()), null);
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<RecipePage> first = executor.submit(() -> recipeCache.find(filter, RecipeProjection.ALL, null, PAGE_SIZE, () -> {
+                loading.countDown();
+                await(release);
+                return loadPage(emptyPage);
+            }));
+            assertThat(loading.await(5, TimeUnit.SECONDS)).isTrue();
+
+            recipeCache.evictCreated(salmonPage.recipes().get(0));
+            Future<RecipePage> second = executor.submit(() -> recipeCache.find(filter, RecipeProjection.ALL, null, PAGE_SIZE,
+                    () -> loadPage(salmonPage)));
+            release.countDown();
+
+            assertThat(first.get(5, TimeUnit.SECONDS)).isEqualTo(emptyPage);
+            assertThat(second.get(5, TimeUnit.SECONDS)).isEqualTo(salmonPage);
+        } finally {
+            executor.shutdownNow();
+        }
+        assertThat(loads.get()).isEqualTo(2);
+    }
+
+    @Test
+    public void givenConcurrentFindsOfTheSameFilterWhenLoadIsSlowThenItIsLoadedOnce() throws Exception {
+        RecipeCache caffeineCache = new RecipeCache(new CaffeineCacheManager(
+                RecipeCache.RECIPES_BY_ID, RecipeCache.RECIPES_BY_FILTER), new IngredientDictionary(), new RecipeCollectionVersion(), recipeMetrics, MAX_WAIT);
+        RecipeFilter filter = RecipeFilter.builder().isVegetarian(true).build();
+        RecipePage emptyPage = new RecipePage(List.of(), null);
+        CountDownLatch release = new CountDownLatch(1);
+        int callers = 4;
+
+        ExecutorService executor = Executors.newFixedThreadPool(callers);
+        try {
+            List<Future<RecipePage>> pages = IntStream.range(0, callers)
+                    .mapToObj(caller -> executor.submit(() -> caffeineCache.find(filter, RecipeProjection.ALL, null, PAGE_SIZE, () -> {
+                        await(release);
+                        return loadPage(emptyPage);
+                    })))
+                    .toList();
+            release.countDown();
+
+            for (Future<RecipePage> page : pages) {
+                assertThat(page.get(5, TimeUnit.SECONDS)).isEqualTo(emptyPage);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertThat(loads.get()).isEqualTo(1);
+    }
+
+    @Test
+    public void givenEquivalentFiltersWhenFindThenOneResultIsShared() {
+        RecipePage emptyPage = new RecipePage(List.of(), null);
+
+        recipeCache.find(RecipeFilter.builder().includeIngredient("potatoes").instruction("").build(), RecipeProjection.ALL,
+                null, PAGE_SIZE, () -> loadPage(emptyPage));
+        recipeCache.find(RecipeFilter.builder().includeIngredient(" potatoes ").build(), RecipeProjection.ALL,
+                null, PAGE_SIZE, () -> loadPage(emptyPage));
+
+        assertThat(loads.get()).isEqualTo(1);
+    }
+
+    @Test
+    public void givenFacetCacheWhenRecipeIsRemovedThenFacetsAreDropped() {
+        RecipeCache facetsCache = new RecipeCache(new ConcurrentMapCacheManager(
+                RecipeCache.RECIPES_BY_ID, RecipeCache.RECIPES_BY_FILTER, RecipeCache.RECIPE_FACETS), new IngredientDictionary(), new RecipeCollectionVersion(), recipeMetrics, MAX_WAIT);
+        RecipeFilter filter = RecipeFilter.builder().isVegetarian(true).build();
+        RecipeFacets facets = new RecipeFacets(0, List.of(), List.of(), List.of());
+
+        facetsCache.facets(filter, () -> loadFacets(facets));
+        facetsCache.facets(filter, () -> loadFacets(facets));
+        assertThat(loads.get()).isEqualTo(1);
+
+        facetsCache.evictRemoved("123");
+        facetsCache.facets(filter, () -> loadFacets(facets));
+
+        assertThat(loads.get()).isEqualTo(2);
+    }
+
+    @Test
+    public void givenNoFacetCacheWhenConcurrentFacetsThenTheyShareOneLoad() throws Exception {
+        RecipeFilter filter = RecipeFilter.builder().build();
+        RecipeFacets facets = new RecipeFacets(0, List.of(), List.of(), List.of());
+        CountDownLatch release = new CountDownLatch(1);
+        int callers = 4;
+
+        ExecutorService executor = Executors.newFixedThreadPool(callers);
+        try {
+            List<Future<RecipeFacets>> results = IntStream.range(0, callers)
+                    .mapToObj(caller -> executor.submit(() -> recipeCache.facets(filter, () -> {
+                        await(release);
+                        return loadFacets(facets);
+                    })))
+                    .toList();
+            awaitLoads(RecipeCache.JOINED, callers - 1);
+            release.countDown();
+
+            for (Future<RecipeFacets> result : results) {
+                assertThat(result.get(5, TimeUnit.SECONDS)).isEqualTo(facets);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertThat(loads.get()).isEqualTo(1);
+        assertThat(cacheLoads(RecipeCache.LED)).isEqualTo(1);
+        assertThat(cacheLoads(RecipeCache.JOINED)).isEqualTo(callers - 1);
+    }
+
+    @Test
+    public void givenSlowLoadWhenWaitIsLongerThanMaxWaitThenJoinedReadFails() throws Exception {
+        RecipeCache impatientCache = new RecipeCache(new ConcurrentMapCacheManager(
+                RecipeCache.RECIPES_BY_ID, RecipeCache.RECIPES_BY_FILTER), new IngredientDictionary(), new RecipeCollectionVersion(),
+                recipeMetrics, Duration.ofMillis(50));
+        Recipe salmonRecipe = Recipe.builder().id("123").name("salmon recipe").build();
+        CountDownLatch release = new CountDownLatch(1);
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<Optional<Recipe>> leader = executor.submit(() -> impatientCache.findById("123", () -> {
+                await(release);
+                return load(salmonRecipe);
+            }));
+            awaitLoads(RecipeCache.LED, 1);
+
+            assertThrows(ServiceUnavailableException.class, () -> impatientCache.findById("123", () -> load(salmonRecipe)));
+            assertThat(impatientCache.findByIdAsync("123", () -> CompletableFuture.completedFuture(load(salmonRecipe))))
+                    .failsWithin(5, TimeUnit.SECONDS)
+                    .withThrowableOfType(ExecutionException.class)
+                    .withCauseInstanceOf(ServiceUnavailableException.class);
+            release.countDown();
+
+            assertThat(leader.get(5, TimeUnit.SECONDS)).contains(salmonRecipe);
+        } finally {
+            executor.shutdownNow();
+        }
+        assertThat(loads.get()).isEqualTo(1);
+        assertThat(cacheLoads(RecipeCache.TIMED_OUT)).isEqualTo(2);
+    }
+
+    @Test
+    public void givenAsyncLoadRunningWhenSameRecipeIsReadThenItJoinsTheLoad() {
+        Recipe salmonRecipe = Recipe.builder().id("123").name("salmon recipe").build();
+        CompletableFuture<Optional<Recipe>> read = new CompletableFuture<>();
+
+        CompletableFuture<Optional<Recipe>> first = recipeCache.findByIdAsync("123", () -> read);
+        CompletableFuture<Optional<Recipe>> second = recipeCache.findByIdAsync("123", () -> CompletableFuture.completedFuture(load(salmonRecipe)));
+        assertThat(second).isNotDone();
+        read.complete(load(salmonRecipe));
+
+        assertThat(first).isCompletedWithValue(Optional.of(salmonRecipe));
+        assertThat(second).isCompletedWithValue(Optional.of(salmonRecipe));
+        assertThat(recipeCache.findById("123", () -> load(salmonRecipe))).contains(salmonRecipe);
+        assertThat(loads.get()).isEqualTo(1);
+    }
+
+    @Test
+    public void givenNoFacetCacheWhenFacetsThenEveryCallIsLoaded() {
+        RecipeFilter filter = RecipeFilter.builder().build();
+        RecipeFacets facets = new RecipeFacets(0, List.of(), List.of(), List.of());
+
+        recipeCache.facets(filter, () -> loadFacets(facets));
+        recipeCache.facets(filter, () -> loadFacets(facets));
+
+        assertThat(loads.get()).isEqualTo(2);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void awaitLoads(String outcome, long count) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (cacheLoads(outcome) < count && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+    }
+
+    private double cacheLoads(String outcome) {
+        return meterRegistry.find(RecipeMetrics.CACHE_LOADS).tag("outcome", outcome).counters().stream()
+                .mapToDouble(Counter::count).sum();
+    }
+
+    private Optional<Recipe> load(Recipe recipe) {
+        loads.incrementAndGet();
+        return Optional.ofNullable(recipe);
+    }
+
+    private RecipePage loadPage(RecipePage page) {
+        loads.incrementAndGet();
+        return page;
+    }
+
+    private RecipeFacets loadFacets(RecipeFacets facets) {
+        loads.incrementAndGet();
+        return facets;
+    }
+}
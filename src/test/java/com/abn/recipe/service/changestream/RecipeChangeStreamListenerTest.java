@@ -0,0 +1,116 @@
+package com.abn.recipe.service.changestream;
+
+import com.abn.recipe.model.mongo.Recipe;
+import com.abn.recipe.service.RecipeMetrics;
+import com.abn.recipe.service.cache.RecipeCache;
+import com.abn.recipe.service.index.RecipeIngredientIndex;
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import com.mongodb.client.model.changestream.OperationType;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bson.BsonDocument;
+import org.bson.BsonInt32;
+import org.bson.BsonObjectId;
+import org.bson.BsonTimestamp;
+import org.bson.BsonValue;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.NoOpDbRefResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class RecipeChangeStreamListenerTest {
+
+    private static final ObjectId RECIPE_ID = new ObjectId("62a1f0c2e4b0a1b2c3d4e5f6");
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @Mock
+    private RecipeCache recipeCache;
+
+    @Mock
+    private RecipeIngredientIndex recipeIngredientIndex;
+
+    @Captor
+    private ArgumentCaptor<Recipe> recipeArgumentCaptor;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private RecipeChangeStreamListener listener;
+
+    @BeforeEach
+    public void beforeEach() {
+        listener = new RecipeChangeStreamListener(mongoTemplate, recipeCache, recipeIngredientIndex, new RecipeMetrics(meterRegistry),
+                Duration.ofSeconds(1), Duration.ofSeconds(1));
+    }
+
+    @Test
+    public void givenUpdateFromAnotherNodeWhenApplyThenRecipeIsEvictedAndIndexed() {
+        MappingMongoConverter converter = new MappingMongoConverter(NoOpDbRefResolver.INSTANCE, new MongoMappingContext());
+        when(mongoTemplate.getConverter()).thenReturn(converter);
+        Document fullDocument = new Document("_id", RECIPE_ID)
+                .append("name", "salmon recipe")
+                .append("isVegetarian", false)
+                .append("servings", 2)
+                .append("ingredients", List.of("salmon", "potatoes"));
+
+        boolean open = listener.apply(change(OperationType.UPDATE, fullDocument));
+
+        assertThat(open).isTrue();
+        verify(recipeCache, times(1)).evictById(RECIPE_ID.toHexString());
+        verify(recipeIngredientIndex, times(1)).add(recipeArgumentCaptor.capture());
+        assertThat(recipeArgumentCaptor.getValue().ingredients()).containsExactly("salmon", "potatoes");
+        assertThat(meterRegistry.get(RecipeMetrics.CHANGE_STREAM_LAG).timer().count()).isEqualTo(1);
+        assertThat(meterRegistry.get(RecipeMetrics.CHANGE_STREAM_EVENTS).tag("operation", "update").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    public void givenDeleteWhenApplyThenRecipeIsEvictedAndRemovedFromIndex() {
+        boolean open = listener.apply(change(OperationType.DELETE, null));
+
+        assertThat(open).isTrue();
+        verify(recipeCache, times(1)).evictRemoved(RECIPE_ID.toHexString());
+        verify(recipeIngredientIndex, times(1)).remove(RECIPE_ID.toHexString());
+    }
+
+    @Test
+    public void givenInvalidateWhenApplyThenStreamHasToBeOpenedAgain() {
+        boolean open = listener.apply(change(OperationType.INVALIDATE, null));
+
+        assertThat(open).isFalse();
+        verifyNoInteractions(recipeCache, recipeIngredientIndex);
+    }
+
+    @Test
+    public void givenIdNeitherObjectIdNorStringWhenApplyThenChangeIsSkipped() {
+        boolean open = listener.apply(change(OperationType.DELETE, null, new BsonInt32(7)));
+
+        assertThat(open).isTrue();
+        verifyNoInteractions(recipeCache, recipeIngredientIndex);
+    }
+
+    private static ChangeStreamDocument<Document> change(OperationType operationType, Document fullDocument) {
+        return change(operationType, fullDocument, new BsonObjectId(RECIPE_ID));
+    }
+
+    private static ChangeStreamDocument<Document> change(OperationType operationType, Document fullDocument, BsonValue id) {
+        return new ChangeStreamDocument<>(operationType.getValue(), new BsonDocument(), null, null, fullDocument,
+                new BsonDocument("_id", id),
+                new BsonTimestamp((int) (System.currentTimeMillis() / 1000), 1), null, null, null);
+    }
+}
@@ -0,0 +1,118 @@
+package com.abn.recipe.service.changestream;
+
+import com.abn.recipe.model.mongo.Recipe;
+import com.abn.recipe.repository.mongo.RecipeRepository;
+import com.abn.recipe.service.RecipeMetrics;
+import com.abn.recipe.service.RecipeService;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Updates;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.autoconfigure.actuate.metrics.AutoConfigureMetrics;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Writes go to Mongo through a separate client, as another instance would, and must reach the local cache and
+ * ingredient index through the change stream.
+ * Run with mvn test -Preplicaset against the single node replica set of docker-compose.
+ */
+@Tag("replicaset")
+@AutoConfigureMetrics
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE, properties = {
+        "recipe.change-stream.enabled=true",
+        "recipe.index.enabled=true"})
+public class RecipeChangeStreamReplicaSetTest {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(10);
+
+    @Autowired
+    private RecipeRepository recipeRepository;
+
+    @Autowired
+    private RecipeService recipeService;
+
+    @Autowired
+    private RecipeChangeStreamListener recipeChangeStreamListener;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${database.mongodb.url}")
+    private String url;
+
+    @Value("${database.mongodb.name}")
+    private String databaseName;
+
+    @BeforeEach
+    public void beforeEach() {
+        recipeRepository.deleteAll();
+    }
+
+    @Test
+    void givenWriteFromAnotherNodeWhenChangeIsStreamedThenCachedRecipeIsEvicted() throws InterruptedException {
+        Recipe recipe = recipeRepository.save(salmonRecipe());
+        assertThat(recipeService.findById(recipe.id()).name()).isEqualTo("salmon recipe");
+
+        updateNameFromAnotherNode(recipe.id(), "grilled salmon recipe");
+
+        assertThat(await(() -> recipeService.findById(recipe.id()).name().equals("grilled salmon recipe"))).isTrue();
+        assertThat(meterRegistry.get(RecipeMetrics.CHANGE_STREAM_LAG).timer().count()).isPositive();
+    }
+
+    @Test
+    void givenListenerRestartWhenChangesWereMissedThenStreamResumesFromTokenInMemory() throws InterruptedException {
+        Recipe recipe = recipeRepository.save(salmonRecipe());
+        assertThat(await(recipeChangeStreamListener::hasResumeToken)).isTrue();
+        assertThat(recipeService.findById(recipe.id()).name()).isEqualTo("salmon recipe");
+        double reloads = meterRegistry.counter(RecipeMetrics.CHANGE_STREAM_RELOADS).count();
+
+        recipeChangeStreamListener.stop();
+        updateNameFromAnotherNode(recipe.id(), "grilled salmon recipe");
+        recipeChangeStreamListener.start();
+
+        assertThat(await(() -> recipeService.findById(recipe.id()).name().equals("grilled salmon recipe"))).isTrue();
+        assertThat(meterRegistry.counter(RecipeMetrics.CHANGE_STREAM_RELOADS).count()).isEqualTo(reloads);
+    }
+
+    private void updateNameFromAnotherNode(String id, String name) {
+        try (MongoClient otherNode = MongoClients.create(url)) {
+            otherNode.getDatabase(databaseName)
+                    .getCollection("recipes")
+                    .updateOne(Filters.eq("_id", new ObjectId(id)), Updates.combine(Updates.set("name", name), Updates.inc("version", 1)));
+        }
+    }
+
+    private static boolean await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TIMEOUT.toNanos();
+        while (System.nanoTime() < deadline) {
+            if (condition.getAsBoolean()) {
+                return true;
+            }
+            Thread.sleep(100);
+        }
+        return false;
+    }
+
+    private static Recipe salmonRecipe() {
+        return Recipe.builder()
+                .name("salmon recipe")
+                .instructions("put on the oven")
+                .isVegetarian(false)
+                .servings(2)
+                .ingredients(List.of("salmon", "potatoes"))
+                .build();
+    }
+}
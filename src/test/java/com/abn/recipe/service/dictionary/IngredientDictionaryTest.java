@@ -0,0 +1,107 @@
+package com.abn.recipe.service.dictionary;
+
+import com.abn.recipe.model.mongo.Recipe;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class IngredientDictionaryTest {
+
+    private final IngredientDictionary ingredientDictionary = new IngredientDictionary();
+
+    @Test
+    public void givenSameIngredientFromDifferentRecipesWhenEncodedThenNameIsShared() {
+        String[] first = ingredientDictionary.encode(List.of(new String("salt"), new String("olive oil")));
+        String[] second = ingredientDictionary.encode(List.of(new String("olive oil"), new String("pepper")));
+
+        assertThat(first).containsExactly("salt", "olive oil");
+        assertThat(second).containsExactly("olive oil", "pepper");
+        assertThat(first[1]).isSameAs(second[0]);
+        assertThat(ingredientDictionary.size()).isEqualTo(3);
+    }
+
+    @Test
+    public void givenFullDictionaryWhenNewIngredientIsEncodedThenItIsKeptAsGivenWithoutGrowing() {
+        IngredientDictionary bounded = new IngredientDictionary(1);
+        String salt = bounded.canonical(new String("salt"));
+        String pepper = new String("pepper");
+
+        assertThat(bounded.canonical(new String("salt"))).isSameAs(salt);
+        assertThat(bounded.canonical(pepper)).isSameAs(pepper);
+        assertThat(bounded.canonical(new String("pepper"))).isNotSameAs(pepper);
+        assertThat(bounded.size()).isEqualTo(1);
+    }
+
+    @Test
+    public void givenIngredientNoLongerReferencedWhenCollectedThenItIsDropped() throws InterruptedException {
+        ingredientDictionary.canonical(new String("saffron"));
+
+        for (int run = 0; run < 50 && ingredientDictionary.size() > 0; run++) {
+            System.gc();
+            Thread.sleep(10);
+        }
+
+        assertThat(ingredientDictionary.size()).isZero();
+    }
+
+    @Test
+    public void givenRecipeWhenCompactedThenItIsRestoredUnchanged() {
+        Recipe recipe = Recipe.builder()
+                .id("62a1f0c2e4b0a1b2c3d4e5f6")
+                .name("salmon recipe")
+                .instructions("put on the oven")
+                .isVegetarian(false)
+                .servings(2)
+                .ingredients(List.of("salmon", "potatoes", "salt"))
+                .version(3L)
+                .build();
+
+        assertThat(ingredientDictionary.compact(recipe)).isEqualTo(recipe);
+        assertThat(ingredientDictionary.compact(recipe.toBuilder().ingredients(null).build()).ingredients()).isNull();
+    }
+
+    @Test
+    public void givenRecipesWithSameIngredientWhenCompactedThenTheirIngredientsAreSharedAndUnmodifiable() {
+        Recipe recipe = Recipe.builder()
+                .id("62a1f0c2e4b0a1b2c3d4e5f6")
+                .name("salmon recipe")
+                .ingredients(new ArrayList<>(List.of(new String("salmon"), new String("potatoes"))))
+                .build();
+
+        Recipe first = ingredientDictionary.compact(recipe);
+        Recipe second = ingredientDictionary.compact(recipe.toBuilder().ingredients(List.of(new String("potatoes"))).build());
+
+        assertThat(second.ingredients().get(0)).isSameAs(first.ingredients().get(1));
+        assertThrows(UnsupportedOperationException.class, () -> first.ingredients().add("salt"));
+    }
+
+    @Test
+    public void givenConcurrentEncodingWhenIngredientsAreNewThenEveryNameIsSharedOnce() throws Exception {
+        List<String> ingredients = IntStream.range(0, 2000).mapToObj(i -> "ingredient " + i).toList();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<String[]>> encoded = IntStream.range(0, 8)
+                    .mapToObj(thread -> executor.submit(() -> ingredientDictionary.encode(
+                            ingredients.stream().map(String::new).toList())))
+                    .toList();
+            String[] first = encoded.get(0).get();
+            for (Future<String[]> names : encoded) {
+                assertThat(ingredientDictionary.decode(names.get())).isEqualTo(ingredients);
+                for (int index = 0; index < first.length; index++) {
+                    assertThat(names.get()[index]).isSameAs(first[index]);
+                }
+            }
+            assertThat(ingredientDictionary.size()).isEqualTo(2000);
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
@@ -0,0 +1,218 @@
+package com.abn.recipe.service.index;
+
+import com.abn.recipe.model.RecipeFilter;
+import com.abn.recipe.model.mongo.Recipe;
+import com.abn.recipe.service.dictionary.IngredientDictionary;
+import com.abn.recipe.service.store.RecipeStore;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+public class RecipeIngredientIndexTest {
+
+    @Mock
+    private RecipeStore recipeStore;
+
+    private static final ObjectId SALMON_ID = new ObjectId("62a1f0c2e4b0a1b2c3d4e5f1");
+
+    private static final ObjectId VEGETABLES_ID = new ObjectId("62a1f0c2e4b0a1b2c3d4e5f2");
+
+    private RecipeIngredientIndex recipeIngredientIndex;
+
+    private final Recipe salmonRecipe = Recipe.builder()
+            .id(SALMON_ID.toHexString())
+            .isVegetarian(false)
+            .servings(2)
+            .ingredients(List.of("salmon", "potatoes"))
+            .build();
+
+    private final Recipe vegetablesRecipe = Recipe.builder()
+            .id(VEGETABLES_ID.toHexString())
+            .isVegetarian(true)
+            .servings(4)
+            .ingredients(List.of("carrot", "potatoes"))
+            .build();
+
+    @BeforeEach
+    public void beforeEach() {
+        doAnswer(invocation -> {
+            Consumer<Recipe> consumer = invocation.getArgument(1);
+            List.of(salmonRecipe, vegetablesRecipe).forEach(consumer);
+            return null;
+        }).when(recipeStore).streamAll(any(), any());
+
+        recipeIngredientIndex = new RecipeIngredientIndex(recipeStore, new IngredientDictionary(), true);
+        recipeIngredientIndex.load();
+    }
+
+    @Test
+    public void givenLoadedIndexWhenFindByIncludedIngredientThenMatchingIdsAreReturned() {
+        var ids = findIds(RecipeFilter.builder().includeIngredient("potatoes").build());
+
+        assertThat(ids).hasValueSatisfying(value -> assertThat(value).containsExactly(SALMON_ID, VEGETABLES_ID));
+    }
+
+    @Test
+    public void givenLoadedIndexWhenFindByExcludedIngredientAndServingsThenMatchingIdsAreReturned() {
+        var ids = findIds(RecipeFilter.builder().excludeIngredient("carrot").servings(2).build());
+
+        assertThat(ids).hasValueSatisfying(value -> assertThat(value).containsExactly(SALMON_ID));
+    }
+
+    @Test
+    public void givenLoadedIndexWhenFindByVegetarianThenMatchingIdsAreReturned() {
+        var ids = findIds(RecipeFilter.builder().isVegetarian(false).build());
+
+        assertThat(ids).hasValueSatisfying(value -> assertThat(value).containsExactly(SALMON_ID));
+    }
+
+    @Test
+    public void givenRecipeWithoutVegetarianFlagAndServingsWhenIndexedThenOnlyItsIngredientsMatch() {
+        ObjectId unknownId = new ObjectId("62a1f0c2e4b0a1b2c3d4e5f3");
+        recipeIngredientIndex.add(salmonRecipe.toBuilder().id(unknownId.toHexString()).isVegetarian(null).servings(null).build());
+
+        var salmonIds = findIds(RecipeFilter.builder().includeIngredient("salmon").build());
+        var notVegetarianIds = findIds(RecipeFilter.builder().isVegetarian(false).build());
+        var servingsIds = findIds(RecipeFilter.builder().servings(2).build());
+
+        assertThat(salmonIds).hasValueSatisfying(value -> assertThat(value).containsExactly(SALMON_ID, unknownId));
+        assertThat(notVegetarianIds).hasValueSatisfying(value -> assertThat(value).containsExactly(SALMON_ID));
+        assertThat(servingsIds).hasValueSatisfying(value -> assertThat(value).containsExactly(SALMON_ID));
+    }
+
+    @Test
+    public void givenUpdatedRecipeWhenFindThenPreviousValuesAreNotIndexed() {
+        recipeIngredientIndex.add(salmonRecipe.toBuilder().ingredients(List.of("tuna")).build());
+
+        var ids = findIds(RecipeFilter.builder().includeIngredient("salmon").build());
+        var tunaIds = findIds(RecipeFilter.builder().includeIngredient("tuna").build());
+
+        assertThat(ids).hasValueSatisfying(value -> assertThat(value).isEmpty());
+        assertThat(tunaIds).hasValueSatisfying(value -> assertThat(value).containsExactly(SALMON_ID));
+    }
+
+    @Test
+    public void givenRemovedRecipeWhenFindThenRecipeIsNotReturned() {
+        recipeIngredientIndex.remove(VEGETABLES_ID.toHexString());
+
+        var ids = findIds(RecipeFilter.builder().includeIngredient("potatoes").build());
+
+        assertThat(ids).hasValueSatisfying(value -> assertThat(value).containsExactly(SALMON_ID));
+        assertThat(recipeIngredientIndex.size()).isEqualTo(1);
+    }
+
+    @Test
+    public void givenPageCursorWhenFindThenOnlyTheIdsAfterItUpToTheLimitAreReturned() {
+        ObjectId thirdId = new ObjectId("62a1f0c2e4b0a1b2c3d4e5f3");
+        recipeIngredientIndex.add(vegetablesRecipe.toBuilder().id(thirdId.toHexString()).build());
+        RecipeFilter filter = RecipeFilter.builder().includeIngredient("potatoes").build();
+
+        var firstPage = recipeIngredientIndex.findIds(filter, null, 2);
+        var nextPage = recipeIngredientIndex.findIds(filter, VEGETABLES_ID, 2);
+
+        assertThat(firstPage).hasValueSatisfying(value -> assertThat(value).containsExactly(SALMON_ID, VEGETABLES_ID));
+        assertThat(nextPage).hasValueSatisfying(value -> assertThat(value).containsExactly(thirdId));
+    }
+
+    @Test
+    public void givenRecipesAddedOutOfIdOrderWhenFindThenIdsAreReturnedInIdOrder() {
+        ObjectId earlierId = new ObjectId("62a1f0c2e4b0a1b2c3d4e5f0");
+        recipeIngredientIndex.remove(SALMON_ID.toHexString());
+        recipeIngredientIndex.add(salmonRecipe);
+        recipeIngredientIndex.add(salmonRecipe.toBuilder().id(earlierId.toHexString()).build());
+
+        var ids = findIds(RecipeFilter.builder().includeIngredient("potatoes").build());
+        var afterEarlier = recipeIngredientIndex.findIds(RecipeFilter.builder().includeIngredient("potatoes").build(), earlierId, 1);
+
+        assertThat(ids).hasValueSatisfying(value -> assertThat(value).containsExactly(earlierId, SALMON_ID, VEGETABLES_ID));
+        assertThat(afterEarlier).hasValueSatisfying(value -> assertThat(value).containsExactly(SALMON_ID));
+    }
+
+    @Test
+    public void givenManyRecipesAddedOutOfIdOrderWhenFindThenOrdinalsAreRenumberedInIdOrder() {
+        List<ObjectId> ids = Stream.generate(ObjectId::new)
+                .limit(RecipeIngredientIndex.MAX_UNSORTED_ORDINALS + 2L)
+                .toList();
+        for (int i = ids.size() - 1; i >= 0; i--) {
+            recipeIngredientIndex.add(salmonRecipe.toBuilder().id(ids.get(i).toHexString()).ingredients(List.of("tuna")).build());
+        }
+
+        var tunaIds = recipeIngredientIndex.findIds(RecipeFilter.builder().includeIngredient("tuna").build(), ids.get(0), 2);
+
+        assertThat(recipeIngredientIndex.unsortedOrdinals()).isZero();
+        assertThat(tunaIds).hasValueSatisfying(value -> assertThat(value).containsExactly(ids.get(1), ids.get(2)));
+        assertThat(findIds(RecipeFilter.builder().includeIngredient("potatoes").build()))
+                .hasValueSatisfying(value -> assertThat(value).containsExactly(SALMON_ID, VEGETABLES_ID));
+    }
+
+    @Test
+    public void givenManyRecipesRemovedWhenAnotherIsRemovedThenTheirOrdinalsAreDropped() {
+        List<String> ids = Stream.generate(() -> new ObjectId().toHexString())
+                .limit(RecipeIngredientIndex.MAX_UNSORTED_ORDINALS + 1L)
+                .toList();
+        ids.forEach(id -> recipeIngredientIndex.add(salmonRecipe.toBuilder().id(id).build()));
+        ids.forEach(recipeIngredientIndex::remove);
+
+        var salmonIds = findIds(RecipeFilter.builder().includeIngredient("salmon").build());
+
+        assertThat(recipeIngredientIndex.capacity()).isEqualTo(2);
+        assertThat(salmonIds).hasValueSatisfying(value -> assertThat(value).containsExactly(SALMON_ID));
+    }
+
+    @Test
+    public void givenMatchingIdNotAnObjectIdWhenFindThenIndexIsNotUsed() {
+        recipeIngredientIndex.add(salmonRecipe.toBuilder().id("imported-1").build());
+
+        var salmonIds = findIds(RecipeFilter.builder().includeIngredient("salmon").build());
+        var carrotIds = findIds(RecipeFilter.builder().includeIngredient("carrot").build());
+
+        assertThat(salmonIds).isEmpty();
+        assertThat(carrotIds).hasValueSatisfying(value -> assertThat(value).containsExactly(VEGETABLES_ID));
+    }
+
+    @Test
+    public void givenLoadedIndexWhenLoadedAgainThenRecipesAreNotStreamedTwice() {
+        recipeIngredientIndex.load();
+        recipeIngredientIndex.loadOnStart();
+
+        verify(recipeStore, times(1)).streamAll(any(), any());
+    }
+
+    @Test
+    public void givenChangeStreamEnabledWhenApplicationIsReadyThenIndexIsLeftToTheListener() {
+        var index = new RecipeIngredientIndex(recipeStore, new IngredientDictionary(), true);
+        ReflectionTestUtils.setField(index, "loadedByChangeStream", true);
+
+        index.loadOnStart();
+
+        assertThat(index.findIds(RecipeFilter.builder().isVegetarian(true).build(), null, 10)).isEmpty();
+        verify(recipeStore, times(1)).streamAll(any(), any());
+    }
+
+    @Test
+    public void givenFilterWithoutIndexedCriteriaWhenFindThenIndexIsNotUsed() {
+        var ids = findIds(RecipeFilter.builder().instruction("oven").build());
+
+        assertThat(ids).isEmpty();
+    }
+
+    private Optional<List<ObjectId>> findIds(RecipeFilter filter) {
+        return recipeIngredientIndex.findIds(filter, null, 10);
+    }
+}
@@ -0,0 +1,238 @@
+package com.abn.recipe.service.store;
+
+import com.abn.recipe.exception.ResourceAlreadyExistException;
+import com.abn.recipe.model.RecipeFacetCount;
+import com.abn.recipe.model.RecipeFacets;
+import com.abn.recipe.model.RecipeFilter;
+import com.abn.recipe.model.RecipeProjection;
+import com.abn.recipe.model.mongo.Recipe;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.zip.GZIPOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class InMemoryRecipeStoreTest {
+
+    private InMemoryRecipeStore store;
+
+    private Recipe salmonRecipe;
+
+    private Recipe vegetablesRecipe;
+
+    private Recipe pastaRecipe;
+
+    @BeforeEach
+    public void beforeEach() {
+        store = new InMemoryRecipeStore("", Duration.ZERO);
+        store.start();
+        salmonRecipe = store.insert(recipe("salmon recipe", false, 2, "put the salmon in the Oven", "salmon", "potatoes"));
+        vegetablesRecipe = store.insert(recipe("vegetables recipe", true, 4, "boil the carrots", "carrot", "potatoes"));
+        pastaRecipe = store.insert(recipe("pasta recipe", true, 2, "boil the pasta", "pasta", "cheese"));
+    }
+
+    @Test
+    public void givenInsertedRecipeWhenFindByIdThenRecipeHasIdAndFirstVersion() {
+        assertThat(ObjectId.isValid(salmonRecipe.id())).isTrue();
+        assertThat(store.findById(salmonRecipe.id())).contains(salmonRecipe);
+        assertThat(salmonRecipe.version()).isZero();
+        assertThat(store.findById("123")).isEmpty();
+    }
+
+    @Test
+    public void givenTakenNameWhenInsertThenAlreadyExists() {
+        assertThrows(ResourceAlreadyExistException.class,
+                () -> store.insert(recipe("salmon recipe", true, 1, "", "tofu")));
+
+        assertThat(store.size()).isEqualTo(3);
+    }
+
+    @Test
+    public void givenVersionWhenUpdateThenOnlyThatVersionIsUpdated() {
+        Recipe update = Recipe.builder().id(salmonRecipe.id()).name("grilled salmon").servings(3).isVegetarian(false)
+                .ingredients(List.of("salmon")).version(0L).build();
+
+        assertThat(store.update(update, null)).hasValueSatisfying(updated -> {
+            assertThat(updated.version()).isEqualTo(1L);
+            assertThat(updated.servings()).isEqualTo(3);
+        });
+        assertThat(store.update(update, null)).isEmpty();
+        assertThat(store.find(RecipeFilter.builder().includeIngredient("potatoes").build(), RecipeProjection.ALL, null, null, 10))
+                .extracting(Recipe::id).containsExactly(vegetablesRecipe.id());
+        // the former name is free again
+        store.insert(recipe("salmon recipe", false, 2, "", "salmon"));
+    }
+
+    @Test
+    public void givenRecipeStoredWithoutVersionWhenUpdateThenItGetsTheFirstIncrementedVersion(@TempDir Path directory) throws IOException {
+        Path snapshotFile = directory.resolve("recipes.json.gz");
+        try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(snapshotFile))) {
+            out.write("{\"version\": 1, \"recipes\": [{\"id\": \"62a1f0c2e4b0a1b2c3d4e5f6\", \"name\": \"imported recipe\"}]}"
+                    .getBytes(StandardCharsets.UTF_8));
+        }
+        InMemoryRecipeStore imported = new InMemoryRecipeStore(snapshotFile.toString(), Duration.ZERO);
+        imported.start();
+
+        Optional<Recipe> updated = imported.update(recipe("imported recipe", true, 2, "", "tofu").toBuilder()
+                .id("62a1f0c2e4b0a1b2c3d4e5f6").build(), null);
+
+        assertThat(updated).hasValueSatisfying(recipe -> assertThat(recipe.version()).isEqualTo(1L));
+    }
+
+    @Test
+    public void givenLastRecipeWithAValueWhenChangedOrRemovedThenTheIdSetOfTheValueIsDropped() {
+        store.update(salmonRecipe.toBuilder().servings(5).ingredients(List.of("potatoes")).build(), null);
+        store.deleteById(pastaRecipe.id());
+
+        assertThat(idsByValue("idsByIngredient")).containsOnlyKeys("potatoes", "carrot");
+        assertThat(idsByValue("idsByServings")).containsOnlyKeys(4, 5);
+    }
+
+    @Test
+    public void givenRemovedRecipeWhenFindThenItIsGone() {
+        long version = store.version();
+
+        store.deleteById(vegetablesRecipe.id());
+
+        assertThat(store.existsById(vegetablesRecipe.id())).isFalse();
+        assertThat(store.find(RecipeFilter.builder().isVegetarian(true).build(), RecipeProjection.ALL, null, null, 10))
+                .extracting(Recipe::id).containsExactly(pastaRecipe.id());
+        assertThat(store.version()).isGreaterThan(version);
+    }
+
+    @Test
+    public void givenFilterWhenFindThenMatchingRecipesArePagedInIdOrder() {
+        RecipeFilter filter = RecipeFilter.builder().servings(2).build();
+
+        List<Recipe> firstPage = store.find(filter, RecipeProjection.ALL, null, null, 1);
+        List<Recipe> secondPage = store.find(filter, RecipeProjection.ALL, new ObjectId(salmonRecipe.id()), null, 1);
+
+        assertThat(firstPage).containsExactly(salmonRecipe, pastaRecipe);
+        assertThat(secondPage).containsExactly(pastaRecipe);
+    }
+
+    @Test
+    public void givenAllCriteriaWhenFindThenEveryCriteriaIsChecked() {
+        assertThat(store.find(RecipeFilter.builder().isVegetarian(true).excludeIngredient("cheese").build(),
+                RecipeProjection.ALL, null, null, 10)).containsExactly(vegetablesRecipe);
+        assertThat(store.find(RecipeFilter.builder().instruction("oven").build(), RecipeProjection.ALL, null, null, 10))
+                .containsExactly(salmonRecipe);
+        assertThat(store.find(RecipeFilter.builder().includeIngredient("tofu").build(), RecipeProjection.ALL, null, null, 10))
+                .isEmpty();
+    }
+
+    @Test
+    public void givenProjectionWhenFindThenOnlyProjectedFieldsAreSet() {
+        List<Recipe> recipes = store.find(RecipeFilter.builder().build(), RecipeProjection.of(List.of("name")), null, null, 1);
+
+        assertThat(recipes.get(0)).isEqualTo(Recipe.builder().id(salmonRecipe.id()).name("salmon recipe").build());
+    }
+
+    @Test
+    public void givenFilterWhenFacetsThenCountsAreSortedAsMongoSortsThem() {
+        RecipeFacets facets = store.facets(RecipeFilter.builder().build(), 2);
+
+        assertThat(facets.total()).isEqualTo(3);
+        assertThat(facets.isVegetarian()).containsExactly(new RecipeFacetCount<>(true, 2), new RecipeFacetCount<>(false, 1));
+        assertThat(facets.servings()).containsExactly(new RecipeFacetCount<>(2, 2), new RecipeFacetCount<>(4, 1));
+        assertThat(facets.ingredients()).containsExactly(new RecipeFacetCount<>("potatoes", 2), new RecipeFacetCount<>("carrot", 1));
+    }
+
+    @Test
+    public void givenOrderedBulkWithFailingOperationWhenBulkThenFollowingOperationsAreSkipped() {
+        Recipe tofu = recipe("tofu recipe", true, 1, "", "tofu");
+
+        RecipeBulkResult result = store.bulk(List.of(
+                new RecipeBulkOperation(RecipeBulkOperation.Type.CREATE, null, tofu),
+                new RecipeBulkOperation(RecipeBulkOperation.Type.CREATE, null, tofu),
+                new RecipeBulkOperation(RecipeBulkOperation.Type.DELETE, salmonRecipe.id(), null)), true);
+
+        assertThat(result.inserted()).isEqualTo(1);
+        assertThat(result.deleted()).isZero();
+        assertThat(result.items()).extracting(RecipeBulkResult.Item::status).containsExactly(
+                RecipeBulkResult.Status.APPLIED, RecipeBulkResult.Status.FAILED, RecipeBulkResult.Status.SKIPPED);
+        assertThat(result.items().get(1).message()).isEqualTo("Recipe already exists");
+        assertThat(store.existsById(result.items().get(0).recipe().id())).isTrue();
+        assertThat(store.existsById(salmonRecipe.id())).isTrue();
+    }
+
+    @Test
+    public void givenStaleVersionAndMissingIdsWhenOrderedBulkThenTheyAreReportedAndTheRestIsApplied() {
+        Recipe salmon = recipe("baked salmon recipe", false, 2, "", "salmon").toBuilder().version(5L).build();
+        long version = store.version();
+
+        RecipeBulkResult result = store.bulk(List.of(
+                new RecipeBulkOperation(RecipeBulkOperation.Type.UPDATE, salmonRecipe.id(), salmon),
+                new RecipeBulkOperation(RecipeBulkOperation.Type.UPDATE, "123", salmon.toBuilder().version(null).build()),
+                new RecipeBulkOperation(RecipeBulkOperation.Type.DELETE, "123", null),
+                new RecipeBulkOperation(RecipeBulkOperation.Type.DELETE, pastaRecipe.id(), null)), true);
+
+        assertThat(result.items()).extracting(RecipeBulkResult.Item::status).containsExactly(
+                RecipeBulkResult.Status.CONFLICT, RecipeBulkResult.Status.NOT_FOUND,
+                RecipeBulkResult.Status.NOT_FOUND, RecipeBulkResult.Status.APPLIED);
+        assertThat(result.matched()).isZero();
+        assertThat(result.deleted()).isEqualTo(1);
+        assertThat(store.findById(salmonRecipe.id())).contains(salmonRecipe);
+        assertThat(store.existsById(pastaRecipe.id())).isFalse();
+        assertThat(store.version()).isGreaterThan(version);
+    }
+
+    @Test
+    public void givenMissingRecipeWhenDeletedThenVersionIsKept() {
+        long version = store.version();
+
+        store.deleteById("62a1f0c2e4b0a1b2c3d4e5f6");
+
+        assertThat(store.version()).isEqualTo(version);
+        store.deleteById(salmonRecipe.id());
+        assertThat(store.version()).isGreaterThan(version);
+    }
+
+    @Test
+    public void givenSnapshotFileWhenStoreRestartsThenRecipesAndVersionAreRestored(@TempDir Path directory) {
+        String snapshotFile = directory.resolve("recipes.json.gz").toString();
+        InMemoryRecipeStore first = new InMemoryRecipeStore(snapshotFile, Duration.ZERO);
+        first.start();
+        Recipe saved = first.insert(recipe("salmon recipe", false, 2, "put the salmon in the oven", "salmon"));
+        first.stop();
+
+        InMemoryRecipeStore second = new InMemoryRecipeStore(snapshotFile, Duration.ZERO);
+        second.start();
+
+        assertThat(second.findById(saved.id())).contains(saved);
+        assertThat(second.find(RecipeFilter.builder().includeIngredient("salmon").build(), RecipeProjection.ALL, null, null, 10))
+                .containsExactly(saved);
+        assertThat(second.version()).isEqualTo(first.version());
+        assertThrows(ResourceAlreadyExistException.class,
+                () -> second.insert(recipe("salmon recipe", true, 1, "", "tofu")));
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<Object, ?> idsByValue(String field) {
+        return (Map<Object, ?>) ReflectionTestUtils.getField(store, field);
+    }
+
+    private static Recipe recipe(String name, boolean isVegetarian, int servings, String instructions, String... ingredients) {
+        return Recipe.builder()
+                .name(name)
+                .isVegetarian(isVegetarian)
+                .servings(servings)
+                .instructions(instructions)
+                .ingredients(List.of(ingredients))
+                .build();
+    }
+}